@@ -7,4 +7,6 @@ public interface FileProcessorQueue {
 
   Mono<SendMessageResponse> sendMessage(String body);
 
+  Mono<Void> flush();
+
 }
@@ -0,0 +1,12 @@
+package br.com.processor.app.ports;
+
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+
+public interface FrameExtractor {
+
+  Mono<Path> extract(Path video, ExtractionProfile profile, Path zipPath);
+
+}
@@ -0,0 +1,12 @@
+package br.com.processor.app.ports;
+
+import br.com.processor.app.usecases.models.JobProgress;
+import reactor.core.publisher.Mono;
+
+public interface JobLedger {
+
+  Mono<JobProgress> find(String fileId);
+
+  Mono<Void> record(String fileId, JobProgress progress);
+
+}
@@ -0,0 +1,12 @@
+package br.com.processor.app.ports;
+
+import br.com.processor.app.usecases.models.ProcessedZip;
+import reactor.core.publisher.Mono;
+
+public interface ProcessedVideoIndex {
+
+  Mono<ProcessedZip> find(String contentKey);
+
+  Mono<Void> put(String contentKey, ProcessedZip zip);
+
+}
@@ -1,16 +1,43 @@
 package br.com.processor.app.usecases;
 
+import br.com.processor.infra.s3.MultipartUploadOutputStream;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.core.FileRequestBodyConfiguration;
+import software.amazon.awssdk.core.FileTransformerConfiguration;
+import software.amazon.awssdk.core.FileTransformerConfiguration.FailureBehavior;
+import software.amazon.awssdk.core.FileTransformerConfiguration.FileWriteOption;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.function.Function;
 
+import static br.com.processor.infra.s3.MultipartUploadOutputStream.MIN_PART_SIZE;
 import static software.amazon.awssdk.core.async.AsyncRequestBody.fromFile;
 import static software.amazon.awssdk.core.async.AsyncResponseTransformer.toFile;
 
@@ -22,28 +49,210 @@ public class BucketUseCase {
 
   private static final Logger log = LoggerFactory.getLogger(BucketUseCase.class);
 
+  private static final int MAX_PARTS = 10_000;
+
+  @Setter
+  @Value("${processor.s3.part-size-bytes:16777216}")
+  private long partSizeBytes;
+
+  @Setter
+  @Value("${processor.s3.multipart-threshold-bytes:16777216}")
+  private long multipartThresholdBytes;
+
+  @Setter
+  @Value("${processor.s3.max-concurrency:8}")
+  private int maxConcurrency;
+
   public Mono<Path> getFile(String bucket, String key, Path destinationPath) {
-    var request = GetObjectRequest.builder()
-      .bucket(bucket)
-      .key(key)
-      .build();
+    return this.headFile(bucket, key)
+      .flatMap(object -> this.getFile(bucket, key, object, destinationPath));
+  }
 
-    return Mono.fromFuture(s3AsyncClient.getObject(request, toFile(destinationPath)))
+  /**
+   * Downloads an object whose metadata the caller already has, saving the extra HEAD request. Without
+   * a content length the object is fetched with a single GetObject.
+   */
+  public Mono<Path> getFile(String bucket, String key, HeadObjectResponse object, Path destinationPath) {
+    return (object.contentLength() != null && object.contentLength() > multipartThresholdBytes
+        ? getRanges(bucket, key, object, destinationPath)
+        : getObject(bucket, key, destinationPath))
       .thenReturn(destinationPath)
       .doOnSuccess(path -> log.info("Get file successfully: {}", path))
       .doOnError(error -> log.error("Error processing get file: {}", error.getMessage()));
   }
 
   public Mono<Path> uploadFile(String bucket, String key, Path filePath) {
+    return Mono.fromCallable(() -> Files.size(filePath))
+      .flatMap(size -> size > multipartThresholdBytes
+        ? uploadParts(bucket, key, filePath, size)
+        : putObject(bucket, key, filePath))
+      .doOnSuccess(ignored -> log.info("Upload file successfully: {}", filePath))
+      .doOnError(error -> log.error("Error processing upload file: {}", error.getMessage()))
+      .then(Mono.just(filePath));
+  }
+
+  public Mono<HeadObjectResponse> headFile(String bucket, String key) {
+    var request = HeadObjectRequest.builder()
+      .bucket(bucket)
+      .key(key)
+      .build();
+
+    return Mono.fromFuture(() -> s3AsyncClient.headObject(request));
+  }
+
+  /** Copies {@code sourceKey} only while its ETag is still {@code sourceETag}; otherwise S3 fails with 412. */
+  public Mono<String> copyFile(String bucket, String sourceKey, String sourceETag, String destinationKey) {
+    var request = CopyObjectRequest.builder()
+      .sourceBucket(bucket)
+      .sourceKey(sourceKey)
+      .copySourceIfMatch(sourceETag)
+      .destinationBucket(bucket)
+      .destinationKey(destinationKey)
+      .build();
+
+    return Mono.fromFuture(() -> s3AsyncClient.copyObject(request))
+      .thenReturn(destinationKey)
+      .doOnSuccess(copied -> log.info("Copy file successfully: {} -> {}", sourceKey, copied))
+      .doOnError(error -> log.error("Error processing copy file: {}", error.getMessage()));
+  }
+
+  public Mono<ResponseInputStream<GetObjectResponse>> getFileStream(String bucket, String key) {
+    var request = GetObjectRequest.builder()
+      .bucket(bucket)
+      .key(key)
+      .build();
+
+    return Mono.fromFuture(() -> s3AsyncClient.getObject(request, AsyncResponseTransformer.toBlockingInputStream()))
+      .doOnSuccess(stream -> log.info("Get file stream opened: {} ({} bytes)", key, stream.response().contentLength()))
+      .doOnError(error -> log.error("Error opening file stream: {}", error.getMessage()));
+  }
+
+  public Mono<String> uploadStream(String bucket, String key, Function<OutputStream, Mono<?>> writer) {
+    var request = CreateMultipartUploadRequest.builder()
+      .bucket(bucket)
+      .key(key)
+      .build();
+
+    return Mono.fromFuture(() -> s3AsyncClient.createMultipartUpload(request))
+      .map(response -> new MultipartUploadOutputStream(s3AsyncClient, bucket, key, response.uploadId(),
+        Math.toIntExact(Math.max(partSizeBytes, MIN_PART_SIZE)), maxConcurrency))
+      .flatMap(output -> writer.apply(output)
+        .then(Mono.fromCallable(() -> {
+          output.close();
+          return key;
+        }).subscribeOn(Schedulers.boundedElastic()))
+        .onErrorResume(error -> Mono.fromFuture(output.abort()).then(Mono.error(error)))
+        .doOnCancel(output::abort))
+      .doOnSuccess(uploaded -> log.info("Upload stream successfully: {}", uploaded))
+      .doOnError(error -> log.error("Error processing upload stream: {}", error.getMessage()));
+  }
+
+  private Mono<Void> getObject(String bucket, String key, Path destinationPath) {
+    var request = GetObjectRequest.builder()
+      .bucket(bucket)
+      .key(key)
+      .build();
+
+    return Mono.fromFuture(() -> s3AsyncClient.getObject(request, toFile(destinationPath))).then();
+  }
+
+  private Mono<Void> getRanges(String bucket, String key, HeadObjectResponse object, Path destinationPath) {
+    long size = object.contentLength();
+    long partSize = partSize(size);
+    int parts = (int) ((size + partSize - 1) / partSize);
+
+    return Mono.fromCallable(() -> Files.write(destinationPath, new byte[0]))
+      .subscribeOn(Schedulers.boundedElastic())
+      .doOnNext(path -> log.info("Downloading {} in {} ranges", key, parts))
+      .thenMany(Flux.range(0, parts))
+      .flatMap(part -> {
+        long start = part * partSize;
+        long end = Math.min(size, start + partSize) - 1;
+        var request = GetObjectRequest.builder()
+          .bucket(bucket)
+          .key(key)
+          .range("bytes=" + start + "-" + end)
+          .ifMatch(object.eTag())
+          .build();
+        var transformer = AsyncResponseTransformer.<GetObjectResponse>toFile(destinationPath, FileTransformerConfiguration.builder()
+          .fileWriteOption(FileWriteOption.WRITE_TO_POSITION)
+          .position(start)
+          .failureBehavior(FailureBehavior.LEAVE)
+          .build());
+        return Mono.fromFuture(() -> s3AsyncClient.getObject(request, transformer));
+      }, maxConcurrency)
+      .then();
+  }
+
+  private Mono<Void> putObject(String bucket, String key, Path filePath) {
     var request = PutObjectRequest.builder()
       .bucket(bucket)
       .key(key)
       .build();
 
-    return Mono.fromFuture(s3AsyncClient.putObject(request, fromFile(filePath)))
-      .doOnSuccess(path -> log.info("Upload file successfully: {}", path))
-      .doOnError(error -> log.error("Error processing upload file: {}", error.getMessage()))
-      .then(Mono.just(filePath));
+    return Mono.fromFuture(() -> s3AsyncClient.putObject(request, fromFile(filePath))).then();
+  }
+
+  private Mono<Void> uploadParts(String bucket, String key, Path filePath, long size) {
+    var request = CreateMultipartUploadRequest.builder()
+      .bucket(bucket)
+      .key(key)
+      .build();
+    long partSize = partSize(size);
+    int parts = (int) ((size + partSize - 1) / partSize);
+
+    return Mono.fromFuture(() -> s3AsyncClient.createMultipartUpload(request))
+      .map(CreateMultipartUploadResponse::uploadId)
+      .flatMap(uploadId -> Flux.range(1, parts)
+        .flatMapSequential(partNumber -> uploadPart(bucket, key, uploadId, filePath, partNumber, partSize, size), maxConcurrency)
+        .collectList()
+        .flatMap(completedParts -> Mono.fromFuture(() -> s3AsyncClient.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+          .bucket(bucket)
+          .key(key)
+          .uploadId(uploadId)
+          .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+          .build())))
+        .onErrorResume(error -> abortUpload(bucket, key, uploadId).then(Mono.error(error)))
+        .doOnCancel(() -> abortUpload(bucket, key, uploadId).subscribe()))
+      .then();
+  }
+
+  private Mono<CompletedPart> uploadPart(String bucket, String key, String uploadId, Path filePath,
+                                         int partNumber, long partSize, long size) {
+    long position = (partNumber - 1) * partSize;
+    long length = Math.min(partSize, size - position);
+    var request = UploadPartRequest.builder()
+      .bucket(bucket)
+      .key(key)
+      .uploadId(uploadId)
+      .partNumber(partNumber)
+      .contentLength(length)
+      .build();
+    var body = AsyncRequestBody.fromFile(FileRequestBodyConfiguration.builder()
+      .path(filePath)
+      .position(position)
+      .numBytesToRead(length)
+      .build());
+
+    return Mono.fromFuture(() -> s3AsyncClient.uploadPart(request, body))
+      .map(response -> CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+  }
+
+  private Mono<Void> abortUpload(String bucket, String key, String uploadId) {
+    var request = AbortMultipartUploadRequest.builder()
+      .bucket(bucket)
+      .key(key)
+      .uploadId(uploadId)
+      .build();
+
+    return Mono.fromFuture(() -> s3AsyncClient.abortMultipartUpload(request))
+      .doOnError(error -> log.warn("Error aborting multipart upload {}: {}", uploadId, error.getMessage()))
+      .onErrorResume(error -> Mono.empty())
+      .then();
+  }
+
+  private long partSize(long size) {
+    return Math.max(Math.max(partSizeBytes, MIN_PART_SIZE), (size + MAX_PARTS - 1) / MAX_PARTS);
   }
 
 }
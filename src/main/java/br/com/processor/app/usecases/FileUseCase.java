@@ -1,69 +1,121 @@
 package br.com.processor.app.usecases;
 
-import br.com.processor.app.exception.BusinessException;
+import br.com.processor.app.ports.FrameExtractor;
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import br.com.processor.infra.ffmpeg.FfmpegCommand;
+import br.com.processor.infra.ffmpeg.FfmpegRunner;
+import br.com.processor.infra.ffmpeg.MjpegFrameReader;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import br.com.processor.infra.scheduling.PipelineSchedulers;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
-import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
-import static java.nio.file.Files.createDirectories;
-import static java.nio.file.Paths.get;
-
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FileUseCase {
 
-  public Mono<Path> processFile(Path file) {
+  private final FrameExtractor frameExtractor;
+  private final PipelineMetrics metrics;
+  private final FfmpegRunner ffmpegRunner;
+  private final PipelineSchedulers schedulers;
+
+  public Mono<Path> processFile(Path file, ExtractionProfile profile) {
     try {
       var baseName = file.getFileName().toString().replace(".mp4", "");
-      var framesDir = get("/tmp", baseName + "_frames");
-      var zipPath = get("/tmp", baseName + "_frames.zip");
-      createDirectories(framesDir);
-      var command = String.format("ffmpeg -i %s %s/frame_%%03d.jpg", file.toAbsolutePath(), framesDir.toAbsolutePath());
+      var zipPath = file.resolveSibling(baseName + "_frames.zip");
+      var baseProfile = profile != null ? profile : new ExtractionProfile();
+      FfmpegCommand.validate(baseProfile);
 
-      return Mono.fromCallable(() -> {
-          Process process = new ProcessBuilder(command.split(" "))
-            .redirectErrorStream(true)
-            .start();
-          int exitCode = process.waitFor();
-          if (exitCode != 0) throw new BusinessException("FFmpeg failed");
-          return framesDir;
-        }).subscribeOn(Schedulers.boundedElastic())
-        .flatMap(dir -> zipDirectory(dir, zipPath));
+      return frameExtractor.extract(file, baseProfile, zipPath);
     } catch (Exception e) {
       return Mono.error(e);
     }
   }
 
-  private Mono<Path> zipDirectory(Path sourceDir, Path zipPath) {
-    return Mono.fromCallable(() -> {
-      try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipPath.toFile()))) {
-        Files.walk(sourceDir)
-          .filter(Files::isRegularFile)
-          .forEach(file -> {
-            ZipEntry zipEntry = new ZipEntry(sourceDir.relativize(file).toString());
-            try (InputStream is = Files.newInputStream(file)) {
-              zos.putNextEntry(zipEntry);
-              is.transferTo(zos);
-              zos.closeEntry();
-            } catch (IOException e) {
-              throw new UncheckedIOException(e);
-            }
-          });
-        return zipPath;
+  /**
+   * Pipes {@code video} through ffmpeg and zips the frames it emits. The input pump must emit a value:
+   * an empty source would make {@code Mono.zip} cancel the zipping side and cut the zip short.
+   */
+  public Mono<Long> streamFrames(InputStream video, OutputStream zipOutput, ExtractionProfile profile) {
+    return Mono.fromCallable(() -> FfmpegCommand.streamFrames(profile))
+      .flatMap(command -> ffmpegRunner.run(command, process -> Mono.zip(
+        Mono.fromRunnable(() -> pumpInput(video, process.getOutputStream())).subscribeOn(schedulers.blocking()).thenReturn(Boolean.TRUE),
+        Mono.fromCallable(() -> zipFrames(process.getInputStream(), zipOutput)),
+        (ignored, frames) -> frames)))
+      .doOnSuccess(frames -> {
+        metrics.frames(frames);
+        log.info("Streamed {} frames", frames);
+      });
+  }
+
+  private void pumpInput(InputStream video, OutputStream ffmpegInput) {
+    var buffer = new byte[64 * 1024];
+    try (ffmpegInput) {
+      int read;
+      while ((read = video.read(buffer)) >= 0) {
+        try {
+          ffmpegInput.write(buffer, 0, read);
+        } catch (IOException e) {
+          log.warn("FFmpeg closed its input early: {}", e.getMessage());
+          return;
+        }
       }
-    }).subscribeOn(Schedulers.boundedElastic());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private long zipFrames(InputStream frames, OutputStream zipOutput) throws IOException {
+    var reader = new MjpegFrameReader(frames);
+    var crc = new CRC32();
+    long count = 0;
+    try (ZipOutputStream zos = new ZipOutputStream(new NonClosingOutputStream(zipOutput))) {
+      byte[] frame;
+      while ((frame = reader.next()) != null) {
+        crc.reset();
+        crc.update(frame);
+        var entry = new ZipEntry(String.format(FfmpegCommand.FRAME_PATTERN, ++count));
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(frame.length);
+        entry.setCompressedSize(frame.length);
+        entry.setCrc(crc.getValue());
+        zos.putNextEntry(entry);
+        zos.write(frame);
+        zos.closeEntry();
+      }
+    }
+    return count;
+  }
+
+  private static class NonClosingOutputStream extends FilterOutputStream {
+
+    NonClosingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+      out.write(bytes, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+
   }
 
 }
@@ -1,26 +1,47 @@
 package br.com.processor.app.usecases;
 
 import br.com.processor.app.ports.FileProcessorQueue;
+import br.com.processor.app.ports.JobLedger;
+import br.com.processor.app.ports.ProcessedVideoIndex;
+import br.com.processor.app.usecases.models.ExtractionProfile;
 import br.com.processor.app.usecases.models.FileProcessorQueueMessage;
+import br.com.processor.app.usecases.models.JobProgress;
+import br.com.processor.app.usecases.models.ProcessedZip;
 import br.com.processor.app.usecases.models.UploadFileMessage;
 import br.com.processor.app.usecases.models.UploadQueueMessage;
+import br.com.processor.enums.FileLane;
 import br.com.processor.enums.FileStatusEnum;
+import br.com.processor.enums.JobStage;
+import br.com.processor.infra.ffmpeg.FfmpegCommand;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import br.com.processor.infra.scheduling.FileScheduler;
+import br.com.processor.infra.workspace.WorkspaceManager;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
 
 import java.nio.file.Path;
+import java.util.Optional;
 
 import static br.com.processor.enums.FileStatusEnum.FAILED;
 import static br.com.processor.enums.FileStatusEnum.PROCESSED;
+import static br.com.processor.enums.JobStage.EXTRACTED;
+import static br.com.processor.enums.JobStage.PUBLISHED;
+import static br.com.processor.enums.JobStage.UPLOADED;
+import static br.com.processor.infra.metrics.PipelineMetrics.COPY;
+import static br.com.processor.infra.metrics.PipelineMetrics.DOWNLOAD;
+import static br.com.processor.infra.metrics.PipelineMetrics.PUBLISH;
+import static br.com.processor.infra.metrics.PipelineMetrics.STREAM;
+import static br.com.processor.infra.metrics.PipelineMetrics.UPLOAD;
 import static br.com.processor.utils.JsonUtils.toJson;
 import static br.com.processor.webui.constants.Constants.UPLOADS_BUCKET_NAME;
-import static java.lang.System.getProperty;
-import static java.nio.file.Files.createTempDirectory;
-import static java.nio.file.Files.createTempFile;
-import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.exists;
 import static java.nio.file.Path.of;
 
 @Service
@@ -31,30 +52,207 @@ public class ProcessFileUseCase {
   private final BucketUseCase bucketUseCase;
   private final FileUseCase fileUseCase;
   private final FileProcessorQueue fileProcessorQueue;
+  private final ProcessedVideoIndex processedVideoIndex;
+  private final JobLedger jobLedger;
+  private final FileScheduler fileScheduler;
+  private final WorkspaceManager workspaceManager;
+  private final PipelineMetrics metrics;
+
+  @Setter
+  @Value("${processor.pipeline.streaming:false}")
+  private boolean streaming;
+
+  @Setter
+  @Value("${processor.dedup.enabled:false}")
+  private boolean dedup;
+
+  @Setter
+  @Value("${processor.ledger.enabled:false}")
+  private boolean ledger;
 
   public Mono<UploadQueueMessage> process(UploadQueueMessage message) {
+    return process(message, null);
+  }
+
+  /**
+   * Processes each file of {@code message} in {@code lane}, or, when that is null and lanes are on,
+   * in the lane for its size: the message's size hint, else the size from a HEAD of the object.
+   */
+  public Mono<UploadQueueMessage> process(UploadQueueMessage message, FileLane lane) {
     log.info("Processing message: {}", toJson(message));
     return Flux.fromIterable(message.getFiles())
       .flatMap(file -> {
         var key = message.getEmail() + "/" + file.getFileName();
-        return Mono.defer(() -> Mono.fromCallable(() -> {
-            Path safeTempDir = createTempDirectory(of(getProperty("user.dir")), "processor_");
-            return createTempFile(safeTempDir, "upload_", "_" + file.getFileName());
-          })
-          .flatMap(destinationPath -> this.bucketUseCase.getFile(UPLOADS_BUCKET_NAME, key, destinationPath)
-            .flatMap(fileUseCase::processFile)
-            .flatMap(zipFile -> this.bucketUseCase.uploadFile(UPLOADS_BUCKET_NAME, key.replace(".mp4", "_frames.zip"), zipFile))
-            .doFinally(signal -> this.deleteTempFile(destinationPath))
-            .flatMap(path -> this.fileProcessorQueue.sendMessage(toJson(createQueueMessage(message.getEmail(), file, PROCESSED))))
-            .onErrorResume(error -> this.fileProcessorQueue.sendMessage(toJson(createQueueMessage(message.getEmail(), file, FAILED)))
-              .then(Mono.error(error)))
-            .doOnSuccess(path -> log.info("File processed successfully: {}", file.getFileName()))
-            .doOnError(error -> log.error("Error processing file: {}", error.getMessage()))
-          ));
+        var zipKey = key.replace(".mp4", "_frames.zip");
+        var profile = file.getProfile() != null ? file.getProfile() : message.getProfile();
+        var fileId = file.getFileId();
+        return this.headForLane(key, file, lane).flatMap(head -> fileScheduler.submit(message.getEmail(),
+          this.lane(file, head.orElse(null), lane), Mono.defer(() -> this.findProgress(fileId)
+          .flatMap(progress -> {
+            if (progress.getStage() == PUBLISHED) {
+              log.info("Skipping already processed file: {}", file.getFileName());
+              metrics.resumed(PUBLISHED);
+              return Mono.empty();
+            }
+            return this.resume(fileId, progress, key, zipKey, profile, head.orElse(null))
+              .flatMap(uploaded -> this.publish(message.getEmail(), file, PROCESSED))
+              .then(this.recordProgress(fileId, PUBLISHED, null))
+              .onErrorResume(error -> this.publish(message.getEmail(), file, FAILED)
+                .then(Mono.error(error)))
+              .doOnSuccess(path -> log.info("File processed successfully: {}", file.getFileName()))
+              .doOnError(error -> log.error("Error processing file: {}", error.getMessage()));
+          }))));
       })
       .then(Mono.just(message));
   }
 
+  /** HEADs the video only when its lane depends on a size the message does not carry. */
+  private Mono<Optional<HeadObjectResponse>> headForLane(String key, UploadFileMessage file, FileLane lane) {
+    if (lane != null || !fileScheduler.lanesEnabled() || file.getSizeBytes() != null) return Mono.just(Optional.empty());
+    return this.bucketUseCase.headFile(UPLOADS_BUCKET_NAME, key)
+      .map(Optional::of)
+      .onErrorResume(error -> {
+        log.warn("Could not size {} for its lane: {}", key, error.getMessage());
+        return Mono.just(Optional.empty());
+      });
+  }
+
+  private FileLane lane(UploadFileMessage file, HeadObjectResponse video, FileLane lane) {
+    if (lane != null) return lane;
+    return fileScheduler.lane(file.getSizeBytes() != null ? file.getSizeBytes() : video != null ? video.contentLength() : null);
+  }
+
+  /**
+   * Continues from the last stage the ledger saw completed: an uploaded zip only needs publishing,
+   * and a zip extracted on this node only needs uploading if it is still on disk.
+   */
+  private Mono<String> resume(String fileId, JobProgress progress, String key, String zipKey, ExtractionProfile profile,
+                              HeadObjectResponse video) {
+    if (progress.getStage() == UPLOADED) {
+      log.info("Resuming {} after upload", zipKey);
+      metrics.resumed(UPLOADED);
+      return Mono.just(zipKey);
+    }
+    if (progress.getStage() == EXTRACTED && progress.getZipPath() != null && exists(of(progress.getZipPath()))) {
+      log.info("Resuming {} after extraction", zipKey);
+      metrics.resumed(EXTRACTED);
+      var zipFile = of(progress.getZipPath());
+      return this.upload(fileId, zipKey, zipFile)
+        .flatMap(uploaded -> this.recordProgress(fileId, UPLOADED, null).thenReturn(zipKey))
+        .flatMap(uploaded -> this.workspaceManager.discard(zipFile).thenReturn(uploaded));
+    }
+    return (dedup ? this.processDeduplicated(fileId, key, zipKey, profile, video) : this.processVideo(fileId, key, zipKey, profile, video))
+      .flatMap(uploaded -> this.recordProgress(fileId, UPLOADED, null).thenReturn(uploaded));
+  }
+
+  private Mono<JobProgress> findProgress(String fileId) {
+    if (!ledger || fileId == null) return Mono.just(new JobProgress());
+    return this.jobLedger.find(fileId).defaultIfEmpty(new JobProgress());
+  }
+
+  private Mono<Void> recordProgress(String fileId, JobStage stage, Path zipPath) {
+    if (!ledger || fileId == null) return Mono.empty();
+    var progress = JobProgress.builder()
+      .stage(stage)
+      .zipPath(zipPath != null ? zipPath.toString() : null)
+      .build();
+    return this.jobLedger.record(fileId, progress)
+      .onErrorResume(error -> {
+        log.warn("Could not record {} for {}: {}", stage, fileId, error.getMessage());
+        return Mono.empty();
+      });
+  }
+
+  private Mono<String> processDeduplicated(String fileId, String key, String zipKey, ExtractionProfile profile, HeadObjectResponse head) {
+    return (head != null ? Mono.just(head) : this.bucketUseCase.headFile(UPLOADS_BUCKET_NAME, key))
+      .flatMap(video -> {
+        var contentKey = contentKey(video, profile);
+        return this.processedVideoIndex.find(contentKey)
+          .flatMap(processed -> this.reuseZip(processed, zipKey))
+          .switchIfEmpty(Mono.defer(() -> this.processVideo(fileId, key, zipKey, profile, video)
+            .flatMap(uploaded -> this.index(contentKey, zipKey).thenReturn(uploaded))));
+      });
+  }
+
+  /**
+   * Reuses indexed frames only while their zip still has the indexed ETag: zip keys follow file
+   * names, so a later upload under the same name overwrites them with other frames.
+   */
+  private Mono<String> reuseZip(ProcessedZip processed, String zipKey) {
+    if (processed.getETag() == null) return Mono.empty();
+    var reused = processed.getZipKey().equals(zipKey)
+      ? this.bucketUseCase.headFile(UPLOADS_BUCKET_NAME, zipKey)
+        .filter(zip -> {
+          boolean unchanged = processed.getETag().equals(zip.eTag());
+          if (!unchanged) log.info("Frames {} changed since they were indexed", zipKey);
+          return unchanged;
+        })
+        .map(zip -> zipKey)
+      : this.bucketUseCase.copyFile(UPLOADS_BUCKET_NAME, processed.getZipKey(), processed.getETag(), zipKey);
+    return metrics.time(COPY, reused)
+      .doOnNext(reusedKey -> log.info("Reused frames {} for {}", processed.getZipKey(), zipKey))
+      .onErrorResume(error -> {
+        log.warn("Could not reuse frames {}: {}", processed.getZipKey(), error.getMessage());
+        return Mono.empty();
+      });
+  }
+
+  private Mono<Void> index(String contentKey, String zipKey) {
+    return this.bucketUseCase.headFile(UPLOADS_BUCKET_NAME, zipKey)
+      .flatMap(zip -> this.processedVideoIndex.put(contentKey, ProcessedZip.builder().zipKey(zipKey).eTag(zip.eTag()).build()))
+      .onErrorResume(error -> {
+        log.warn("Could not index frames {}: {}", zipKey, error.getMessage());
+        return Mono.empty();
+      });
+  }
+
+  private Mono<String> processVideo(String fileId, String key, String zipKey, ExtractionProfile profile, HeadObjectResponse video) {
+    // The streamed MJPEG output carries no hashes or timestamps, so frame selection runs locally.
+    return streaming && !FfmpegCommand.selectsFrames(profile)
+      ? this.processStreaming(key, zipKey, profile)
+      : this.processLocal(fileId, key, zipKey, profile, video).thenReturn(zipKey);
+  }
+
+  /**
+   * Downloads, extracts and uploads inside a workspace that is deleted however the job ends. With
+   * the ledger on, the zip is retained past the workspace so a redelivery can resume the upload.
+   */
+  private Mono<Path> processLocal(String fileId, String key, String zipKey, ExtractionProfile profile, HeadObjectResponse video) {
+    var head = video != null ? Mono.just(video) : this.bucketUseCase.headFile(UPLOADS_BUCKET_NAME, key);
+    return head.flatMap(object -> this.workspaceManager.withWorkspace(object.contentLength() != null ? object.contentLength() : 0,
+      workspace -> metrics.time(DOWNLOAD, this.bucketUseCase.getFile(UPLOADS_BUCKET_NAME, key, object, workspace.resolve(of(key).getFileName().toString())))
+        .doOnNext(file -> metrics.bytes(DOWNLOAD, file.toFile().length()))
+        .flatMap(file -> fileUseCase.processFile(file, profile))
+        .flatMap(zipFile -> ledger && fileId != null ? this.workspaceManager.retain(workspace, zipFile) : Mono.just(zipFile))
+        .flatMap(zipFile -> this.recordProgress(fileId, EXTRACTED, zipFile).thenReturn(zipFile))
+        .flatMap(zipFile -> this.upload(fileId, zipKey, zipFile)
+          .flatMap(uploaded -> this.workspaceManager.discard(zipFile).thenReturn(uploaded)))));
+  }
+
+  private Mono<Path> upload(String fileId, String zipKey, Path zipFile) {
+    return metrics.time(UPLOAD, this.bucketUseCase.uploadFile(UPLOADS_BUCKET_NAME, zipKey, zipFile))
+      .doOnNext(uploaded -> metrics.bytes(UPLOAD, uploaded.toFile().length()));
+  }
+
+  private Mono<String> processStreaming(String key, String zipKey, ExtractionProfile profile) {
+    return metrics.time(STREAM, Mono.usingWhen(
+      this.bucketUseCase.getFileStream(UPLOADS_BUCKET_NAME, key)
+        .doOnNext(video -> metrics.bytes(DOWNLOAD, video.response().contentLength() != null ? video.response().contentLength() : 0)),
+      video -> this.bucketUseCase.uploadStream(UPLOADS_BUCKET_NAME, zipKey, output -> fileUseCase.streamFrames(video, output, profile)),
+      video -> Mono.fromRunnable(video::abort)));
+  }
+
+  private Mono<SendMessageResponse> publish(String email, UploadFileMessage file, FileStatusEnum status) {
+    return metrics.time(PUBLISH, this.fileProcessorQueue.sendMessage(toJson(createQueueMessage(email, file, status))))
+      .doOnTerminate(() -> metrics.file(status))
+      .doOnCancel(() -> metrics.file(status));
+  }
+
+  private static String contentKey(HeadObjectResponse video, ExtractionProfile profile) {
+    var key = video.eTag() + "|" + video.contentLength() + "|" + String.join(" ", FfmpegCommand.extractFrames("-", "-", profile));
+    return profile != null && profile.getDedupDistance() != null ? key + "|dedup=" + profile.getDedupDistance() : key;
+  }
+
   private FileProcessorQueueMessage createQueueMessage(String email, UploadFileMessage file, FileStatusEnum statusEnum) {
     return FileProcessorQueueMessage.builder()
       .email(email)
@@ -65,15 +263,4 @@ public class ProcessFileUseCase {
       .build();
   }
 
-  private void deleteTempFile(Path destinationPath) {
-    Mono.fromRunnable(() -> {
-      try {
-        deleteIfExists(destinationPath);
-        deleteIfExists(destinationPath.getParent());
-      } catch (Exception e) {
-        log.error("Error deleting temporary file: {}", e.getMessage());
-      }
-    }).subscribe();
-  }
-
 }
@@ -0,0 +1,24 @@
+package br.com.processor.app.usecases.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractionProfile {
+
+  private Double fps;
+  private Boolean keyframesOnly;
+  private Integer maxWidth;
+  private Integer maxHeight;
+  private Integer quality;
+  private Double startSeconds;
+  private Double endSeconds;
+  private Double sceneThreshold;
+  private Integer dedupDistance;
+
+}
@@ -0,0 +1,18 @@
+package br.com.processor.app.usecases.models;
+
+import br.com.processor.enums.JobStage;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobProgress {
+
+  private JobStage stage;
+  private String zipPath;
+
+}
@@ -0,0 +1,18 @@
+package br.com.processor.app.usecases.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A frames zip and the ETag it had when indexed, so a later overwrite of the key is detected. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedZip {
+
+  private String zipKey;
+  private String eTag;
+
+}
@@ -14,6 +14,8 @@ public class UploadFileMessage {
 
   private String fileId;
   private String fileName;
+  private Long sizeBytes;
   private UploadFileStatus status;
+  private ExtractionProfile profile;
 
 }
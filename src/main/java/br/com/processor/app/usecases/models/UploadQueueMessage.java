@@ -20,4 +20,6 @@ public class UploadQueueMessage {
   @Builder.Default
   private List<UploadFileMessage> files = new ArrayList<>();
 
+  private ExtractionProfile profile;
+
 }
@@ -0,0 +1,51 @@
+package br.com.processor.config;
+
+import br.com.processor.infra.aws.AwsHttpClientFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class AwsHttpConfig {
+
+  @Value("${aws.http.event-loop-threads:0}")
+  private int eventLoopThreads;
+
+  @Value("${aws.http.max-pending-connection-acquires:10000}")
+  private int maxPendingConnectionAcquires;
+
+  @Value("${aws.http.connection-acquisition-timeout-ms:10000}")
+  private long connectionAcquisitionTimeoutMs;
+
+  @Value("${aws.http.connection-timeout-ms:2000}")
+  private long connectionTimeoutMs;
+
+  @Value("${aws.http.read-timeout-ms:30000}")
+  private long readTimeoutMs;
+
+  @Value("${aws.http.write-timeout-ms:30000}")
+  private long writeTimeoutMs;
+
+  @Value("${aws.http.connection-max-idle-ms:60000}")
+  private long connectionMaxIdleMs;
+
+  @Value("${aws.http.tcp-keep-alive:true}")
+  private boolean tcpKeepAlive;
+
+  @Bean(destroyMethod = "close")
+  public AwsHttpClientFactory awsHttpClientFactory() {
+    return AwsHttpClientFactory.builder()
+      .eventLoopThreads(eventLoopThreads)
+      .maxPendingConnectionAcquires(maxPendingConnectionAcquires)
+      .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquisitionTimeoutMs))
+      .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+      .readTimeout(Duration.ofMillis(readTimeoutMs))
+      .writeTimeout(Duration.ofMillis(writeTimeoutMs))
+      .connectionMaxIdleTime(Duration.ofMillis(connectionMaxIdleMs))
+      .tcpKeepAlive(tcpKeepAlive)
+      .build();
+  }
+
+}
@@ -0,0 +1,20 @@
+package br.com.processor.config;
+
+import br.com.processor.enums.ExecutionMode;
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ExecutionConfig {
+
+  @Value("${processor.execution.mode:PLATFORM}")
+  private ExecutionMode mode;
+
+  @Bean(destroyMethod = "close")
+  public PipelineSchedulers pipelineSchedulers() {
+    return new PipelineSchedulers(mode);
+  }
+
+}
@@ -0,0 +1,29 @@
+package br.com.processor.config;
+
+import br.com.processor.infra.ffmpeg.FfmpegRunner;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class FfmpegConfig {
+
+  @Value("${processor.ffmpeg.max-processes:0}")
+  private int maxProcesses;
+
+  @Value("${processor.ffmpeg.pin-threads:false}")
+  private boolean pinThreads;
+
+  @Value("${processor.ffmpeg.timeout-seconds:3600}")
+  private long timeoutSeconds;
+
+  @Bean(destroyMethod = "close")
+  public FfmpegRunner ffmpegRunner(PipelineMetrics metrics, PipelineSchedulers schedulers) {
+    return new FfmpegRunner(maxProcesses, pinThreads, Duration.ofSeconds(timeoutSeconds), metrics, schedulers);
+  }
+
+}
@@ -1,5 +1,6 @@
 package br.com.processor.config;
 
+import br.com.processor.infra.aws.AwsHttpClientFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,18 +8,53 @@ import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 
+import java.net.URI;
+
 @Configuration
 public class S3Config {
 
   @Value("${aws.region}")
   private String awsRegion;
 
+  @Value("${aws.s3.endpoint-override:}")
+  private String endpointOverride;
+
+  @Value("${aws.s3.force-path-style:false}")
+  private boolean forcePathStyle;
+
+  @Value("${aws.s3.max-connections:200}")
+  private int maxConnections;
+
+  @Value("${aws.s3.crt.enabled:false}")
+  private boolean crtEnabled;
+
+  @Value("${aws.s3.crt.target-throughput-gbps:10}")
+  private double crtTargetThroughputGbps;
+
+  @Value("${processor.s3.part-size-bytes:16777216}")
+  private long partSizeBytes;
+
   @Bean
-  public S3AsyncClient s3Client() {
-    return S3AsyncClient.builder()
+  public S3AsyncClient s3Client(AwsHttpClientFactory httpClientFactory) {
+    if (crtEnabled) {
+      var builder = S3AsyncClient.crtBuilder()
+        .region(Region.of(awsRegion))
+        .credentialsProvider(DefaultCredentialsProvider.builder().build())
+        .forcePathStyle(forcePathStyle)
+        .maxConcurrency(maxConnections)
+        .minimumPartSizeInBytes(partSizeBytes)
+        .targetThroughputInGbps(crtTargetThroughputGbps);
+      if (!endpointOverride.isBlank()) builder.endpointOverride(URI.create(endpointOverride));
+      return builder.build();
+    }
+
+    var builder = S3AsyncClient.builder()
       .region(Region.of(awsRegion))
       .credentialsProvider(DefaultCredentialsProvider.builder().build())
-      .build();
+      .httpClientBuilder(httpClientFactory.httpClient(maxConnections))
+      .forcePathStyle(forcePathStyle);
+    if (!endpointOverride.isBlank()) builder.endpointOverride(URI.create(endpointOverride));
+    return builder.build();
   }
 
 }
@@ -1,5 +1,6 @@
 package br.com.processor.config;
 
+import br.com.processor.infra.aws.AwsHttpClientFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -7,18 +8,28 @@ import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 
+import java.net.URI;
+
 @Configuration
 public class SqsConfig {
 
   @Value("${aws.region}")
   private String awsRegion;
 
+  @Value("${aws.sqs.endpoint-override:}")
+  private String endpointOverride;
+
+  @Value("${aws.sqs.max-connections:100}")
+  private int maxConnections;
+
   @Bean
-  public SqsAsyncClient sqsClient() {
-    return SqsAsyncClient.builder()
+  public SqsAsyncClient sqsClient(AwsHttpClientFactory httpClientFactory) {
+    var builder = SqsAsyncClient.builder()
       .region(Region.of(awsRegion))
       .credentialsProvider(DefaultCredentialsProvider.create())
-      .build();
+      .httpClientBuilder(httpClientFactory.httpClient(maxConnections));
+    if (!endpointOverride.isBlank()) builder.endpointOverride(URI.create(endpointOverride));
+    return builder.build();
   }
 
 }
@@ -0,0 +1,19 @@
+package br.com.processor.config;
+
+import br.com.processor.infra.zip.ParallelZipWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ZipConfig {
+
+  @Value("${processor.zip.parallelism:0}")
+  private int parallelism;
+
+  @Bean(destroyMethod = "close")
+  public ParallelZipWriter parallelZipWriter() {
+    return new ParallelZipWriter(parallelism);
+  }
+
+}
@@ -0,0 +1,9 @@
+package br.com.processor.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum ExecutionMode {
+  PLATFORM,
+  VIRTUAL
+}
@@ -0,0 +1,10 @@
+package br.com.processor.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum JobStage {
+  EXTRACTED,
+  UPLOADED,
+  PUBLISHED
+}
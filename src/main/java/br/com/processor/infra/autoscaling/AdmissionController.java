@@ -0,0 +1,86 @@
+package br.com.processor.infra.autoscaling;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Pod-level admission control: the consumer stops receiving while the container is saturated on CPU
+ * or the scratch disk is running out, leaving the messages in the queue for other pods.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AdmissionController {
+
+  @Setter
+  @Value("${processor.admission.max-cpu-load:0.9}")
+  private double maxCpuLoad;
+
+  @Setter
+  @Value("${processor.admission.min-free-disk-bytes:1073741824}")
+  private long minFreeDiskBytes;
+
+  @Setter
+  @Value("${processor.admission.disk-path:${java.io.tmpdir}}")
+  private String diskPath;
+
+  @Setter
+  @Value("${processor.admission.poll-interval-ms:1000}")
+  private long pollIntervalMs;
+
+  private final MeterRegistry registry;
+
+  @Setter(AccessLevel.PACKAGE)
+  private DoubleSupplier cpuLoad = AdmissionController::systemCpuLoad;
+
+  @Setter(AccessLevel.PACKAGE)
+  private LongSupplier freeDisk = () -> new File(diskPath).getUsableSpace();
+
+  private volatile boolean saturated;
+
+  @PostConstruct
+  public void init() {
+    Gauge.builder("processor.admission.saturated", this, controller -> controller.saturated ? 1 : 0)
+      .description("Whether this instance has stopped receiving because CPU or disk is saturated")
+      .register(registry);
+  }
+
+  public boolean admits() {
+    double cpu = cpuLoad.getAsDouble();
+    long disk = freeDisk.getAsLong();
+    boolean admits = (maxCpuLoad <= 0 || cpu < maxCpuLoad) && (minFreeDiskBytes <= 0 || disk >= minFreeDiskBytes);
+    if (admits == saturated) {
+      saturated = !admits;
+      if (admits) log.info("Resuming message intake");
+      else log.warn("Pausing message intake: cpu load {}, free disk {} bytes", cpu, disk);
+    }
+    return admits;
+  }
+
+  public void awaitAdmission() throws InterruptedException {
+    while (!admits()) {
+      Thread.sleep(pollIntervalMs);
+    }
+  }
+
+  private static double systemCpuLoad() {
+    if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+      double load = os.getCpuLoad();
+      return load >= 0 ? load : 0;
+    }
+    return 0;
+  }
+
+}
@@ -0,0 +1,186 @@
+package br.com.processor.infra.autoscaling;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the depth of the uploads queue, and of any size lane queue, and turns it into a desired
+ * worker (pod) count: enough pods to drain everything queued or in flight within the target drain
+ * time at the observed per-message processing time. Exposed as
+ * {@code processor.autoscaling.desired.workers} for an HPA external metric.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BacklogMonitor {
+
+  private static final double SMOOTHING = 0.2;
+
+  @Setter
+  @Value("${aws.sqs.endpoint}")
+  private String uploadsEventsQueueUrl;
+
+  @Setter
+  @Value("${processor.lanes.small.queue-url:}")
+  private String smallQueueUrl;
+
+  @Setter
+  @Value("${processor.lanes.medium.queue-url:}")
+  private String mediumQueueUrl;
+
+  @Setter
+  @Value("${processor.lanes.large.queue-url:}")
+  private String largeQueueUrl;
+
+  @Setter
+  @Value("${processor.consumer.concurrency:0}")
+  private int concurrency;
+
+  @Setter
+  @Value("${processor.autoscaling.poll-interval-seconds:30}")
+  private int pollIntervalSeconds;
+
+  @Setter
+  @Value("${processor.autoscaling.target-drain-seconds:300}")
+  private double targetDrainSeconds;
+
+  @Setter
+  @Value("${processor.autoscaling.default-message-seconds:60}")
+  private double defaultMessageSeconds;
+
+  @Setter
+  @Value("${processor.autoscaling.min-workers:1}")
+  private int minWorkers;
+
+  @Setter
+  @Value("${processor.autoscaling.max-workers:10}")
+  private int maxWorkers;
+
+  private final SqsAsyncClient sqsAsyncClient;
+  private final MeterRegistry registry;
+
+  private final AtomicLong visible = new AtomicLong();
+  private final AtomicLong notVisible = new AtomicLong();
+  private final AtomicInteger desiredWorkers = new AtomicInteger();
+  private volatile double messageSeconds = Double.NaN;
+  private Disposable poller;
+
+  @PostConstruct
+  public void start() {
+    desiredWorkers.set(minWorkers);
+    Gauge.builder("processor.queue.visible", visible, AtomicLong::get)
+      .description("Approximate messages waiting in the uploads and lane queues")
+      .register(registry);
+    Gauge.builder("processor.queue.not.visible", notVisible, AtomicLong::get)
+      .description("Approximate messages of the uploads and lane queues being processed by any consumer")
+      .register(registry);
+    Gauge.builder("processor.autoscaling.message.seconds", this, BacklogMonitor::messageSeconds)
+      .description("Smoothed processing time of one message")
+      .baseUnit("seconds")
+      .register(registry);
+    Gauge.builder("processor.autoscaling.desired.workers", desiredWorkers, AtomicInteger::get)
+      .description("Workers needed to drain the uploads and lane queues within the target drain time")
+      .register(registry);
+
+    poller = Flux.interval(Duration.ZERO, Duration.ofSeconds(pollIntervalSeconds))
+      .onBackpressureDrop()
+      .concatMap(tick -> refresh()
+        .onErrorResume(error -> {
+          log.warn("Error reading queue depth: {}", error.getMessage());
+          return Mono.empty();
+        }))
+      .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (poller != null) poller.dispose();
+  }
+
+  public void recordProcessingTime(Duration elapsed) {
+    double seconds = elapsed.toNanos() / 1e9;
+    double current = messageSeconds;
+    messageSeconds = Double.isNaN(current) ? seconds : current + SMOOTHING * (seconds - current);
+  }
+
+  public int desiredWorkers() {
+    return desiredWorkers.get();
+  }
+
+  Mono<Integer> refresh() {
+    return Flux.fromIterable(queueUrls())
+      .flatMap(this::queueDepth)
+      .reduce((total, depth) -> new long[] {total[0] + depth[0], total[1] + depth[1]})
+      .map(depth -> {
+        visible.set(depth[0]);
+        notVisible.set(depth[1]);
+        int desired = desiredWorkers(depth[0] + depth[1]);
+        desiredWorkers.set(desired);
+        log.debug("Uploads and lane queues: {} visible, {} in flight, {} desired worker(s)", depth[0], depth[1], desired);
+        return desired;
+      });
+  }
+
+  /** Visible and not-visible message counts of one queue. */
+  private Mono<long[]> queueDepth(String queueUrl) {
+    var request = GetQueueAttributesRequest.builder()
+      .queueUrl(queueUrl)
+      .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+        QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)
+      .build();
+
+    return Mono.fromFuture(() -> sqsAsyncClient.getQueueAttributes(request))
+      .map(response -> new long[] {
+        attribute(response.attributes().get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES)),
+        attribute(response.attributes().get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE))});
+  }
+
+  private List<String> queueUrls() {
+    var queueUrls = new ArrayList<String>();
+    queueUrls.add(uploadsEventsQueueUrl);
+    for (var laneQueueUrl : new String[] {smallQueueUrl, mediumQueueUrl, largeQueueUrl}) {
+      if (laneQueueUrl != null && !laneQueueUrl.isBlank()) queueUrls.add(laneQueueUrl);
+    }
+    return queueUrls;
+  }
+
+  int desiredWorkers(long messages) {
+    double workSeconds = messages * messageSeconds();
+    double perWorkerSeconds = targetDrainSeconds * workerConcurrency();
+    long needed = (long) Math.ceil(workSeconds / perWorkerSeconds);
+    return (int) Math.max(minWorkers, Math.min(maxWorkers, needed));
+  }
+
+  private double messageSeconds() {
+    double current = messageSeconds;
+    return Double.isNaN(current) ? defaultMessageSeconds : current;
+  }
+
+  private int workerConcurrency() {
+    return concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+  }
+
+  private static long attribute(String value) {
+    return value != null ? Long.parseLong(value) : 0;
+  }
+
+}
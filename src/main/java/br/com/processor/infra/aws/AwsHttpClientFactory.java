@@ -0,0 +1,59 @@
+package br.com.processor.infra.aws;
+
+import lombok.Builder;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
+
+import java.time.Duration;
+
+/**
+ * Builds Netty HTTP clients for the AWS async clients. All of them share one event loop group;
+ * each client keeps its own connection pool sized by {@code maxConnections}.
+ */
+public class AwsHttpClientFactory implements AutoCloseable {
+
+  private final SdkEventLoopGroup eventLoopGroup;
+  private final int maxPendingConnectionAcquires;
+  private final Duration connectionAcquisitionTimeout;
+  private final Duration connectionTimeout;
+  private final Duration readTimeout;
+  private final Duration writeTimeout;
+  private final Duration connectionMaxIdleTime;
+  private final boolean tcpKeepAlive;
+
+  @Builder
+  public AwsHttpClientFactory(int eventLoopThreads, int maxPendingConnectionAcquires, Duration connectionAcquisitionTimeout,
+                              Duration connectionTimeout, Duration readTimeout, Duration writeTimeout,
+                              Duration connectionMaxIdleTime, boolean tcpKeepAlive) {
+    var eventLoopBuilder = SdkEventLoopGroup.builder();
+    if (eventLoopThreads > 0) eventLoopBuilder.numberOfThreads(eventLoopThreads);
+    this.eventLoopGroup = eventLoopBuilder.build();
+    this.maxPendingConnectionAcquires = maxPendingConnectionAcquires;
+    this.connectionAcquisitionTimeout = connectionAcquisitionTimeout;
+    this.connectionTimeout = connectionTimeout;
+    this.readTimeout = readTimeout;
+    this.writeTimeout = writeTimeout;
+    this.connectionMaxIdleTime = connectionMaxIdleTime;
+    this.tcpKeepAlive = tcpKeepAlive;
+  }
+
+  public NettyNioAsyncHttpClient.Builder httpClient(int maxConnections) {
+    var builder = NettyNioAsyncHttpClient.builder()
+      .eventLoopGroup(eventLoopGroup)
+      .maxConcurrency(maxConnections)
+      .tcpKeepAlive(tcpKeepAlive);
+    if (maxPendingConnectionAcquires > 0) builder.maxPendingConnectionAcquires(maxPendingConnectionAcquires);
+    if (connectionAcquisitionTimeout != null) builder.connectionAcquisitionTimeout(connectionAcquisitionTimeout);
+    if (connectionTimeout != null) builder.connectionTimeout(connectionTimeout);
+    if (readTimeout != null) builder.readTimeout(readTimeout);
+    if (writeTimeout != null) builder.writeTimeout(writeTimeout);
+    if (connectionMaxIdleTime != null) builder.connectionMaxIdleTime(connectionMaxIdleTime);
+    return builder;
+  }
+
+  @Override
+  public void close() {
+    eventLoopGroup.eventLoopGroup().shutdownGracefully();
+  }
+
+}
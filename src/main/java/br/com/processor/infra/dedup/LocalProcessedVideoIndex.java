@@ -0,0 +1,61 @@
+package br.com.processor.infra.dedup;
+
+import br.com.processor.app.ports.ProcessedVideoIndex;
+import br.com.processor.app.usecases.models.ProcessedZip;
+import br.com.processor.infra.store.LruFileStore;
+import jakarta.annotation.PostConstruct;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+
+import static br.com.processor.utils.JsonUtils.fromJson;
+import static br.com.processor.utils.JsonUtils.toJson;
+
+/**
+ * In-memory LRU of content key to frames zip and its ETag, optionally persisted in an
+ * {@link LruFileStore}. Stored entries without an ETag cannot be verified against the zip and are
+ * dropped on load.
+ */
+@Component
+@Slf4j
+public class LocalProcessedVideoIndex implements ProcessedVideoIndex {
+
+  @Setter
+  @Value("${processor.dedup.max-entries:10000}")
+  private int maxEntries;
+
+  @Setter
+  @Value("${processor.dedup.store-path:}")
+  private String storePath;
+
+  private LruFileStore<ProcessedZip> entries;
+
+  @PostConstruct
+  public void init() throws IOException {
+    entries = new LruFileStore<>(maxEntries, storePath, false, zip -> toJson(zip), line -> {
+      var zip = fromJson(line, ProcessedZip.class);
+      return zip.getETag() != null ? zip : null;
+    });
+    int loaded = entries.load();
+    if (entries.store() != null) log.info("Loaded {} processed videos from {}", loaded, entries.store());
+  }
+
+  @Override
+  public Mono<ProcessedZip> find(String contentKey) {
+    return Mono.fromSupplier(() -> entries.get(contentKey));
+  }
+
+  @Override
+  public Mono<Void> put(String contentKey, ProcessedZip zip) {
+    return Mono.fromCallable(() -> {
+      entries.put(contentKey, zip);
+      return zip;
+    }).subscribeOn(Schedulers.boundedElastic()).then();
+  }
+
+}
@@ -0,0 +1,197 @@
+package br.com.processor.infra.ffmpeg;
+
+import br.com.processor.app.ports.FrameExtractor;
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import br.com.processor.infra.ffmpeg.SegmentPlanner.Segment;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import br.com.processor.infra.zip.ParallelZipWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static br.com.processor.infra.metrics.PipelineMetrics.FFMPEG;
+import static br.com.processor.infra.metrics.PipelineMetrics.ZIP;
+import static java.nio.file.Files.createDirectories;
+
+/**
+ * Extracts frames with the ffmpeg binary into a frames directory next to the zip (optionally in
+ * keyframe-aligned segments run in parallel) and packs them with {@link ParallelZipWriter}. Profiles
+ * that drop frames also get each frame's hash and timestamp from ffmpeg; near-duplicates are
+ * skipped across segment boundaries and the kept frames' source timestamps go in a manifest entry.
+ */
+@Component
+@ConditionalOnProperty(name = "processor.extraction.engine", havingValue = "cli", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class CliFrameExtractor implements FrameExtractor {
+
+  private static final String TIMESTAMPS = "timestamps.txt";
+  private static final Comparator<Path> FRAME_ORDER = Comparator
+    .comparingInt((Path file) -> file.getFileName().toString().length())
+    .thenComparing(file -> file.getFileName().toString());
+
+  private final ParallelZipWriter zipWriter;
+  private final PipelineMetrics metrics;
+  private final FfmpegRunner ffmpegRunner;
+  private final PipelineSchedulers schedulers;
+
+  @Setter
+  @Value("${processor.extraction.segments.enabled:false}")
+  private boolean segmentsEnabled;
+
+  @Setter
+  @Value("${processor.extraction.segments.workers:0}")
+  private int segmentsWorkers;
+
+  @Setter
+  @Value("${processor.extraction.segments.min-duration-seconds:120}")
+  private double segmentsMinDurationSeconds;
+
+  @Setter
+  @Value("${processor.extraction.segments.min-segment-seconds:30}")
+  private double segmentsMinSegmentSeconds;
+
+  @Override
+  public Mono<Path> extract(Path video, ExtractionProfile profile, Path zipPath) {
+    var framesDir = zipPath.resolveSibling(zipPath.getFileName().toString().replace(".zip", ""));
+    return Mono.fromCallable(() -> createDirectories(framesDir))
+      .flatMap(dir -> metrics.time(FFMPEG, planSegments(video, profile)
+        .flatMap(segments -> segments.size() > 1
+          ? extractSegments(video, framesDir, profile, segments)
+          : extract(video, framesDir, profile).map(List::of))))
+      .flatMap(extractions -> metrics.time(ZIP, zipExtractions(extractions, profile, framesDir, zipPath)));
+  }
+
+  private Mono<List<Segment>> planSegments(Path file, ExtractionProfile profile) {
+    if (!segmentsEnabled) return Mono.just(List.of());
+
+    return ffmpegRunner.run(FfmpegCommand.probeDuration(file.toAbsolutePath().toString()))
+      .map(output -> Double.parseDouble(output.trim()))
+      .flatMap(duration -> {
+        double start = profile.getStartSeconds() != null ? profile.getStartSeconds() : 0;
+        double end = profile.getEndSeconds() != null ? Math.min(profile.getEndSeconds(), duration) : duration;
+        if (end - start < segmentsMinDurationSeconds) return Mono.just(List.<Segment>of());
+        return ffmpegRunner.run(FfmpegCommand.probeKeyframes(file.toAbsolutePath().toString()))
+          .map(output -> SegmentPlanner.plan(parseKeyframes(output), start, end, segmentWorkers(), segmentsMinSegmentSeconds));
+      })
+      .doOnNext(segments -> log.info("Extracting {} in {} segment(s)", file.getFileName(), Math.max(1, segments.size())))
+      .onErrorResume(NumberFormatException.class, error -> Mono.just(List.of()));
+  }
+
+  private Mono<List<Extraction>> extractSegments(Path file, Path framesDir, ExtractionProfile profile, List<Segment> segments) {
+    return Flux.range(0, segments.size())
+      .flatMapSequential(index -> {
+        var segment = segments.get(index);
+        var segmentDir = framesDir.resolve(String.format("segment_%03d", index));
+        var segmentProfile = profile.toBuilder()
+          .startSeconds(segment.start())
+          .endSeconds(segment.end())
+          .build();
+        return Mono.fromCallable(() -> createDirectories(segmentDir))
+          .flatMap(dir -> extract(file, dir, segmentProfile));
+      }, segmentWorkers())
+      .collectList();
+  }
+
+  private Mono<Extraction> extract(Path file, Path framesDir, ExtractionProfile profile) {
+    var input = file.toAbsolutePath().toString();
+    var output = framesDir.resolve(FfmpegCommand.FRAME_PATTERN).toAbsolutePath().toString();
+    double start = profile.getStartSeconds() != null ? profile.getStartSeconds() : 0;
+    if (!FfmpegCommand.selectsFrames(profile)) {
+      return ffmpegRunner.run(FfmpegCommand.extractFrames(input, output, profile))
+        .thenReturn(new Extraction(framesDir, start, null));
+    }
+    var command = FfmpegCommand.extractSelectedFrames(input, output,
+      framesDir.resolve(TIMESTAMPS).toAbsolutePath().toString(), profile);
+    return ffmpegRunner.run(command, process -> Mono.fromCallable(() -> process.getInputStream().readAllBytes()))
+      .map(hashes -> new Extraction(framesDir, start, profile.getDedupDistance() != null ? hashes : null));
+  }
+
+  private int segmentWorkers() {
+    return segmentsWorkers > 0 ? segmentsWorkers : Runtime.getRuntime().availableProcessors();
+  }
+
+  private static List<Double> parseKeyframes(String output) {
+    return output.lines()
+      .map(line -> line.split(","))
+      .filter(fields -> fields.length >= 2 && fields[1].startsWith("K") && !fields[0].equals("N/A"))
+      .map(fields -> Double.parseDouble(fields[0]))
+      .toList();
+  }
+
+  private Mono<Path> zipExtractions(List<Extraction> extractions, ExtractionProfile profile, Path framesDir, Path zipPath) {
+    return Mono.fromCallable(() -> {
+      var entries = new ArrayList<ParallelZipWriter.Entry>();
+      var manifest = FfmpegCommand.selectsFrames(profile) ? new StringBuilder(FfmpegCommand.MANIFEST_HEADER) : null;
+      var deduplicator = new FrameDeduplicator(profile.getDedupDistance());
+      for (Extraction extraction : extractions) {
+        List<Path> frames;
+        try (Stream<Path> files = Files.list(extraction.dir())) {
+          frames = files.filter(file -> file.getFileName().toString().endsWith(".jpg"))
+            .sorted(FRAME_ORDER)
+            .toList();
+        }
+        var timestamps = manifest != null ? readTimestamps(extraction, frames.size()) : null;
+        var hashes = extraction.hashes();
+        if (hashes != null && hashes.length != frames.size() * FrameDeduplicator.HASH_BYTES) {
+          log.warn("Got {} hashes for {} frames in {}, skipping near-duplicate removal", hashes.length / FrameDeduplicator.HASH_BYTES,
+            frames.size(), extraction.dir());
+          hashes = null;
+        }
+        for (int i = 0; i < frames.size(); i++) {
+          if (hashes != null && !deduplicator.keep(FrameDeduplicator.hash(hashes, i * FrameDeduplicator.HASH_BYTES))) continue;
+          var name = String.format(FfmpegCommand.FRAME_PATTERN, entries.size() + 1);
+          entries.add(new ParallelZipWriter.Entry(name, frames.get(i)));
+          if (manifest != null) manifest.append(name).append(',').append(timestamps[i]).append('\n');
+        }
+      }
+      metrics.frames(entries.size());
+      if (manifest != null) {
+        metrics.framesDropped(deduplicator.dropped());
+        var manifestFile = Files.writeString(framesDir.resolve(FfmpegCommand.MANIFEST), manifest);
+        entries.add(new ParallelZipWriter.Entry(FfmpegCommand.MANIFEST, manifestFile));
+      }
+      return zipWriter.write(entries, zipPath);
+    }).subscribeOn(schedulers.blocking());
+  }
+
+  /** Source timestamps from ffmpeg's {@code n t} stats lines, which count from the segment start. */
+  private static String[] readTimestamps(Extraction extraction, int frames) throws IOException {
+    var timestamps = new String[frames];
+    Arrays.fill(timestamps, "");
+    var file = extraction.dir().resolve(TIMESTAMPS);
+    if (!Files.exists(file)) return timestamps;
+    for (String line : Files.readAllLines(file)) {
+      var fields = line.trim().split("\\s+");
+      if (fields.length < 2) continue;
+      try {
+        int index = Integer.parseInt(fields[0]);
+        double seconds = extraction.start() + Double.parseDouble(fields[1]);
+        if (index < frames) timestamps[index] = String.format(Locale.ROOT, "%.3f", seconds);
+      } catch (NumberFormatException e) {
+        log.debug("Skipping timestamp line '{}'", line);
+      }
+    }
+    return timestamps;
+  }
+
+  private record Extraction(Path dir, double start, byte[] hashes) {
+  }
+
+}
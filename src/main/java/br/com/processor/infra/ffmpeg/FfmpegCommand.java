@@ -0,0 +1,173 @@
+package br.com.processor.infra.ffmpeg;
+
+import br.com.processor.app.exception.BusinessException;
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static lombok.AccessLevel.PRIVATE;
+
+@NoArgsConstructor(access = PRIVATE)
+public class FfmpegCommand {
+
+  public static final String FRAME_PATTERN = "frame_%06d.jpg";
+  public static final String MANIFEST = "frames.csv";
+  public static final String MANIFEST_HEADER = "frame,seconds\n";
+
+  private static final double MAX_FPS = 120;
+  private static final int MIN_DIMENSION = 16;
+  private static final int MAX_DIMENSION = 7680;
+  private static final int BEST_QUALITY = 2;
+  private static final int WORST_QUALITY = 31;
+  private static final int MAX_DEDUP_DISTANCE = 64;
+
+  public static List<String> extractFrames(String input, String outputPattern, ExtractionProfile profile) {
+    return build(input, List.of(outputPattern), profile);
+  }
+
+  /**
+   * Extraction for profiles that drop frames: each frame's output timestamp goes to
+   * {@code timestampsFile} and, with {@code dedupDistance}, a 9x8 grayscale copy of each frame is
+   * written to stdout for {@link FrameDeduplicator}. The hash output comes first so pinned
+   * {@code -threads} land on the JPEG encoder.
+   */
+  public static List<String> extractSelectedFrames(String input, String outputPattern, String timestampsFile, ExtractionProfile profile) {
+    validate(profile);
+    var profileOrDefault = profile != null ? profile : new ExtractionProfile();
+    var command = new ArrayList<>(List.of("ffmpeg", "-hide_banner", "-loglevel", "error"));
+
+    if (Boolean.TRUE.equals(profileOrDefault.getKeyframesOnly())) command.addAll(List.of("-skip_frame", "nokey"));
+    if (profileOrDefault.getStartSeconds() != null) command.addAll(List.of("-ss", seconds(profileOrDefault.getStartSeconds())));
+    if (profileOrDefault.getEndSeconds() != null) {
+      command.addAll(List.of("-t", seconds(profileOrDefault.getEndSeconds() - start(profileOrDefault))));
+    }
+    command.addAll(List.of("-i", input));
+
+    var filters = filters(profileOrDefault);
+    if (profileOrDefault.getDedupDistance() != null) {
+      var chain = new ArrayList<>(filters);
+      chain.add("split=2[frames][hash]");
+      command.addAll(List.of("-filter_complex", "[0:v]" + String.join(",", chain)
+          + String.format(";[hash]scale=%d:%d:flags=area,format=gray[hashes]", FrameDeduplicator.HASH_WIDTH, FrameDeduplicator.HASH_HEIGHT),
+        "-map", "[hashes]"));
+      // The hashes must pair one-to-one with the JPEGs, so this output needs the same frame rate mode.
+      command.addAll(fpsMode(profileOrDefault));
+      command.addAll(List.of("-f", "rawvideo", "pipe:1", "-map", "[frames]"));
+    } else if (!filters.isEmpty()) {
+      command.addAll(List.of("-vf", String.join(",", filters)));
+    }
+    command.addAll(encoding(profileOrDefault));
+    command.addAll(List.of("-stats_enc_pre", timestampsFile, "-stats_enc_pre_fmt", "{n} {t}", outputPattern));
+    return List.copyOf(command);
+  }
+
+  public static boolean selectsFrames(ExtractionProfile profile) {
+    return profile != null && (profile.getSceneThreshold() != null || profile.getDedupDistance() != null);
+  }
+
+  public static List<String> streamFrames(ExtractionProfile profile) {
+    return build("pipe:0", List.of("-f", "image2pipe", "-c:v", "mjpeg", "pipe:1"), profile);
+  }
+
+  public static List<String> probeDuration(String input) {
+    return List.of("ffprobe", "-v", "error", "-show_entries", "format=duration", "-of", "csv=p=0", input);
+  }
+
+  public static List<String> probeKeyframes(String input) {
+    return List.of("ffprobe", "-v", "error", "-select_streams", "v:0",
+      "-show_entries", "packet=pts_time,flags", "-of", "csv=p=0", input);
+  }
+
+  public static void validate(ExtractionProfile profile) {
+    if (profile == null) return;
+    if (profile.getFps() != null && (profile.getFps() <= 0 || profile.getFps() > MAX_FPS)) {
+      throw new BusinessException("Invalid fps: " + profile.getFps());
+    }
+    validateDimension("maxWidth", profile.getMaxWidth());
+    validateDimension("maxHeight", profile.getMaxHeight());
+    if (profile.getQuality() != null && (profile.getQuality() < BEST_QUALITY || profile.getQuality() > WORST_QUALITY)) {
+      throw new BusinessException("Invalid quality: " + profile.getQuality());
+    }
+    if (profile.getStartSeconds() != null && profile.getStartSeconds() < 0) {
+      throw new BusinessException("Invalid startSeconds: " + profile.getStartSeconds());
+    }
+    if (profile.getEndSeconds() != null && profile.getEndSeconds() <= start(profile)) {
+      throw new BusinessException("Invalid endSeconds: " + profile.getEndSeconds());
+    }
+    if (profile.getSceneThreshold() != null && (profile.getSceneThreshold() <= 0 || profile.getSceneThreshold() > 1)) {
+      throw new BusinessException("Invalid sceneThreshold: " + profile.getSceneThreshold());
+    }
+    if (profile.getDedupDistance() != null && (profile.getDedupDistance() < 0 || profile.getDedupDistance() > MAX_DEDUP_DISTANCE)) {
+      throw new BusinessException("Invalid dedupDistance: " + profile.getDedupDistance());
+    }
+  }
+
+  private static List<String> build(String input, List<String> output, ExtractionProfile profile) {
+    validate(profile);
+    var profileOrDefault = profile != null ? profile : new ExtractionProfile();
+    var command = new ArrayList<>(List.of("ffmpeg", "-hide_banner", "-loglevel", "error"));
+
+    if (Boolean.TRUE.equals(profileOrDefault.getKeyframesOnly())) command.addAll(List.of("-skip_frame", "nokey"));
+    if (profileOrDefault.getStartSeconds() != null) command.addAll(List.of("-ss", seconds(profileOrDefault.getStartSeconds())));
+    command.addAll(List.of("-i", input));
+    if (profileOrDefault.getEndSeconds() != null) {
+      command.addAll(List.of("-t", seconds(profileOrDefault.getEndSeconds() - start(profileOrDefault))));
+    }
+
+    var filters = filters(profileOrDefault);
+    if (!filters.isEmpty()) command.addAll(List.of("-vf", String.join(",", filters)));
+    command.addAll(encoding(profileOrDefault));
+
+    command.addAll(output);
+    return List.copyOf(command);
+  }
+
+  private static List<String> encoding(ExtractionProfile profile) {
+    var options = new ArrayList<>(fpsMode(profile));
+    if (profile.getQuality() != null) options.addAll(List.of("-q:v", String.valueOf(profile.getQuality())));
+    return options;
+  }
+
+  /** Outputs default to constant frame rate and would refill the gaps left by skipped frames. */
+  private static List<String> fpsMode(ExtractionProfile profile) {
+    return Boolean.TRUE.equals(profile.getKeyframesOnly()) && profile.getFps() == null || profile.getSceneThreshold() != null
+      ? List.of("-fps_mode", "vfr")
+      : List.of();
+  }
+
+  public static List<String> filters(ExtractionProfile profile) {
+    var filters = new ArrayList<String>();
+    if (profile.getFps() != null) filters.add("fps=" + seconds(profile.getFps()));
+    var width = profile.getMaxWidth();
+    var height = profile.getMaxHeight();
+    if (width != null && height != null) {
+      filters.add(String.format("scale=w='min(%d,iw)':h='min(%d,ih)':force_original_aspect_ratio=decrease:force_divisible_by=2", width, height));
+    } else if (width != null) {
+      filters.add(String.format("scale=w='min(%d,iw)':h=-2", width));
+    } else if (height != null) {
+      filters.add(String.format("scale=w=-2:h='min(%d,ih)'", height));
+    }
+    if (profile.getSceneThreshold() != null) {
+      filters.add("select='eq(n,0)+gt(scene," + String.format(Locale.ROOT, "%.3f", profile.getSceneThreshold()) + ")'");
+    }
+    return filters;
+  }
+
+  private static void validateDimension(String name, Integer value) {
+    if (value != null && (value < MIN_DIMENSION || value > MAX_DIMENSION)) {
+      throw new BusinessException("Invalid " + name + ": " + value);
+    }
+  }
+
+  private static double start(ExtractionProfile profile) {
+    return profile.getStartSeconds() != null ? profile.getStartSeconds() : 0;
+  }
+
+  private static String seconds(double value) {
+    return String.format(Locale.ROOT, "%.3f", value);
+  }
+
+}
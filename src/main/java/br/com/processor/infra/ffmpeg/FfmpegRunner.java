@@ -0,0 +1,263 @@
+package br.com.processor.infra.ffmpeg;
+
+import br.com.processor.app.exception.BusinessException;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Runs ffmpeg/ffprobe processes with a cap on how many run at once (FIFO), a per-job timeout and
+ * forced kill of the whole process tree on timeout or cancellation. stderr is drained on its own
+ * thread, keeping the last lines for error messages; ffmpeg jobs also get {@code -progress pipe:2},
+ * whose speed reports feed {@code processor.ffmpeg.speed}, and optionally {@code -threads} pinned
+ * to the CPU share of one slot.
+ *
+ * <p>Waiting for a slot, process I/O and the exit wait run on the pipeline's blocking scheduler when
+ * it uses virtual threads; in-process decoding always stays on this runner's platform pool.
+ */
+@Slf4j
+public class FfmpegRunner implements AutoCloseable {
+
+  private static final int ERROR_TAIL_LINES = 20;
+  private static final Pattern PROGRESS_LINE = Pattern.compile("^[a-z0-9_]+=\\S*$");
+
+  private final Semaphore slots;
+  private final int threads;
+  private final Duration timeout;
+  private final PipelineMetrics metrics;
+  private final Scheduler scheduler;
+  private final Scheduler processScheduler;
+
+  public FfmpegRunner(int maxProcesses, boolean pinThreads, Duration timeout, PipelineMetrics metrics) {
+    this(maxProcesses, pinThreads, timeout, metrics, PipelineSchedulers.platform());
+  }
+
+  public FfmpegRunner(int maxProcesses, boolean pinThreads, Duration timeout, PipelineMetrics metrics, PipelineSchedulers schedulers) {
+    int cpus = Runtime.getRuntime().availableProcessors();
+    int processes = maxProcesses > 0 ? maxProcesses : cpus;
+    this.slots = new Semaphore(processes, true);
+    this.threads = pinThreads ? Math.max(1, cpus / processes) : 0;
+    this.timeout = timeout;
+    this.metrics = metrics;
+    this.scheduler = Schedulers.newBoundedElastic(Math.max(processes * 4, 16), Integer.MAX_VALUE, "ffmpeg");
+    this.processScheduler = schedulers.virtual() ? schedulers.blocking() : scheduler;
+  }
+
+  public Mono<String> run(List<String> command) {
+    return run(command, process -> Mono.fromCallable(() ->
+      new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Starts {@code command} once a slot is free and hands the process to {@code io}, which runs on
+   * the slot's thread; the result is emitted after the process exits with status 0.
+   */
+  public <T> Mono<T> run(List<String> command, Function<Process, Mono<T>> io) {
+    var prepared = prepare(command, threads);
+    return Mono.defer(() -> {
+      var started = new AtomicBoolean();
+      metrics.ffmpegQueued();
+      return Mono.using(
+          () -> {
+            slots.acquire();
+            started.set(true);
+            return start(prepared);
+          },
+          job -> io.apply(job.process)
+            .flatMap(result -> job.awaitExit().thenReturn(result))
+            .onErrorMap(error -> job.timedOut ? job.timeoutError() : error),
+          Job::close)
+        .subscribeOn(processScheduler)
+        .doFinally(signal -> {
+          if (!started.get()) metrics.ffmpegDequeued();
+        });
+    });
+  }
+
+  /**
+   * Runs an in-process decoding task under the same slot cap and timeout as external processes. On
+   * timeout or cancellation the task's thread is interrupted, so it must check for interruption.
+   */
+  public <T> Mono<T> call(String name, Callable<T> task) {
+    return Mono.defer(() -> {
+      var started = new AtomicBoolean();
+      var timedOut = new AtomicBoolean();
+      metrics.ffmpegQueued();
+      return Mono.fromCallable(() -> {
+          slots.acquire();
+          started.set(true);
+          metrics.ffmpegStarted();
+          var worker = Thread.currentThread();
+          var timer = timeout != null && timeout.isPositive()
+            ? Schedulers.parallel().schedule(() -> {
+                timedOut.set(true);
+                log.warn("{} timed out after {}", name, timeout);
+                metrics.ffmpegKilled();
+                worker.interrupt();
+              }, timeout.toMillis(), TimeUnit.MILLISECONDS)
+            : Disposables.disposed();
+          try {
+            return task.call();
+          } finally {
+            timer.dispose();
+            Thread.interrupted();
+            release();
+          }
+        })
+        .subscribeOn(scheduler)
+        .onErrorMap(error -> timedOut.get()
+          ? new BusinessException(name + " timed out after " + timeout.toSeconds() + "s")
+          : error)
+        .doFinally(signal -> {
+          if (!started.get()) metrics.ffmpegDequeued();
+        });
+    });
+  }
+
+  @Override
+  public void close() {
+    scheduler.dispose();
+  }
+
+  static List<String> prepare(List<String> command, int threads) {
+    if (!"ffmpeg".equals(command.getFirst())) return command;
+    var prepared = new ArrayList<String>();
+    prepared.add(command.getFirst());
+    prepared.addAll(List.of("-nostats", "-progress", "pipe:2"));
+    if (threads > 0) prepared.addAll(List.of("-filter_threads", String.valueOf(threads), "-threads", String.valueOf(threads)));
+    prepared.addAll(command.subList(1, command.size() - 1));
+    if (threads > 0) prepared.addAll(List.of("-threads", String.valueOf(threads)));
+    prepared.add(command.getLast());
+    return List.copyOf(prepared);
+  }
+
+  static Double parseSpeed(String line) {
+    if (!line.startsWith("speed=") || !line.endsWith("x")) return null;
+    try {
+      return Double.parseDouble(line.substring("speed=".length(), line.length() - 1).trim());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private Job start(List<String> command) throws IOException {
+    metrics.ffmpegStarted();
+    try {
+      return new Job(command, new ProcessBuilder(command).start());
+    } catch (IOException e) {
+      release();
+      throw e;
+    }
+  }
+
+  private void release() {
+    metrics.ffmpegFinished();
+    slots.release();
+  }
+
+  private final class Job implements AutoCloseable {
+
+    private final List<String> command;
+    private final Process process;
+    private final Deque<String> errorTail = new ArrayDeque<>();
+    private final Thread errorReader;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicBoolean killed = new AtomicBoolean();
+    private final Disposable timer;
+    private volatile boolean timedOut;
+
+    private Job(List<String> command, Process process) {
+      this.command = command;
+      this.process = process;
+      this.errorReader = Thread.ofVirtual().name(command.getFirst() + "-stderr-" + process.pid()).start(this::readErrors);
+      this.timer = timeout != null && timeout.isPositive()
+        ? Schedulers.parallel().schedule(this::expire, timeout.toMillis(), TimeUnit.MILLISECONDS)
+        : Disposables.disposed();
+    }
+
+    private Mono<Void> awaitExit() {
+      return Mono.fromCallable(() -> {
+        // onExit parks a virtual thread, where waitFor would pin its carrier.
+        int exitCode = process.onExit().get().exitValue();
+        errorReader.join();
+        if (timedOut) throw timeoutError();
+        if (exitCode != 0) throw new BusinessException(command.getFirst() + " failed: " + errorTail());
+        return exitCode;
+      }).then();
+    }
+
+    private void expire() {
+      timedOut = true;
+      log.warn("{} timed out after {}", command.getFirst(), timeout);
+      kill();
+    }
+
+    private BusinessException timeoutError() {
+      return new BusinessException(command.getFirst() + " timed out after " + timeout.toSeconds() + "s");
+    }
+
+    private void kill() {
+      if (!process.isAlive() || !killed.compareAndSet(false, true)) return;
+      process.descendants().forEach(ProcessHandle::destroyForcibly);
+      process.destroyForcibly();
+      metrics.ffmpegKilled();
+      log.warn("Killed {} (pid {})", command.getFirst(), process.pid());
+    }
+
+    private void readErrors() {
+      try (var reader = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (PROGRESS_LINE.matcher(line).matches()) {
+            var speed = parseSpeed(line);
+            if (speed != null) metrics.ffmpegSpeed(speed);
+            continue;
+          }
+          synchronized (errorTail) {
+            if (errorTail.size() == ERROR_TAIL_LINES) errorTail.removeFirst();
+            errorTail.addLast(line);
+          }
+        }
+      } catch (IOException e) {
+        log.debug("Stopped reading {} output: {}", command.getFirst(), e.getMessage());
+      }
+    }
+
+    private String errorTail() {
+      synchronized (errorTail) {
+        return String.join("\n", errorTail).trim();
+      }
+    }
+
+    @Override
+    public void close() {
+      if (!closed.compareAndSet(false, true)) return;
+      timer.dispose();
+      kill();
+      release();
+    }
+
+  }
+
+}
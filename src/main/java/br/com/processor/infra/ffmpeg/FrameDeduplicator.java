@@ -0,0 +1,79 @@
+package br.com.processor.infra.ffmpeg;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Drops frames whose 64-bit difference hash (a 9x8 grayscale thumbnail, one bit per horizontal
+ * neighbour pair) is within {@code maxDistance} bits of the last kept frame. Comparing against the
+ * last kept frame rather than the previous one stops a slow pan from being dropped frame by frame.
+ * The CLI engine gets thumbnails from ffmpeg's area scaler and the JavaCV engine box-averages the
+ * luma plane, so frames right at the threshold may be kept by one engine and dropped by the other.
+ */
+public class FrameDeduplicator {
+
+  public static final int HASH_WIDTH = 9;
+  public static final int HASH_HEIGHT = 8;
+  public static final int HASH_BYTES = HASH_WIDTH * HASH_HEIGHT;
+
+  private final Integer maxDistance;
+  private long lastKept;
+  private boolean kept;
+  private long dropped;
+
+  /** A {@code null} distance keeps every frame. */
+  public FrameDeduplicator(Integer maxDistance) {
+    this.maxDistance = maxDistance;
+  }
+
+  public boolean keep(long hash) {
+    if (maxDistance == null) return true;
+    if (kept && distance(lastKept, hash) <= maxDistance) {
+      dropped++;
+      return false;
+    }
+    lastKept = hash;
+    kept = true;
+    return true;
+  }
+
+  public long dropped() {
+    return dropped;
+  }
+
+  public static int distance(long first, long second) {
+    return Long.bitCount(first ^ second);
+  }
+
+  /** Hash of a {@value #HASH_WIDTH}x{@value #HASH_HEIGHT} grayscale thumbnail starting at {@code offset}. */
+  public static long hash(byte[] gray, int offset) {
+    long hash = 0;
+    for (int y = 0; y < HASH_HEIGHT; y++) {
+      int row = offset + y * HASH_WIDTH;
+      for (int x = 0; x < HASH_WIDTH - 1; x++) {
+        hash = (hash << 1) | ((gray[row + x] & 0xff) < (gray[row + x + 1] & 0xff) ? 1 : 0);
+      }
+    }
+    return hash;
+  }
+
+  /** Box-averages a full-size luma plane down to the thumbnail and hashes it. */
+  public static long hash(ByteBuffer luma, int width, int height, int stride) {
+    var sums = new long[HASH_BYTES];
+    var counts = new int[HASH_BYTES];
+    for (int y = 0; y < height; y++) {
+      int row = y * HASH_HEIGHT / height * HASH_WIDTH;
+      int offset = y * stride;
+      for (int x = 0; x < width; x++) {
+        int cell = row + x * HASH_WIDTH / width;
+        sums[cell] += luma.get(offset + x) & 0xff;
+        counts[cell]++;
+      }
+    }
+    var gray = new byte[HASH_BYTES];
+    for (int cell = 0; cell < HASH_BYTES; cell++) {
+      gray[cell] = (byte) (counts[cell] > 0 ? sums[cell] / counts[cell] : 0);
+    }
+    return hash(gray, 0);
+  }
+
+}
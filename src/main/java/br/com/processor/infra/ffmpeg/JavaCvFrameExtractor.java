@@ -0,0 +1,264 @@
+package br.com.processor.infra.ffmpeg;
+
+import br.com.processor.app.ports.FrameExtractor;
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bytedeco.ffmpeg.avcodec.AVCodecContext;
+import org.bytedeco.ffmpeg.avcodec.AVPacket;
+import org.bytedeco.ffmpeg.avutil.AVDictionary;
+import org.bytedeco.ffmpeg.avutil.AVFrame;
+import org.bytedeco.javacpp.BytePointer;
+import org.bytedeco.javacv.FFmpegFrameFilter;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static br.com.processor.infra.metrics.PipelineMetrics.FFMPEG;
+import static org.bytedeco.ffmpeg.global.avcodec.AV_CODEC_FLAG_QSCALE;
+import static org.bytedeco.ffmpeg.global.avcodec.AV_CODEC_ID_MJPEG;
+import static org.bytedeco.ffmpeg.global.avcodec.av_packet_alloc;
+import static org.bytedeco.ffmpeg.global.avcodec.av_packet_free;
+import static org.bytedeco.ffmpeg.global.avcodec.av_packet_unref;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_alloc_context3;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_find_encoder;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_free_context;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_open2;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_receive_packet;
+import static org.bytedeco.ffmpeg.global.avcodec.avcodec_send_frame;
+import static org.bytedeco.ffmpeg.global.avutil.AVERROR_EAGAIN;
+import static org.bytedeco.ffmpeg.global.avutil.AV_PIX_FMT_YUV420P;
+import static org.bytedeco.ffmpeg.global.avutil.AV_PIX_FMT_YUVJ420P;
+import static org.bytedeco.ffmpeg.global.avutil.FF_QP2LAMBDA;
+import static org.bytedeco.ffmpeg.global.avutil.av_frame_alloc;
+import static org.bytedeco.ffmpeg.global.avutil.av_frame_free;
+import static org.bytedeco.ffmpeg.global.avutil.av_image_fill_arrays;
+import static org.bytedeco.ffmpeg.global.avutil.av_make_q;
+
+/**
+ * Decodes, filters and JPEG-encodes in-process through the FFmpeg libraries bundled with JavaCV and
+ * writes each frame straight into a STORED zip: no frames directory and no process per file. Frame
+ * selection reuses the CLI filter chain; the grabber and filter reuse their native frames. With a
+ * dedup distance each filtered frame is hashed from its luma plane before it is encoded, so dropped
+ * frames cost no JPEG encode.
+ */
+@Component
+@ConditionalOnProperty(name = "processor.extraction.engine", havingValue = "javacv")
+@RequiredArgsConstructor
+@Slf4j
+public class JavaCvFrameExtractor implements FrameExtractor {
+
+  private static final int INITIAL_BUFFER_SIZE = 256 * 1024;
+  private static final long MICROS = 1_000_000L;
+
+  private final PipelineMetrics metrics;
+  private final FfmpegRunner ffmpegRunner;
+
+  private final ConcurrentLinkedQueue<byte[]> buffers = new ConcurrentLinkedQueue<>();
+
+  @Override
+  public Mono<Path> extract(Path video, ExtractionProfile profile, Path zipPath) {
+    return metrics.time(FFMPEG, ffmpegRunner.call("javacv", () -> extractFrames(video, profile, zipPath)))
+      .map(frames -> {
+        metrics.frames(frames);
+        return zipPath;
+      });
+  }
+
+  private long extractFrames(Path video, ExtractionProfile profile, Path zipPath) throws IOException {
+    try (var grabber = new FFmpegFrameGrabber(video.toFile());
+         var zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(zipPath), 1024 * 1024))) {
+      boolean keyframesOnly = Boolean.TRUE.equals(profile.getKeyframesOnly());
+      if (keyframesOnly) grabber.setVideoOption("skip_frame", "nokey");
+      grabber.setVideoOption("threads", "auto");
+      grabber.setPixelFormat(AV_PIX_FMT_YUV420P);
+      grabber.start();
+      if (profile.getStartSeconds() != null) grabber.setTimestamp(micros(profile.getStartSeconds()));
+      long end = profile.getEndSeconds() != null ? micros(profile.getEndSeconds()) : Long.MAX_VALUE;
+
+      var filters = new ArrayList<>(FfmpegCommand.filters(profile));
+      filters.add("format=yuvj420p");
+      try (var filter = filter(grabber, String.join(",", filters));
+           var encoder = new JpegEncoder(profile.getQuality(), buffers)) {
+        var manifest = FfmpegCommand.selectsFrames(profile) ? new StringBuilder(FfmpegCommand.MANIFEST_HEADER) : null;
+        var timeline = new Timeline(grabber.getFrameRate());
+        var deduplicator = new FrameDeduplicator(profile.getDedupDistance());
+        boolean dedup = profile.getDedupDistance() != null;
+        long count = 0;
+        Frame frame;
+        while ((frame = grabber.grabImage()) != null && frame.timestamp < end) {
+          if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Frame extraction interrupted");
+          if (keyframesOnly && !frame.keyFrame) continue;
+          if (manifest != null) timeline.pushed(frame.timestamp);
+          filter.push(frame);
+          Frame filtered;
+          while ((filtered = filter.pull()) != null) {
+            if (dedup && !deduplicator.keep(FrameDeduplicator.hash((ByteBuffer) filtered.image[0],
+                filtered.imageWidth, filtered.imageHeight, filtered.imageStride))) continue;
+            encoder.write(zip, filtered, ++count);
+            if (manifest != null) {
+              manifest.append(String.format(FfmpegCommand.FRAME_PATTERN, count)).append(',')
+                .append(String.format(Locale.ROOT, "%.3f", timeline.source(filtered) / (double) MICROS)).append('\n');
+            }
+          }
+        }
+        if (manifest != null) {
+          zip.putNextEntry(new ZipEntry(FfmpegCommand.MANIFEST));
+          zip.write(manifest.toString().getBytes(StandardCharsets.UTF_8));
+          zip.closeEntry();
+          metrics.framesDropped(deduplicator.dropped());
+        }
+        return count;
+      }
+    }
+  }
+
+  private static FFmpegFrameFilter filter(FFmpegFrameGrabber grabber, String filters) throws FFmpegFrameFilter.Exception {
+    var filter = new FFmpegFrameFilter(filters, grabber.getImageWidth(), grabber.getImageHeight());
+    filter.setPixelFormat(grabber.getPixelFormat());
+    filter.setFrameRate(grabber.getFrameRate());
+    filter.setAspectRatio(grabber.getAspectRatio());
+    filter.start();
+    return filter;
+  }
+
+  private static long micros(double seconds) {
+    return Math.round(seconds * MICROS);
+  }
+
+  /**
+   * Source timestamps of the frames pushed into the filter. JavaCV renumbers pushed frames with
+   * {@code setpts=N} at the nominal frame rate, so a filtered frame's timestamp maps back to the
+   * index of the pushed frame it came from, even after a seek or with keyframes only.
+   */
+  private static final class Timeline {
+
+    private final double frameRate;
+    private long[] sources = new long[1024];
+    private int size;
+
+    private Timeline(double frameRate) {
+      this.frameRate = frameRate;
+    }
+
+    private void pushed(long timestamp) {
+      if (size == sources.length) sources = Arrays.copyOf(sources, size * 2);
+      sources[size++] = timestamp;
+    }
+
+    private long source(Frame filtered) {
+      long index = Math.round(filtered.timestamp * frameRate / MICROS);
+      return size == 0 ? filtered.timestamp : sources[(int) Math.clamp(index, 0, size - 1)];
+    }
+
+  }
+
+  /**
+   * libavcodec MJPEG encoder for one file, opened on the first frame. The filter's packed yuvj420p
+   * buffer is wrapped in a reused AVFrame without copying. Like the CLI, a quality sets a fixed
+   * qscale and no quality leaves the encoder's default bitrate. Packets are copied into a pooled
+   * buffer to compute the CRC of the STORED entry.
+   */
+  private static final class JpegEncoder implements AutoCloseable {
+
+    private final Integer quality;
+    private final ConcurrentLinkedQueue<byte[]> buffers;
+    private final CRC32 crc = new CRC32();
+    private AVCodecContext context;
+    private AVFrame picture;
+    private AVPacket packet;
+    private byte[] buffer;
+
+    private JpegEncoder(Integer quality, ConcurrentLinkedQueue<byte[]> buffers) {
+      this.quality = quality;
+      this.buffers = buffers;
+      var pooled = buffers.poll();
+      this.buffer = pooled != null ? pooled : new byte[INITIAL_BUFFER_SIZE];
+    }
+
+    private void write(ZipOutputStream zip, Frame frame, long index) throws IOException {
+      if (context == null) open(frame.imageWidth, frame.imageHeight);
+      check(av_image_fill_arrays(picture.data(), picture.linesize(), (BytePointer) frame.opaque,
+        AV_PIX_FMT_YUVJ420P, frame.imageWidth, frame.imageHeight, 1), "wrap frame");
+      picture.pts(index);
+      if (quality != null) picture.quality(context.global_quality());
+      check(avcodec_send_frame(context, picture), "encode frame");
+      int result;
+      while ((result = avcodec_receive_packet(context, packet)) >= 0) {
+        try {
+          writeEntry(zip, index);
+        } finally {
+          av_packet_unref(packet);
+        }
+      }
+      if (result != AVERROR_EAGAIN()) check(result, "receive packet");
+    }
+
+    private void open(int width, int height) throws IOException {
+      var codec = avcodec_find_encoder(AV_CODEC_ID_MJPEG);
+      context = avcodec_alloc_context3(codec);
+      context.width(width);
+      context.height(height);
+      context.pix_fmt(AV_PIX_FMT_YUVJ420P);
+      context.time_base(av_make_q(1, 25));
+      if (quality != null) {
+        context.flags(context.flags() | AV_CODEC_FLAG_QSCALE);
+        context.global_quality(quality * FF_QP2LAMBDA);
+      }
+      check(avcodec_open2(context, codec, (AVDictionary) null), "open MJPEG encoder");
+      picture = av_frame_alloc();
+      picture.format(AV_PIX_FMT_YUVJ420P);
+      picture.width(width);
+      picture.height(height);
+      packet = av_packet_alloc();
+    }
+
+    private void writeEntry(ZipOutputStream zip, long index) throws IOException {
+      int size = packet.size();
+      if (buffer.length < size) buffer = new byte[Math.max(size, buffer.length * 2)];
+      packet.data().position(0).get(buffer, 0, size);
+      crc.reset();
+      crc.update(buffer, 0, size);
+      var entry = new ZipEntry(String.format(FfmpegCommand.FRAME_PATTERN, index));
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(size);
+      entry.setCompressedSize(size);
+      entry.setCrc(crc.getValue());
+      zip.putNextEntry(entry);
+      zip.write(buffer, 0, size);
+      zip.closeEntry();
+    }
+
+    private static void check(int result, String action) throws IOException {
+      if (result < 0) throw new IOException("Could not " + action + ": error " + result);
+    }
+
+    @Override
+    public void close() {
+      if (packet != null) av_packet_free(packet);
+      if (picture != null) av_frame_free(picture);
+      if (context != null) avcodec_free_context(context);
+      buffers.offer(buffer);
+    }
+
+  }
+
+}
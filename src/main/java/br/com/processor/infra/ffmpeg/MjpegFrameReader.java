@@ -0,0 +1,135 @@
+package br.com.processor.infra.ffmpeg;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits a concatenated MJPEG byte stream (ffmpeg {@code -f image2pipe -c:v mjpeg}) into JPEG frames
+ * by walking the marker segments, so {@code FFD9} bytes inside headers never end a frame early.
+ */
+public class MjpegFrameReader {
+
+  private static final int SOI = 0xD8;
+  private static final int EOI = 0xD9;
+  private static final int SOS = 0xDA;
+  private static final int TEM = 0x01;
+  private static final int RST0 = 0xD0;
+  private static final int RST7 = 0xD7;
+
+  private final InputStream in;
+  private final byte[] chunk = new byte[64 * 1024];
+  private int chunkPosition;
+  private int chunkLimit;
+
+  private byte[] frame = new byte[256 * 1024];
+  private int frameSize;
+
+  public MjpegFrameReader(InputStream in) {
+    this.in = in;
+  }
+
+  public byte[] next() throws IOException {
+    if (!seekStartOfImage()) return null;
+    frameSize = 0;
+    append(0xFF);
+    append(SOI);
+
+    int marker = readMarker();
+    while (true) {
+      append(0xFF);
+      append(marker);
+      if (marker == EOI) return Arrays.copyOf(frame, frameSize);
+      if (marker == TEM || (marker >= RST0 && marker <= RST7)) {
+        marker = readMarker();
+        continue;
+      }
+      int high = readRequired();
+      int low = readRequired();
+      append(high);
+      append(low);
+      copySegment(((high << 8) | low) - 2);
+      marker = marker == SOS ? scanEntropyCodedData() : readMarker();
+    }
+  }
+
+  private boolean seekStartOfImage() throws IOException {
+    int previous = -1;
+    int current;
+    while ((current = read()) >= 0) {
+      if (previous == 0xFF && current == SOI) return true;
+      previous = current;
+    }
+    return false;
+  }
+
+  private int readMarker() throws IOException {
+    int value = readRequired();
+    if (value != 0xFF) throw new IOException("Invalid JPEG marker prefix: " + value);
+    do {
+      value = readRequired();
+    } while (value == 0xFF);
+    return value;
+  }
+
+  private int scanEntropyCodedData() throws IOException {
+    while (true) {
+      int value = readRequired();
+      if (value != 0xFF) {
+        append(value);
+        continue;
+      }
+      int next = readRequired();
+      while (next == 0xFF) next = readRequired();
+      if (next == 0x00 || (next >= RST0 && next <= RST7)) {
+        append(0xFF);
+        append(next);
+        continue;
+      }
+      return next;
+    }
+  }
+
+  private void copySegment(int length) throws IOException {
+    if (length < 0) throw new IOException("Invalid JPEG segment length");
+    ensureCapacity(frameSize + length);
+    while (length > 0) {
+      if (chunkPosition == chunkLimit && !fill()) throw new EOFException("Truncated JPEG frame");
+      int count = Math.min(length, chunkLimit - chunkPosition);
+      System.arraycopy(chunk, chunkPosition, frame, frameSize, count);
+      chunkPosition += count;
+      frameSize += count;
+      length -= count;
+    }
+  }
+
+  private int readRequired() throws IOException {
+    int value = read();
+    if (value < 0) throw new EOFException("Truncated JPEG frame");
+    return value;
+  }
+
+  private int read() throws IOException {
+    if (chunkPosition == chunkLimit && !fill()) return -1;
+    return chunk[chunkPosition++] & 0xFF;
+  }
+
+  private boolean fill() throws IOException {
+    int count = in.read(chunk);
+    if (count <= 0) return false;
+    chunkPosition = 0;
+    chunkLimit = count;
+    return true;
+  }
+
+  private void append(int value) {
+    ensureCapacity(frameSize + 1);
+    frame[frameSize++] = (byte) value;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > frame.length) frame = Arrays.copyOf(frame, Math.max(capacity, frame.length * 2));
+  }
+
+}
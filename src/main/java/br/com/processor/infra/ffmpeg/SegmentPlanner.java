@@ -0,0 +1,52 @@
+package br.com.processor.infra.ffmpeg;
+
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import static lombok.AccessLevel.PRIVATE;
+
+@NoArgsConstructor(access = PRIVATE)
+public class SegmentPlanner {
+
+  public record Segment(double start, double end) {
+  }
+
+  public static List<Segment> plan(List<Double> keyframes, double start, double end, int maxSegments, double minSegmentSeconds) {
+    double duration = end - start;
+    int count = (int) Math.min(maxSegments, Math.floor(duration / minSegmentSeconds));
+    if (count <= 1 || keyframes.isEmpty()) return List.of(new Segment(start, end));
+
+    var sorted = new ArrayList<>(keyframes);
+    Collections.sort(sorted);
+    var cuts = new TreeSet<Double>();
+    for (int i = 1; i < count; i++) {
+      var cut = nearest(sorted, start + i * duration / count);
+      if (cut > start && cut < end) cuts.add(cut);
+    }
+
+    var segments = new ArrayList<Segment>(cuts.size() + 1);
+    double segmentStart = start;
+    for (double cut : cuts) {
+      segments.add(new Segment(segmentStart, cut));
+      segmentStart = cut;
+    }
+    segments.add(new Segment(segmentStart, end));
+    return List.copyOf(segments);
+  }
+
+  private static double nearest(List<Double> sorted, double target) {
+    int index = Collections.binarySearch(sorted, target);
+    if (index >= 0) return sorted.get(index);
+    int insertion = -index - 1;
+    if (insertion == 0) return sorted.getFirst();
+    if (insertion == sorted.size()) return sorted.getLast();
+    double before = sorted.get(insertion - 1);
+    double after = sorted.get(insertion);
+    return target - before <= after - target ? before : after;
+  }
+
+}
@@ -0,0 +1,69 @@
+package br.com.processor.infra.ledger;
+
+import br.com.processor.app.ports.JobLedger;
+import br.com.processor.app.usecases.models.JobProgress;
+import br.com.processor.infra.store.LruFileStore;
+import jakarta.annotation.PostConstruct;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+
+import static br.com.processor.utils.JsonUtils.fromJson;
+import static br.com.processor.utils.JsonUtils.toJson;
+
+/**
+ * In-memory LRU of file id to the last completed stage. When a store path is set, every stage is
+ * appended (synced) to an {@link LruFileStore} and the latest one per file is reloaded on startup, so
+ * redeliveries after a crash resume where the previous attempt stopped.
+ *
+ * <p>The ledger exists for pod crashes, which an in-memory LRU does not survive, so
+ * {@code processor.ledger.enabled} must come with a {@code processor.ledger.store-path} on a volume
+ * that outlives the pod; startup fails otherwise.
+ */
+@Component
+@Slf4j
+public class LocalJobLedger implements JobLedger {
+
+  @Setter
+  @Value("${processor.ledger.enabled:false}")
+  private boolean enabled;
+
+  @Setter
+  @Value("${processor.ledger.max-entries:100000}")
+  private int maxEntries;
+
+  @Setter
+  @Value("${processor.ledger.store-path:}")
+  private String storePath;
+
+  private LruFileStore<JobProgress> entries;
+
+  @PostConstruct
+  public void init() throws IOException {
+    if (enabled && (storePath == null || storePath.isBlank())) {
+      throw new IllegalStateException("processor.ledger.enabled requires a persistent processor.ledger.store-path");
+    }
+    entries = new LruFileStore<>(maxEntries, storePath, true, progress -> toJson(progress), line -> fromJson(line, JobProgress.class));
+    int loaded = entries.load();
+    if (entries.store() != null) log.info("Loaded {} jobs from {}", loaded, entries.store());
+  }
+
+  @Override
+  public Mono<JobProgress> find(String fileId) {
+    return Mono.fromSupplier(() -> entries.get(fileId));
+  }
+
+  @Override
+  public Mono<Void> record(String fileId, JobProgress progress) {
+    return Mono.fromCallable(() -> {
+      entries.put(fileId, progress);
+      return progress;
+    }).subscribeOn(Schedulers.boundedElastic()).then();
+  }
+
+}
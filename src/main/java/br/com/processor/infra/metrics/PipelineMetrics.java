@@ -0,0 +1,148 @@
+package br.com.processor.infra.metrics;
+
+import br.com.processor.enums.FileStatusEnum;
+import br.com.processor.enums.JobStage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stage timers (with percentile histograms), transfer/frame/outcome counters and consumer gauges
+ * for the processing pipeline.
+ */
+@Component
+public class PipelineMetrics {
+
+  public static final String DOWNLOAD = "download";
+  public static final String FFMPEG = "ffmpeg";
+  public static final String ZIP = "zip";
+  public static final String UPLOAD = "upload";
+  public static final String STREAM = "stream";
+  public static final String COPY = "copy";
+  public static final String PUBLISH = "publish";
+
+  private final MeterRegistry registry;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger backlog = new AtomicInteger();
+  private final AtomicInteger ffmpegQueued = new AtomicInteger();
+  private final AtomicInteger ffmpegRunning = new AtomicInteger();
+
+  public PipelineMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    Gauge.builder("processor.consumer.in.flight", inFlight, AtomicInteger::get)
+      .description("Messages being processed by this instance")
+      .register(registry);
+    Gauge.builder("processor.consumer.backlog", backlog, AtomicInteger::get)
+      .description("Messages received by this instance and not yet being processed")
+      .register(registry);
+    Gauge.builder("processor.ffmpeg.queued", ffmpegQueued, AtomicInteger::get)
+      .description("FFmpeg jobs waiting for a process slot")
+      .register(registry);
+    Gauge.builder("processor.ffmpeg.running", ffmpegRunning, AtomicInteger::get)
+      .description("FFmpeg processes currently running")
+      .register(registry);
+  }
+
+  public <T> Mono<T> time(String stage, Mono<T> mono) {
+    return Mono.defer(() -> {
+      var sample = Timer.start(registry);
+      return mono.doFinally(signal -> sample.stop(Timer.builder("processor.stage")
+        .description("Duration of a pipeline stage")
+        .tag("stage", stage)
+        .tag("outcome", outcome(signal))
+        .publishPercentileHistogram()
+        .register(registry)));
+    });
+  }
+
+  public void bytes(String direction, long bytes) {
+    Counter.builder("processor.transfer.bytes")
+      .baseUnit("bytes")
+      .tag("direction", direction)
+      .register(registry)
+      .increment(bytes);
+  }
+
+  public void frames(long frames) {
+    Counter.builder("processor.frames").register(registry).increment(frames);
+  }
+
+  public void framesDropped(long frames) {
+    Counter.builder("processor.frames.dropped")
+      .description("Frames dropped as near-duplicates of the previous kept frame")
+      .register(registry)
+      .increment(frames);
+  }
+
+  public void file(FileStatusEnum status) {
+    Counter.builder("processor.files").tag("status", status.name()).register(registry).increment();
+  }
+
+  public void received() {
+    backlog.incrementAndGet();
+  }
+
+  public void started() {
+    backlog.decrementAndGet();
+    inFlight.incrementAndGet();
+  }
+
+  public void finished() {
+    inFlight.decrementAndGet();
+  }
+
+  public void ffmpegQueued() {
+    ffmpegQueued.incrementAndGet();
+  }
+
+  public void ffmpegStarted() {
+    ffmpegQueued.decrementAndGet();
+    ffmpegRunning.incrementAndGet();
+  }
+
+  public void ffmpegFinished() {
+    ffmpegRunning.decrementAndGet();
+  }
+
+  public void ffmpegDequeued() {
+    ffmpegQueued.decrementAndGet();
+  }
+
+  public void ffmpegSpeed(double speed) {
+    DistributionSummary.builder("processor.ffmpeg.speed")
+      .description("FFmpeg processing speed as a multiple of real time, from -progress reports")
+      .register(registry)
+      .record(speed);
+  }
+
+  public void ffmpegKilled() {
+    Counter.builder("processor.ffmpeg.killed")
+      .description("FFmpeg process trees killed on timeout or cancellation")
+      .register(registry)
+      .increment();
+  }
+
+  public void resumed(JobStage stage) {
+    Counter.builder("processor.ledger.resumed")
+      .description("Redelivered files resumed after a stage the job ledger saw completed")
+      .tag("stage", stage.name())
+      .register(registry)
+      .increment();
+  }
+
+  private static String outcome(SignalType signal) {
+    return switch (signal) {
+      case ON_COMPLETE -> "success";
+      case ON_ERROR -> "error";
+      default -> "cancelled";
+    };
+  }
+
+}
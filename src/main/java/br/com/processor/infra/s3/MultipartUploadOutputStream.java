@@ -0,0 +1,162 @@
+package br.com.processor.infra.s3;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Blocking {@link OutputStream} that ships everything written to it as an S3 multipart upload.
+ * Parts are sent while the producer keeps writing, with at most {@code maxInFlightParts} parts
+ * buffered in memory. {@link #close()} completes the upload; {@link #abort()} discards it.
+ */
+@Slf4j
+public class MultipartUploadOutputStream extends OutputStream {
+
+  public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+  private final S3AsyncClient s3AsyncClient;
+  private final String bucket;
+  private final String key;
+  private final String uploadId;
+  private final int partSize;
+  private final Semaphore inFlight;
+  private final List<CompletableFuture<CompletedPart>> parts = new CopyOnWriteArrayList<>();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  private final AtomicBoolean aborted = new AtomicBoolean();
+
+  private byte[] buffer;
+  private int position;
+  private volatile boolean closed;
+
+  public MultipartUploadOutputStream(S3AsyncClient s3AsyncClient, String bucket, String key, String uploadId,
+                                     int partSize, int maxInFlightParts) {
+    if (partSize < MIN_PART_SIZE) throw new IllegalArgumentException("Part size must be at least 5 MiB");
+    this.s3AsyncClient = s3AsyncClient;
+    this.bucket = bucket;
+    this.key = key;
+    this.uploadId = uploadId;
+    this.partSize = partSize;
+    this.inFlight = new Semaphore(Math.max(1, maxInFlightParts));
+    this.buffer = new byte[partSize];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[]{(byte) b}, 0, 1);
+  }
+
+  @Override
+  public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+    ensureOpen();
+    while (length > 0) {
+      int chunk = Math.min(length, partSize - position);
+      System.arraycopy(bytes, offset, buffer, position, chunk);
+      position += chunk;
+      offset += chunk;
+      length -= chunk;
+      if (position == partSize) sendBuffer();
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) return;
+    try {
+      ensureOpen();
+      if (position > 0 || parts.isEmpty()) sendBuffer();
+      closed = true;
+      buffer = null;
+      var completedParts = CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+        .thenApply(ignored -> parts.stream()
+          .map(CompletableFuture::join)
+          .sorted(Comparator.comparing(CompletedPart::partNumber))
+          .toList())
+        .join();
+      s3AsyncClient.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+          .bucket(bucket)
+          .key(key)
+          .uploadId(uploadId)
+          .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+          .build())
+        .join();
+      log.info("Multipart upload completed: {} ({} parts)", key, completedParts.size());
+    } catch (IOException e) {
+      abort();
+      throw e;
+    } catch (CompletionException e) {
+      abort();
+      throw new IOException("Multipart upload failed for " + key, e.getCause());
+    }
+  }
+
+  public CompletableFuture<Void> abort() {
+    if (!aborted.compareAndSet(false, true)) return CompletableFuture.completedFuture(null);
+    closed = true;
+    parts.forEach(part -> part.cancel(true));
+    return s3AsyncClient.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+        .bucket(bucket)
+        .key(key)
+        .uploadId(uploadId)
+        .build())
+      .whenComplete((response, error) -> {
+        if (error != null) log.error("Error aborting multipart upload {}: {}", key, error.getMessage());
+      })
+      .thenApply(response -> null);
+  }
+
+  private void sendBuffer() throws IOException {
+    try {
+      inFlight.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for a free upload slot");
+    }
+    if (failure.get() != null) {
+      inFlight.release();
+      ensureOpen();
+    }
+    int partNumber = parts.size() + 1;
+    var body = AsyncRequestBody.fromBytesUnsafe(position == partSize ? buffer : Arrays.copyOf(buffer, position));
+    var request = UploadPartRequest.builder()
+      .bucket(bucket)
+      .key(key)
+      .uploadId(uploadId)
+      .partNumber(partNumber)
+      .contentLength((long) position)
+      .build();
+    parts.add(s3AsyncClient.uploadPart(request, body)
+      .thenApply(response -> CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build())
+      .whenComplete((part, error) -> {
+        inFlight.release();
+        if (error != null) failure.compareAndSet(null, error);
+      }));
+    buffer = position == partSize ? new byte[partSize] : buffer;
+    position = 0;
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) throw new IOException("Stream closed");
+    var error = failure.get();
+    if (error != null) throw new IOException("Multipart upload failed for " + key, error);
+  }
+
+}
@@ -0,0 +1,348 @@
+package br.com.processor.infra.scheduling;
+
+import br.com.processor.enums.FileLane;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits file jobs under a global cap on active files and a cap per owner (the uploading user),
+ * handing free slots to owners with waiting files in round-robin order, so a message with hundreds
+ * of files cannot starve the ones behind it. Waiting jobs hold no thread.
+ *
+ * <p>With lanes enabled, files are sorted by size into small, medium and large lanes, each with its
+ * own budget of active files and its own owner rotation. A lane with waiting files may borrow idle
+ * slots from lanes of larger files, but never the other way round: a borrowed slot comes back when
+ * a short job ends, while a large file in a small lane's slot could hold it for hours.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FileScheduler {
+
+  @Setter
+  @Value("${processor.scheduler.max-active-files:0}")
+  private int maxActiveFiles;
+
+  @Setter
+  @Value("${processor.scheduler.max-files-per-owner:0}")
+  private int maxFilesPerOwner;
+
+  @Setter
+  @Value("${processor.lanes.enabled:false}")
+  private boolean lanesEnabled;
+
+  @Setter
+  @Value("${processor.lanes.small-max-bytes:67108864}")
+  private long smallMaxBytes;
+
+  @Setter
+  @Value("${processor.lanes.medium-max-bytes:1073741824}")
+  private long mediumMaxBytes;
+
+  @Setter
+  @Value("${processor.lanes.small.max-active-files:0}")
+  private int smallMaxActiveFiles;
+
+  @Setter
+  @Value("${processor.lanes.medium.max-active-files:0}")
+  private int mediumMaxActiveFiles;
+
+  @Setter
+  @Value("${processor.lanes.large.max-active-files:0}")
+  private int largeMaxActiveFiles;
+
+  @Setter
+  @Value("${processor.lanes.borrowing:true}")
+  private boolean borrowing;
+
+  private final MeterRegistry registry;
+
+  private final Map<FileLane, Lane> lanes = new EnumMap<>(FileLane.class);
+  private final List<Lane> order = new ArrayList<>();
+  private final AtomicInteger wip = new AtomicInteger();
+
+  @PostConstruct
+  public void init() {
+    int globalCap = maxActiveFiles > 0 ? maxActiveFiles : Runtime.getRuntime().availableProcessors() * 2;
+    if (lanesEnabled) {
+      int small = smallMaxActiveFiles > 0 ? smallMaxActiveFiles : Math.max(1, globalCap / 4);
+      int medium = mediumMaxActiveFiles > 0 ? mediumMaxActiveFiles : Math.max(1, globalCap / 4);
+      int large = largeMaxActiveFiles > 0 ? largeMaxActiveFiles : Math.max(1, globalCap - small - medium);
+      for (FileLane lane : FileLane.values()) {
+        var budget = switch (lane) {
+          case SMALL -> small;
+          case MEDIUM -> medium;
+          case LARGE -> large;
+        };
+        addLane(lane, new Lane(lane.name().toLowerCase(Locale.ROOT), budget));
+      }
+    } else {
+      var single = new Lane("all", globalCap);
+      for (FileLane lane : FileLane.values()) addLane(lane, single);
+    }
+    Gauge.builder("processor.scheduler.active", this, scheduler -> scheduler.count(true))
+      .description("Files being processed by this instance")
+      .register(registry);
+    Gauge.builder("processor.scheduler.waiting", this, scheduler -> scheduler.count(false))
+      .description("Files waiting for a processing slot")
+      .register(registry);
+    for (Lane lane : lanesEnabled ? order : List.<Lane>of()) {
+      Gauge.builder("processor.scheduler.lane.active", this, scheduler -> scheduler.count(lane, true))
+        .description("Files being processed in a size lane, borrowed slots included")
+        .tag("lane", lane.name)
+        .register(registry);
+      Gauge.builder("processor.scheduler.lane.waiting", this, scheduler -> scheduler.count(lane, false))
+        .description("Files waiting for a slot in a size lane")
+        .tag("lane", lane.name)
+        .register(registry);
+    }
+    log.info("Scheduling up to {} files at once{}", order.stream().mapToInt(lane -> lane.budget).sum(), lanesEnabled
+      ? " in lanes " + order.stream().map(lane -> lane.name + "=" + lane.budget).toList() + (borrowing ? " with borrowing" : "")
+      : ", " + order.getFirst().ownerCap + " per owner");
+  }
+
+  public boolean lanesEnabled() {
+    return lanesEnabled;
+  }
+
+  /** The lane for a file of {@code bytes}; files of unknown size go to the large lane. */
+  public FileLane lane(Long bytes) {
+    if (bytes == null) return FileLane.LARGE;
+    if (bytes <= smallMaxBytes) return FileLane.SMALL;
+    return bytes <= mediumMaxBytes ? FileLane.MEDIUM : FileLane.LARGE;
+  }
+
+  public <T> Mono<T> submit(String owner, Mono<T> task) {
+    return submit(owner, FileLane.LARGE, task);
+  }
+
+  /**
+   * Runs {@code task} once both a slot in its lane (its own or borrowed) and an owner slot are free.
+   * Cancelling before the task starts removes it from the queue.
+   */
+  public <T> Mono<T> submit(String owner, FileLane lane, Mono<T> task) {
+    return Mono.create(sink -> {
+      var job = new Job<>(lanes.get(lane), owner, task, sink);
+      enqueue(job);
+      sink.onCancel(() -> cancel(job));
+      drain();
+    });
+  }
+
+  private void addLane(FileLane key, Lane lane) {
+    lanes.put(key, lane);
+    if (!order.contains(lane)) order.add(lane);
+  }
+
+  private synchronized void enqueue(Job<?> job) {
+    var lane = job.lane;
+    var owner = lane.owners.computeIfAbsent(job.owner, Owner::new);
+    owner.pending.addLast(job);
+    lane.waiting++;
+    lane.schedule(owner);
+  }
+
+  private void drain() {
+    if (wip.getAndIncrement() != 0) return;
+    do {
+      for (Job<?> job : next()) job.start();
+    } while (wip.decrementAndGet() != 0);
+  }
+
+  /** Fills each lane's own slots first, smallest files first, then lets lanes borrow idle slots. */
+  private synchronized List<Job<?>> next() {
+    var started = new ArrayList<Job<?>>();
+    for (Lane lane : order) {
+      Job<?> job;
+      while (lane.used() < lane.budget && (job = lane.poll()) != null) {
+        job.lender = lane;
+        started.add(job);
+      }
+    }
+    if (!borrowing) return started;
+    for (int i = 0; i < order.size(); i++) {
+      var lane = order.get(i);
+      Lane lender;
+      while (!lane.rotation.isEmpty() && (lender = lender(i)) != null) {
+        var job = lane.poll();
+        if (job == null) break;
+        job.lender = lender;
+        lender.lent++;
+        started.add(job);
+      }
+    }
+    return started;
+  }
+
+  /** A lane of larger files with an idle slot and nothing waiting. */
+  private Lane lender(int index) {
+    for (int i = index + 1; i < order.size(); i++) {
+      var lane = order.get(i);
+      if (lane.waiting == 0 && lane.used() < lane.budget) return lane;
+    }
+    return null;
+  }
+
+  private void finish(Job<?> job) {
+    synchronized (this) {
+      var lane = job.lane;
+      var owner = lane.owners.get(job.owner);
+      owner.active--;
+      lane.active--;
+      if (job.lender != lane) job.lender.lent--;
+      lane.release(owner);
+    }
+    drain();
+  }
+
+  private void cancel(Job<?> job) {
+    synchronized (this) {
+      if (job.running) {
+        job.cancelled = true;
+      } else {
+        var lane = job.lane;
+        var owner = lane.owners.get(job.owner);
+        if (owner.pending.remove(job)) lane.waiting--;
+        lane.release(owner);
+        return;
+      }
+    }
+    job.dispose();
+  }
+
+  private synchronized int count(boolean running) {
+    return order.stream().mapToInt(lane -> running ? lane.active : lane.waiting).sum();
+  }
+
+  private synchronized int count(Lane lane, boolean running) {
+    return running ? lane.active : lane.waiting;
+  }
+
+  private final class Lane {
+
+    private final String name;
+    private final int budget;
+    private final int ownerCap;
+    private final Map<String, Owner> owners = new HashMap<>();
+    private final Deque<Owner> rotation = new ArrayDeque<>();
+    private int active;
+    private int waiting;
+    private int lent;
+
+    private Lane(String name, int budget) {
+      this.name = name;
+      this.budget = budget;
+      this.ownerCap = maxFilesPerOwner > 0 ? Math.min(maxFilesPerOwner, budget) : (budget + 1) / 2;
+    }
+
+    /** Own slots taken, by this lane's jobs or by jobs borrowing them. */
+    private int used() {
+      return active + lent;
+    }
+
+    private Job<?> poll() {
+      while (!rotation.isEmpty()) {
+        var owner = rotation.pollFirst();
+        owner.scheduled = false;
+        var job = owner.pending.pollFirst();
+        if (job == null) continue;
+        waiting--;
+        job.running = true;
+        owner.active++;
+        active++;
+        schedule(owner);
+        return job;
+      }
+      return null;
+    }
+
+    private void schedule(Owner owner) {
+      if (!owner.scheduled && !owner.pending.isEmpty() && owner.active < ownerCap) {
+        owner.scheduled = true;
+        rotation.addLast(owner);
+      }
+    }
+
+    private void release(Owner owner) {
+      if (owner.active == 0 && owner.pending.isEmpty()) {
+        owners.remove(owner.name);
+        if (owner.scheduled) rotation.remove(owner);
+      } else {
+        schedule(owner);
+      }
+    }
+
+  }
+
+  private static final class Owner {
+
+    private final String name;
+    private final Deque<Job<?>> pending = new ArrayDeque<>();
+    private int active;
+    private boolean scheduled;
+
+    private Owner(String name) {
+      this.name = name;
+    }
+
+  }
+
+  private final class Job<T> {
+
+    private final Lane lane;
+    private final String owner;
+    private final Mono<T> task;
+    private final MonoSink<T> sink;
+    private Lane lender;
+    private boolean running;
+    private boolean cancelled;
+    private Disposable subscription;
+
+    private Job(Lane lane, String owner, Mono<T> task, MonoSink<T> sink) {
+      this.lane = lane;
+      this.owner = owner;
+      this.task = task;
+      this.sink = sink;
+    }
+
+    private void start() {
+      var disposable = task
+        .doFinally(signal -> finish(this))
+        .subscribe(sink::success, sink::error, sink::success);
+      synchronized (FileScheduler.this) {
+        subscription = disposable;
+        if (!cancelled) return;
+      }
+      disposable.dispose();
+    }
+
+    private void dispose() {
+      Disposable disposable;
+      synchronized (FileScheduler.this) {
+        disposable = subscription;
+      }
+      if (disposable != null) disposable.dispose();
+    }
+
+  }
+
+}
@@ -0,0 +1,50 @@
+package br.com.processor.infra.scheduling;
+
+import br.com.processor.enums.ExecutionMode;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Where blocking pipeline stages (waiting on ffmpeg, reading pipes, walking and deleting scratch
+ * files, waiting on zip tasks) run. In {@link ExecutionMode#PLATFORM} mode that is Reactor's
+ * bounded elastic pool; in {@link ExecutionMode#VIRTUAL} mode each task gets its own virtual
+ * thread, so a wait no longer holds a platform thread or queues behind the elastic cap. CPU-bound
+ * work (zip compression, in-process decoding) keeps its own bounded platform pools in both modes.
+ */
+public class PipelineSchedulers implements AutoCloseable {
+
+  private final ExecutionMode mode;
+  private final Scheduler blocking;
+
+  public PipelineSchedulers(ExecutionMode mode) {
+    this.mode = mode;
+    this.blocking = mode == ExecutionMode.VIRTUAL
+      ? Schedulers.fromExecutorService(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("blocking-", 0).factory()), "blocking")
+      : Schedulers.boundedElastic();
+  }
+
+  public static PipelineSchedulers platform() {
+    return new PipelineSchedulers(ExecutionMode.PLATFORM);
+  }
+
+  public ExecutionMode mode() {
+    return mode;
+  }
+
+  public boolean virtual() {
+    return mode == ExecutionMode.VIRTUAL;
+  }
+
+  public Scheduler blocking() {
+    return blocking;
+  }
+
+  @Override
+  public void close() {
+    // The shared bounded elastic pool belongs to Reactor.
+    if (virtual()) blocking.dispose();
+  }
+
+}
@@ -0,0 +1,100 @@
+package br.com.processor.infra.sqs;
+
+import br.com.processor.infra.sqs.SqsBatcher.Pending;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static java.lang.String.format;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SqsAcknowledger {
+
+  @Setter
+  @Value("${aws.sqs.endpoint}")
+  private String uploadsEventsQueueUrl;
+
+  @Setter
+  @Value("${processor.consumer.ack.batch-size:10}")
+  private int batchSize;
+
+  @Setter
+  @Value("${processor.consumer.ack.linger-ms:100}")
+  private long lingerMs;
+
+  @Setter
+  @Value("${processor.consumer.ack.shutdown-timeout-seconds:10}")
+  private long shutdownTimeoutSeconds;
+
+  private final SqsAsyncClient sqsAsyncClient;
+
+  private final Map<String, SqsBatcher<Message, Void>> batchers = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    batcher(uploadsEventsQueueUrl);
+  }
+
+  @PreDestroy
+  public void close() {
+    flush().block(Duration.ofSeconds(shutdownTimeoutSeconds));
+  }
+
+  public Mono<Void> acknowledge(Message message) {
+    return acknowledge(uploadsEventsQueueUrl, message);
+  }
+
+  /** Deletes {@code message} from {@code queueUrl}, batched with other deletes from the same queue. */
+  public Mono<Void> acknowledge(String queueUrl, Message message) {
+    return batcher(queueUrl).submit(message)
+      .doOnSuccess(ignored -> log.info(format("Deleted messageId: %s, messageBody: %s", message.messageId(), message.body())))
+      .doOnError(error -> log.error(format("Error deleting messageId: %s: %s", message.messageId(), error.getMessage())));
+  }
+
+  public Mono<Void> flush() {
+    return Mono.when(batchers.values().stream().map(SqsBatcher::flush).toList());
+  }
+
+  private SqsBatcher<Message, Void> batcher(String queueUrl) {
+    return batchers.computeIfAbsent(queueUrl, url ->
+      new SqsBatcher<>("DeleteMessage", batchSize, Duration.ofMillis(lingerMs), batch -> this.deleteBatch(url, batch)));
+  }
+
+  private Mono<Void> deleteBatch(String queueUrl, List<Pending<Message, Void>> batch) {
+    var request = DeleteMessageBatchRequest.builder()
+      .queueUrl(queueUrl)
+      .entries(IntStream.range(0, batch.size())
+        .mapToObj(i -> DeleteMessageBatchRequestEntry.builder()
+          .id(String.valueOf(i))
+          .receiptHandle(batch.get(i).entry().receiptHandle())
+          .build())
+        .toList())
+      .build();
+
+    return Mono.fromFuture(() -> sqsAsyncClient.deleteMessageBatch(request))
+      .doOnNext(response -> {
+        response.successful().forEach(entry -> batch.get(Integer.parseInt(entry.id())).success(null));
+        response.failed().forEach(entry -> batch.get(Integer.parseInt(entry.id()))
+          .error(new IllegalStateException(format("Delete failed, code: %s, message: %s", entry.code(), entry.message()))));
+      })
+      .then();
+  }
+
+}
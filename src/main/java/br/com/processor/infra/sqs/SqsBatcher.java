@@ -0,0 +1,123 @@
+package br.com.processor.infra.sqs;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Groups single SQS operations into batch calls, flushing when {@code maxBatchSize} entries are
+ * queued or {@code linger} has passed since the first queued entry. The sender must resolve every
+ * {@link Pending} of the batch it receives; anything left unresolved is failed.
+ */
+@Slf4j
+class SqsBatcher<T, R> {
+
+  private final String name;
+  private final int maxBatchSize;
+  private final Duration linger;
+  private final Function<List<Pending<T, R>>, Mono<Void>> sender;
+
+  private final Queue<Pending<T, R>> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final Set<Mono<Void>> inFlight = ConcurrentHashMap.newKeySet();
+  private volatile Disposable lingerTask;
+
+  SqsBatcher(String name, int maxBatchSize, Duration linger, Function<List<Pending<T, R>>, Mono<Void>> sender) {
+    this.name = name;
+    this.maxBatchSize = Math.max(1, Math.min(10, maxBatchSize));
+    this.linger = linger;
+    this.sender = sender;
+  }
+
+  Mono<R> submit(T entry) {
+    return Mono.create(sink -> {
+      queue.add(new Pending<>(entry, sink));
+      int size = queued.incrementAndGet();
+      if (size >= maxBatchSize) {
+        drain(false);
+      } else if (size == 1) {
+        scheduleLinger();
+      }
+    });
+  }
+
+  Mono<Void> flush() {
+    drain(true);
+    return Mono.when(List.copyOf(inFlight));
+  }
+
+  private void scheduleLinger() {
+    lingerTask = Schedulers.parallel().schedule(() -> drain(true), linger.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized void drain(boolean includePartial) {
+    while (queued.get() >= maxBatchSize || (includePartial && queued.get() > 0)) {
+      var batch = new ArrayList<Pending<T, R>>(maxBatchSize);
+      Pending<T, R> pending;
+      while (batch.size() < maxBatchSize && (pending = queue.poll()) != null) {
+        batch.add(pending);
+      }
+      if (batch.isEmpty()) break;
+      queued.addAndGet(-batch.size());
+      send(batch);
+    }
+    var task = lingerTask;
+    if (queued.get() == 0 && task != null) {
+      task.dispose();
+    } else if (queued.get() > 0 && (task == null || task.isDisposed())) {
+      scheduleLinger();
+    }
+  }
+
+  private void send(List<Pending<T, R>> batch) {
+    var completion = Mono.defer(() -> sender.apply(batch))
+      .onErrorResume(error -> {
+        log.error("Error sending {} batch: {}", name, error.getMessage());
+        batch.forEach(pending -> pending.error(error));
+        return Mono.empty();
+      })
+      .doFinally(signal -> batch.forEach(pending -> pending.error(new IllegalStateException("No result for " + name + " entry"))))
+      .cache();
+    inFlight.add(completion);
+    completion.doFinally(signal -> inFlight.remove(completion)).subscribe();
+  }
+
+  static final class Pending<T, R> {
+
+    private final T entry;
+    private final MonoSink<R> sink;
+    private final AtomicInteger resolved = new AtomicInteger();
+
+    private Pending(T entry, MonoSink<R> sink) {
+      this.entry = entry;
+      this.sink = sink;
+    }
+
+    T entry() {
+      return entry;
+    }
+
+    void success(R result) {
+      if (resolved.compareAndSet(0, 1)) sink.success(result);
+    }
+
+    void error(Throwable error) {
+      if (resolved.compareAndSet(0, 1)) sink.error(error);
+    }
+
+  }
+
+}
@@ -1,64 +1,256 @@
 package br.com.processor.infra.sqs;
 
+import br.com.processor.app.ports.FileProcessorQueue;
 import br.com.processor.app.usecases.ProcessFileUseCase;
 import br.com.processor.app.usecases.models.UploadQueueMessage;
-import jakarta.annotation.PostConstruct;
+import br.com.processor.enums.FileLane;
+import br.com.processor.infra.autoscaling.AdmissionController;
+import br.com.processor.infra.autoscaling.BacklogMonitor;
+import br.com.processor.infra.metrics.PipelineMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
-import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
-import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
 
 import static br.com.processor.utils.JsonUtils.fromJson;
 import static java.lang.String.format;
 
+/**
+ * Long-polls the uploads queue for as many messages as there are free slots and processes them. As
+ * a {@link SmartLifecycle} it drains on shutdown instead of dropping in-flight work.
+ *
+ * <p>A size lane may also have a queue of its own, polled by a separate loop with its own slots, so
+ * uploads already sorted by size never wait behind a long poll of the main queue; their files go
+ * straight to that lane instead of being sized. {@code processor.consumer.concurrency} stays the cap
+ * on messages in flight across all queues: each lane queue gets an equal share of it and the main
+ * queue the rest. Every queue needs a slot, so startup fails when the concurrency is lower than the
+ * number of queues.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class SqsListener {
+public class SqsListener implements SmartLifecycle {
+
+  private static final int MAX_BATCH_SIZE = 10;
 
   @Setter
   @Value("${aws.sqs.endpoint}")
   private String uploadsEventsQueueUrl;
 
+  @Setter
+  @Value("${processor.lanes.small.queue-url:}")
+  private String smallQueueUrl;
+
+  @Setter
+  @Value("${processor.lanes.medium.queue-url:}")
+  private String mediumQueueUrl;
+
+  @Setter
+  @Value("${processor.lanes.large.queue-url:}")
+  private String largeQueueUrl;
+
+  @Setter
+  @Value("${processor.consumer.concurrency:0}")
+  private int concurrency;
+
+  @Setter
+  @Value("${processor.consumer.wait-time-seconds:20}")
+  private int waitTimeSeconds;
+
+  @Setter
+  @Value("${processor.consumer.heartbeat.visibility-timeout-seconds:180}")
+  private int visibilityTimeoutSeconds;
+
+  @Setter
+  @Value("${processor.consumer.shutdown.grace-period-seconds:90}")
+  private long shutdownGracePeriodSeconds;
+
   private final SqsAsyncClient sqsAsyncClient;
   private final ProcessFileUseCase processFileUseCase;
+  private final VisibilityHeartbeat visibilityHeartbeat;
+  private final SqsAcknowledger sqsAcknowledger;
+  private final FileProcessorQueue fileProcessorQueue;
+  private final PipelineMetrics metrics;
+  private final AdmissionController admissionController;
+  private final BacklogMonitor backlogMonitor;
+
+  private Sinks.Empty<Void> stopping;
+  private Sinks.Empty<Void> drained;
+  private Disposable processing;
+  private volatile boolean running;
+
+  @Override
+  public void start() {
+    int permits = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+    var laneQueues = laneQueues();
+    if (permits < laneQueues.size() + 1) {
+      throw new IllegalStateException(format("Consumer concurrency of %d cannot give a slot to each of %d queues; "
+        + "set processor.consumer.concurrency to at least %d", permits, laneQueues.size() + 1, laneQueues.size() + 1));
+    }
+    int share = permits / (laneQueues.size() + 1);
+    var sources = new ArrayList<Source>();
+    sources.add(new Source(uploadsEventsQueueUrl, null, new Semaphore(permits - share * laneQueues.size())));
+    laneQueues.forEach((lane, queueUrl) -> sources.add(new Source(queueUrl, lane, new Semaphore(share))));
+    stopping = Sinks.empty();
+    drained = Sinks.empty();
+    running = true;
+
+    processing = Flux.fromIterable(sources)
+      .flatMap(this::consume, sources.size())
+      .doFinally(signal -> drained.tryEmitEmpty())
+      .subscribe();
+  }
+
+  private Flux<Void> consume(Source source) {
+    // Stopping only cuts the wait for slots: a long poll already sent finishes and its messages are
+    // processed, instead of staying hidden for the visibility timeout.
+    return Mono.fromCallable(() -> this.acquireSlots(source.slots()))
+      .subscribeOn(Schedulers.boundedElastic())
+      .takeUntilOther(stopping.asMono())
+      .flatMap(maxMessages -> this.receiveMessages(source, maxMessages))
+      .repeat(() -> running)
+      .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)).transientErrors(true))
+      .flatMapIterable(messages -> messages)
+      .doOnNext(message -> {
+        metrics.received();
+        log.info(format("Received messageId: %s, messageBody: %s", message.messageId(), message.body()));
+      })
+      .flatMap(message -> this.track(source, message)
+        .doOnSubscribe(subscription -> metrics.started())
+        .onErrorResume(error -> Mono.empty())
+        .doFinally(signal -> {
+          metrics.finished();
+          source.slots().release();
+        }), Integer.MAX_VALUE);
+  }
+
+  private Map<FileLane, String> laneQueues() {
+    var queues = new EnumMap<FileLane, String>(FileLane.class);
+    if (smallQueueUrl != null && !smallQueueUrl.isBlank()) queues.put(FileLane.SMALL, smallQueueUrl);
+    if (mediumQueueUrl != null && !mediumQueueUrl.isBlank()) queues.put(FileLane.MEDIUM, mediumQueueUrl);
+    if (largeQueueUrl != null && !largeQueueUrl.isBlank()) queues.put(FileLane.LARGE, largeQueueUrl);
+    return queues;
+  }
+
+  @Override
+  public void stop() {
+    shutdown().block();
+  }
+
+  @Override
+  public void stop(Runnable callback) {
+    shutdown().doFinally(signal -> callback.run()).subscribe();
+  }
 
-  @PostConstruct
-  public void startListener() {
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Stops receiving, waits up to the grace period for in-flight messages (including those of a long
+   * poll that was already under way), returns the unfinished ones to the queue and cancels their
+   * work, then flushes pending deletes and status publishes.
+   */
+  private Mono<Void> shutdown() {
+    if (!running) return Mono.empty();
+    running = false;
+    log.info("Stopping message intake, waiting up to {}s for in-flight messages", shutdownGracePeriodSeconds);
+    stopping.tryEmitEmpty();
+    return drained.asMono()
+      .timeout(Duration.ofSeconds(shutdownGracePeriodSeconds), Mono.defer(() -> {
+        log.warn("Grace period over, returning unfinished messages to the queue");
+        return visibilityHeartbeat.releaseAll()
+          .onErrorResume(error -> {
+            log.error("Error returning unfinished messages: {}", error.getMessage());
+            return Mono.empty();
+          })
+          .then(Mono.fromRunnable(processing::dispose));
+      }))
+      .then(Mono.when(sqsAcknowledger.flush(), fileProcessorQueue.flush()))
+      .onErrorResume(error -> {
+        log.error("Error flushing on shutdown: {}", error.getMessage());
+        return Mono.empty();
+      })
+      .doFinally(signal -> log.info("Message intake stopped"));
+  }
+
+  private int acquireSlots(Semaphore slots) throws InterruptedException {
+    slots.acquire();
+    try {
+      admissionController.awaitAdmission();
+    } catch (InterruptedException | RuntimeException e) {
+      slots.release();
+      throw e;
+    }
+    int acquired = 1 + Math.max(0, slots.drainPermits());
+    int surplus = acquired - MAX_BATCH_SIZE;
+    if (surplus > 0) {
+      slots.release(surplus);
+      acquired = MAX_BATCH_SIZE;
+    }
+    return acquired;
+  }
+
+  private Mono<List<Message>> receiveMessages(Source source, int maxMessages) {
+    var slots = source.slots();
     var request = ReceiveMessageRequest.builder()
-      .queueUrl(uploadsEventsQueueUrl)
+      .queueUrl(source.queueUrl())
+      .maxNumberOfMessages(maxMessages)
+      .waitTimeSeconds(waitTimeSeconds)
+      .visibilityTimeout(visibilityTimeoutSeconds)
       .build();
 
-    Mono.fromFuture(() -> sqsAsyncClient.receiveMessage(request))
-      .repeat()
-      .retry()
-      .flatMapIterable(ReceiveMessageResponse::messages)
-      .doOnNext(message -> log.info(format("Received messageId: %s, messageBody: %s", message.messageId(), message.body())))
-      .flatMap(this::processMessage)
-      .subscribeOn(Schedulers.boundedElastic())
-      .subscribe();
+    return Mono.fromFuture(() -> sqsAsyncClient.receiveMessage(request))
+      .map(response -> {
+        slots.release(maxMessages - response.messages().size());
+        return response.messages();
+      })
+      .doOnError(error -> {
+        slots.release(maxMessages);
+        log.error("Error receiving messages: {}", error.getMessage());
+      });
+  }
+
+  private Mono<Void> track(Source source, Message message) {
+    var work = this.processMessage(source, message);
+    return source.lane() == null
+      ? visibilityHeartbeat.track(message, work)
+      : visibilityHeartbeat.track(source.queueUrl(), message, work);
   }
 
-  private Mono<Void> processMessage(Message message) {
-    return processFileUseCase.process(fromJson(message.body(), UploadQueueMessage.class))
-      .flatMap(m -> this.deleteMessage(message));
+  private Mono<Void> processMessage(Source source, Message message) {
+    return Mono.defer(() -> {
+      long start = System.nanoTime();
+      return Mono.fromCallable(() -> fromJson(message.body(), UploadQueueMessage.class))
+        .flatMap(upload -> source.lane() == null ? processFileUseCase.process(upload) : processFileUseCase.process(upload, source.lane()))
+        .doOnSuccess(m -> backlogMonitor.recordProcessingTime(Duration.ofNanos(System.nanoTime() - start)))
+        .flatMap(m -> source.lane() == null
+          ? sqsAcknowledger.acknowledge(message)
+          : sqsAcknowledger.acknowledge(source.queueUrl(), message));
+    });
   }
 
-  private Mono<Void> deleteMessage(Message message) {
-    return Mono.just(sqsAsyncClient.deleteMessage(DeleteMessageRequest.builder()
-      .queueUrl(uploadsEventsQueueUrl)
-      .receiptHandle(message.receiptHandle())
-      .build()))
-      .doOnNext(m -> log.info(format("Deleted messageId: %s, messageBody: %s", message.messageId(), message.body())))
-      .then();
+  /** A queue to poll, with the slots that cap its in-flight messages; the main queue has no lane. */
+  private record Source(String queueUrl, FileLane lane, Semaphore slots) {
   }
 
 }
@@ -1,16 +1,28 @@
 package br.com.processor.infra.sqs;
 
 import br.com.processor.app.ports.FileProcessorQueue;
+import br.com.processor.infra.sqs.SqsBatcher.Pending;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
-import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
 import static java.lang.String.format;
 
 @Component
@@ -20,18 +32,92 @@ public class SqsPublisher implements FileProcessorQueue {
 
   private final SqsAsyncClient sqsClient;
 
+  @Setter
   @Value("${aws.sqs.fileProcessorQueueUrl}")
   private String queueUrl;
 
+  @Setter
+  @Value("${processor.publisher.batch-size:10}")
+  private int batchSize;
+
+  @Setter
+  @Value("${processor.publisher.linger-ms:20}")
+  private long lingerMs;
+
+  @Setter
+  @Value("${processor.publisher.shutdown-timeout-seconds:10}")
+  private long shutdownTimeoutSeconds;
+
+  private SqsBatcher<String, SendMessageResponse> batcher;
+
+  @PostConstruct
+  public void init() {
+    batcher = new SqsBatcher<>("SendMessage", batchSize, Duration.ofMillis(lingerMs), this::sendBatch);
+  }
+
+  @PreDestroy
+  public void close() {
+    flush().block(Duration.ofSeconds(shutdownTimeoutSeconds));
+  }
+
   @Override
   public Mono<SendMessageResponse> sendMessage(String body) {
-    var request = createSendMessageRequest(body);
-    log.info(format("Sending message to SQS. Body: %s", request.messageBody()));
-    return Mono.fromFuture(() -> sqsClient.sendMessage(request))
+    log.info(format("Queueing message to SQS. Body: %s", body));
+    return batcher.submit(body)
       .doOnSuccess(response -> log.info(format("Message sent successfully with ID: %s", response.messageId())))
       .doOnError(error -> log.error("Error sending message to SQS", error));
   }
 
+  @Override
+  public Mono<Void> flush() {
+    return batcher.flush();
+  }
+
+  private Mono<Void> sendBatch(List<Pending<String, SendMessageResponse>> batch) {
+    var request = SendMessageBatchRequest.builder()
+      .queueUrl(queueUrl)
+      .entries(IntStream.range(0, batch.size())
+        .mapToObj(i -> SendMessageBatchRequestEntry.builder()
+          .id(String.valueOf(i))
+          .messageBody(batch.get(i).entry())
+          .build())
+        .toList())
+      .build();
+
+    return Mono.fromFuture(() -> sqsClient.sendMessageBatch(request))
+      .flatMap(response -> this.resolveBatch(batch, response))
+      .onErrorResume(error -> {
+        log.warn("Batch send failed, retrying {} messages one by one: {}", batch.size(), error.getMessage());
+        return this.sendIndividually(batch);
+      });
+  }
+
+  private Mono<Void> resolveBatch(List<Pending<String, SendMessageResponse>> batch, SendMessageBatchResponse response) {
+    response.successful().forEach(entry -> batch.get(Integer.parseInt(entry.id())).success(SendMessageResponse.builder()
+      .messageId(entry.messageId())
+      .md5OfMessageBody(entry.md5OfMessageBody())
+      .sequenceNumber(entry.sequenceNumber())
+      .build()));
+
+    var failed = new ArrayList<Pending<String, SendMessageResponse>>();
+    response.failed().forEach(entry -> {
+      log.warn("Batch entry failed, code: {}, message: {}", entry.code(), entry.message());
+      failed.add(batch.get(Integer.parseInt(entry.id())));
+    });
+    return this.sendIndividually(failed);
+  }
+
+  private Mono<Void> sendIndividually(List<Pending<String, SendMessageResponse>> pending) {
+    return Flux.fromIterable(pending)
+      .flatMap(entry -> Mono.fromFuture(() -> sqsClient.sendMessage(createSendMessageRequest(entry.entry())))
+        .doOnNext(entry::success)
+        .onErrorResume(error -> {
+          entry.error(error);
+          return Mono.empty();
+        }))
+      .then();
+  }
+
   private SendMessageRequest createSendMessageRequest(String body) {
     return SendMessageRequest.builder()
       .queueUrl(queueUrl)
@@ -0,0 +1,168 @@
+package br.com.processor.infra.sqs;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.String.format;
+
+/**
+ * Keeps in-flight messages invisible by extending their visibility every {@code interval-seconds}.
+ * Messages are received with the same visibility timeout the heartbeat extends them to, and the
+ * interval must be at most half of it, so the first extension always lands before the timeout.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VisibilityHeartbeat {
+
+  private static final int MAX_BATCH_SIZE = 10;
+
+  @Setter
+  @Value("${aws.sqs.endpoint}")
+  private String uploadsEventsQueueUrl;
+
+  @Setter
+  @Value("${processor.consumer.heartbeat.interval-seconds:60}")
+  private int intervalSeconds;
+
+  @Setter
+  @Value("${processor.consumer.heartbeat.visibility-timeout-seconds:180}")
+  private int visibilityTimeoutSeconds;
+
+  @Setter
+  @Value("${processor.consumer.heartbeat.max-extension-seconds:7200}")
+  private int maxExtensionSeconds;
+
+  private final SqsAsyncClient sqsAsyncClient;
+
+  private final Map<String, InFlightMessage> inFlight = new ConcurrentHashMap<>();
+  private Disposable ticker;
+
+  @PostConstruct
+  public void start() {
+    if (intervalSeconds <= 0 || intervalSeconds * 2 > visibilityTimeoutSeconds) {
+      throw new IllegalStateException(format("Heartbeat interval of %ds must be positive and at most half the %ds visibility timeout",
+        intervalSeconds, visibilityTimeoutSeconds));
+    }
+    ticker = Flux.interval(Duration.ofSeconds(intervalSeconds))
+      .concatMap(tick -> this.extendVisibility()
+        .onErrorResume(error -> {
+          log.error("Error extending message visibility: {}", error.getMessage());
+          return Mono.empty();
+        }))
+      .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (ticker != null) ticker.dispose();
+  }
+
+  public <T> Mono<T> track(Message message, Mono<T> work) {
+    return track(uploadsEventsQueueUrl, message, work);
+  }
+
+  /** Keeps {@code message}, received from {@code queueUrl}, invisible while {@code work} runs. */
+  public <T> Mono<T> track(String queueUrl, Message message, Mono<T> work) {
+    return Mono.defer(() -> {
+      inFlight.put(message.messageId(), new InFlightMessage(queueUrl, message.receiptHandle(), Instant.now()));
+      return work;
+    }).doFinally(signal -> inFlight.remove(message.messageId()));
+  }
+
+  Mono<Void> extendVisibility() {
+    var now = Instant.now();
+    var entries = new HashMap<String, List<ChangeMessageVisibilityBatchRequestEntry>>();
+    inFlight.forEach((messageId, message) -> {
+      long remaining = maxExtensionSeconds - Duration.between(message.receivedAt(), now).toSeconds();
+      if (remaining <= 0) {
+        log.warn("Stopping visibility extension for messageId: {} after {}s", messageId, maxExtensionSeconds);
+        inFlight.remove(messageId);
+        return;
+      }
+      entries.computeIfAbsent(message.queueUrl(), queueUrl -> new ArrayList<>()).add(ChangeMessageVisibilityBatchRequestEntry.builder()
+        .id(messageId)
+        .receiptHandle(message.receiptHandle())
+        .visibilityTimeout((int) Math.min(visibilityTimeoutSeconds, remaining))
+        .build());
+    });
+
+    return this.changeVisibility(entries)
+      .doOnNext(response -> {
+        log.info("Extended visibility of {} in-flight messages", response.successful().size());
+        response.failed().forEach(this::handleFailure);
+      })
+      .then();
+  }
+
+  /**
+   * Makes every tracked message visible again right away and stops extending it, so messages this
+   * instance will not finish are redelivered now instead of after the visibility timeout.
+   */
+  public Mono<Void> releaseAll() {
+    var entries = new HashMap<String, List<ChangeMessageVisibilityBatchRequestEntry>>();
+    inFlight.forEach((messageId, message) -> entries.computeIfAbsent(message.queueUrl(), queueUrl -> new ArrayList<>())
+      .add(ChangeMessageVisibilityBatchRequestEntry.builder()
+        .id(messageId)
+        .receiptHandle(message.receiptHandle())
+        .visibilityTimeout(0)
+        .build()));
+    inFlight.clear();
+
+    return this.changeVisibility(entries)
+      .doOnNext(response -> {
+        log.info("Returned {} unfinished messages to the queue", response.successful().size());
+        response.failed().forEach(failure -> log.warn("Could not return messageId: {}, code: {}, message: {}",
+          failure.id(), failure.code(), failure.message()));
+      })
+      .then();
+  }
+
+  /** Changes visibility in batches of up to ten, one queue at a time. */
+  private Flux<ChangeMessageVisibilityBatchResponse> changeVisibility(Map<String, List<ChangeMessageVisibilityBatchRequestEntry>> entries) {
+    return Flux.fromIterable(entries.entrySet())
+      .concatMap(queue -> Flux.fromIterable(queue.getValue())
+        .buffer(MAX_BATCH_SIZE)
+        .concatMap(batch -> this.changeVisibility(queue.getKey(), batch)));
+  }
+
+  private Mono<ChangeMessageVisibilityBatchResponse> changeVisibility(String queueUrl, List<ChangeMessageVisibilityBatchRequestEntry> entries) {
+    var request = ChangeMessageVisibilityBatchRequest.builder()
+      .queueUrl(queueUrl)
+      .entries(entries)
+      .build();
+
+    return Mono.fromFuture(() -> sqsAsyncClient.changeMessageVisibilityBatch(request));
+  }
+
+  private void handleFailure(BatchResultErrorEntry failure) {
+    log.warn("Could not extend visibility of messageId: {}, code: {}, message: {}", failure.id(), failure.code(), failure.message());
+    if (Boolean.TRUE.equals(failure.senderFault())) inFlight.remove(failure.id());
+  }
+
+  private record InFlightMessage(String queueUrl, String receiptHandle, Instant receivedAt) {
+  }
+
+}
@@ -0,0 +1,109 @@
+package br.com.processor.infra.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.DSYNC;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * In-memory LRU bounded to {@code maxEntries}. When a store path is set, every put is appended to a
+ * tab-separated file and the latest value per key is reloaded on startup. The file is rewritten with
+ * just the LRU's entries once more than twice {@code maxEntries} lines have been appended since the
+ * last rewrite, so it stays bounded on a long-lived pod. Lines the parser cannot read, or maps to
+ * null, are skipped.
+ */
+@Slf4j
+public class LruFileStore<V> {
+
+  private final Map<String, V> entries;
+  private final int maxEntries;
+  private final Path store;
+  private final Function<V, String> format;
+  private final Function<String, V> parse;
+  private final OpenOption[] appendOptions;
+  private final OpenOption[] compactOptions;
+  private int appended;
+
+  public LruFileStore(int maxEntries, String storePath, boolean sync, Function<V, String> format, Function<String, V> parse) {
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+        return size() > maxEntries;
+      }
+    };
+    this.maxEntries = maxEntries;
+    this.store = storePath == null || storePath.isBlank() ? null : Path.of(storePath);
+    this.format = format;
+    this.parse = parse;
+    this.appendOptions = sync ? new OpenOption[] {CREATE, APPEND, DSYNC} : new OpenOption[] {CREATE, APPEND};
+    this.compactOptions = sync
+      ? new OpenOption[] {CREATE, TRUNCATE_EXISTING, WRITE, DSYNC}
+      : new OpenOption[] {CREATE, TRUNCATE_EXISTING, WRITE};
+  }
+
+  /** Loads the store file, if there is one, and returns how many entries it holds. */
+  public synchronized int load() throws IOException {
+    if (store == null || !Files.exists(store)) return 0;
+
+    List<String> lines = Files.readAllLines(store, StandardCharsets.UTF_8);
+    for (String line : lines) {
+      var fields = line.split("\t", 2);
+      if (fields.length != 2) continue;
+      try {
+        var value = parse.apply(fields[1]);
+        if (value != null) entries.put(fields[0], value);
+      } catch (UncheckedIOException e) {
+        log.warn("Skipping unreadable line for {} in {}: {}", fields[0], store, e.getMessage());
+      }
+    }
+    appended = lines.size();
+    if (lines.size() > entries.size() * 2) compact();
+    return entries.size();
+  }
+
+  public synchronized V get(String key) {
+    return entries.get(key);
+  }
+
+  public synchronized void put(String key, V value) throws IOException {
+    entries.put(key, value);
+    if (store == null) return;
+    Files.writeString(store, line(key, value) + "\n", StandardCharsets.UTF_8, appendOptions);
+    if (++appended > maxEntries * 2) compact();
+  }
+
+  public Path store() {
+    return store;
+  }
+
+  private void compact() throws IOException {
+    var lines = entries.entrySet().stream()
+      .map(entry -> line(entry.getKey(), entry.getValue()))
+      .toList();
+    var temp = store.resolveSibling(store.getFileName() + ".tmp");
+    Files.write(temp, lines, StandardCharsets.UTF_8, compactOptions);
+    Files.move(temp, store, REPLACE_EXISTING, ATOMIC_MOVE);
+    appended = 0;
+  }
+
+  private String line(String key, V value) {
+    return key + "\t" + format.apply(value);
+  }
+
+}
@@ -0,0 +1,14 @@
+package br.com.processor.infra.workspace;
+
+import java.nio.file.Path;
+
+/**
+ * A job's private scratch directory and the bytes reserved for it in its pool.
+ */
+public record Workspace(Path dir, String pool, long reservedBytes) {
+
+  public Path resolve(String name) {
+    return dir.resolve(name);
+  }
+
+}
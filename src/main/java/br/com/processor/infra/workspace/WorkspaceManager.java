@@ -0,0 +1,338 @@
+package br.com.processor.infra.workspace;
+
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.nio.file.Files.createDirectories;
+
+/**
+ * Hands each job a private scratch directory under a byte quota. A job reserves an estimate of its
+ * footprint (the video times an expansion factor, for frames and zip) and waits without holding a
+ * thread until the reservation fits; its directory is deleted on success, error and cancellation.
+ * Small videos can use a memory-backed pool (a tmpfs mount). Directories left by a previous process
+ * are swept at startup.
+ *
+ * <p>Extracted zips a job ledger may resume from are retained outside the job directory until
+ * they are discarded or the retention period expires, still counted against the disk quota.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WorkspaceManager {
+
+  private static final String JOB_PREFIX = "job_";
+  private static final String RETAINED = "retained";
+  private static final long MIN_ESTIMATE_BYTES = 1024 * 1024;
+  private static final double DEFAULT_QUOTA_SHARE = 0.9;
+
+  @Setter
+  @Value("${processor.workspace.root:${java.io.tmpdir}/processor}")
+  private String root;
+
+  @Setter
+  @Value("${processor.workspace.quota-bytes:0}")
+  private long quotaBytes;
+
+  @Setter
+  @Value("${processor.workspace.expansion-factor:4}")
+  private double expansionFactor;
+
+  @Setter
+  @Value("${processor.workspace.memory.root:}")
+  private String memoryRoot;
+
+  @Setter
+  @Value("${processor.workspace.memory.quota-bytes:268435456}")
+  private long memoryQuotaBytes;
+
+  @Setter
+  @Value("${processor.workspace.memory.max-file-bytes:33554432}")
+  private long memoryMaxFileBytes;
+
+  @Setter
+  @Value("${processor.workspace.retention-minutes:30}")
+  private long retentionMinutes;
+
+  private final MeterRegistry registry;
+  private final PipelineSchedulers schedulers;
+
+  private final Map<Path, Long> retained = new ConcurrentHashMap<>();
+  private final Map<Path, Long> handedOver = new ConcurrentHashMap<>();
+  private Pool disk;
+  private Pool memory;
+  private Path retainedDir;
+  private Disposable sweeper;
+
+  @PostConstruct
+  public void init() throws IOException {
+    var diskDir = createDirectories(Path.of(root));
+    retainedDir = createDirectories(diskDir.resolve(RETAINED));
+    disk = new Pool("disk", diskDir, quotaBytes > 0
+      ? quotaBytes
+      : (long) (Files.getFileStore(diskDir).getUsableSpace() * DEFAULT_QUOTA_SHARE));
+    sweepOrphans(disk);
+    if (memoryRoot != null && !memoryRoot.isBlank()) {
+      memory = new Pool("memory", createDirectories(Path.of(memoryRoot)), memoryQuotaBytes);
+      sweepOrphans(memory);
+    }
+    sweepRetained();
+
+    for (Pool pool : memory != null ? List.of(disk, memory) : List.of(disk)) {
+      Gauge.builder("processor.workspace.reserved", this, manager -> manager.reserved(pool))
+        .description("Scratch bytes reserved by running jobs and retained zips")
+        .baseUnit("bytes")
+        .tag("pool", pool.name)
+        .register(registry);
+    }
+    Gauge.builder("processor.workspace.waiting", this, WorkspaceManager::waiting)
+      .description("Jobs waiting for scratch space")
+      .register(registry);
+    sweeper = Schedulers.parallel().schedulePeriodically(this::sweepRetained, 1, 1, TimeUnit.MINUTES);
+    log.info("Workspace at {} with a quota of {} bytes{}", diskDir, disk.quota,
+      memory != null ? ", small files at " + memory.dir : "");
+  }
+
+  @PreDestroy
+  public void close() {
+    if (sweeper != null) sweeper.dispose();
+  }
+
+  /**
+   * Runs {@code work} in a fresh workspace sized for a video of {@code videoBytes}, deleting it
+   * however {@code work} ends.
+   */
+  public <T> Mono<T> withWorkspace(long videoBytes, Function<Workspace, Mono<T>> work) {
+    return Mono.usingWhen(acquire(videoBytes), work, this::release, (workspace, error) -> release(workspace), this::release);
+  }
+
+  /**
+   * Moves a finished file out of its workspace so it survives cleanup for the retention period. A
+   * disk workspace hands over up to its own reservation to cover the file, so the bytes are not
+   * counted twice while the job is still running.
+   */
+  public Mono<Path> retain(Workspace workspace, Path file) {
+    return Mono.fromCallable(() -> {
+      var target = retainedDir.resolve(UUID.randomUUID() + "_" + file.getFileName());
+      long size = Files.size(file);
+      synchronized (this) {
+        long covered = disk.name.equals(workspace.pool())
+          ? Math.min(size, workspace.reservedBytes() - handedOver.getOrDefault(workspace.dir(), 0L))
+          : 0;
+        handedOver.merge(workspace.dir(), covered, Long::sum);
+        disk.reserved += size - covered;
+        retained.put(target, size);
+      }
+      try {
+        Files.move(file, target);
+      } catch (IOException e) {
+        forget(target);
+        throw e;
+      }
+      return target;
+    }).subscribeOn(schedulers.blocking());
+  }
+
+  /** Deletes a retained file; files this manager does not retain are left alone. */
+  public Mono<Void> discard(Path file) {
+    return Mono.<Void>fromRunnable(() -> {
+      if (!retained.containsKey(file)) return;
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        log.warn("Could not delete retained {}: {}", file, e.getMessage());
+      }
+      forget(file);
+    }).subscribeOn(schedulers.blocking());
+  }
+
+  private Mono<Workspace> acquire(long videoBytes) {
+    long estimate = (long) (Math.max(videoBytes, MIN_ESTIMATE_BYTES) * expansionFactor);
+    return Mono.<Reservation>create(sink -> {
+        Reservation ready;
+        Waiter waiter = null;
+        synchronized (this) {
+          ready = memory != null && videoBytes > 0 && videoBytes <= memoryMaxFileBytes ? memory.tryReserve(estimate) : null;
+          if (ready == null) ready = disk.tryReserve(estimate);
+          if (ready == null) {
+            waiter = new Waiter(Math.min(estimate, disk.quota), sink);
+            disk.waiters.addLast(waiter);
+          }
+        }
+        if (ready != null) {
+          sink.success(ready);
+        } else {
+          var queued = waiter;
+          sink.onCancel(() -> cancel(queued));
+        }
+      })
+      .map(reservation -> {
+        try {
+          var dir = Files.createTempDirectory(reservation.pool.dir, JOB_PREFIX);
+          return new Workspace(dir, reservation.pool.name, reservation.bytes);
+        } catch (IOException e) {
+          free(reservation.pool, reservation.bytes);
+          throw new UncheckedIOException(e);
+        }
+      });
+  }
+
+  private Mono<Void> release(Workspace workspace) {
+    return Mono.<Void>fromRunnable(() -> {
+      long used = delete(workspace.dir());
+      DistributionSummary.builder("processor.workspace.job.bytes")
+        .description("Scratch bytes a job left in its workspace")
+        .baseUnit("bytes")
+        .tag("pool", workspace.pool())
+        .register(registry)
+        .record(used);
+      if (used > workspace.reservedBytes()) {
+        log.debug("Workspace {} used {} bytes over a reservation of {}", workspace.dir(), used, workspace.reservedBytes());
+      }
+      var handed = handedOver.remove(workspace.dir());
+      long bytes = workspace.reservedBytes() - (handed != null ? handed : 0);
+      free(memory != null && memory.name.equals(workspace.pool()) ? memory : disk, bytes);
+    }).subscribeOn(schedulers.blocking());
+  }
+
+  private void cancel(Waiter waiter) {
+    synchronized (this) {
+      // A waiter no longer queued was granted a reservation its cancelled sink dropped.
+      if (disk.waiters.remove(waiter)) return;
+    }
+    free(disk, waiter.bytes);
+  }
+
+  private void forget(Path file) {
+    var size = retained.remove(file);
+    if (size != null) free(disk, size);
+  }
+
+  private void free(Pool pool, long bytes) {
+    var granted = new ArrayList<Waiter>();
+    synchronized (this) {
+      pool.reserved -= bytes;
+      Waiter next;
+      while ((next = pool.waiters.peekFirst()) != null && pool.reserved + next.bytes <= pool.quota) {
+        pool.waiters.pollFirst();
+        pool.reserved += next.bytes;
+        granted.add(next);
+      }
+    }
+    for (Waiter waiter : granted) waiter.sink.success(new Reservation(pool, waiter.bytes));
+  }
+
+  private void sweepRetained() {
+    var expiry = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+    try (Stream<Path> files = Files.list(retainedDir)) {
+      for (Path file : files.toList()) {
+        if (Files.getLastModifiedTime(file).toInstant().isBefore(expiry)) {
+          Files.deleteIfExists(file);
+          forget(file);
+        } else if (!retained.containsKey(file)) {
+          long size = Files.size(file);
+          synchronized (this) {
+            disk.reserved += size;
+            retained.put(file, size);
+          }
+        }
+      }
+    } catch (IOException | UncheckedIOException e) {
+      log.warn("Could not sweep retained files in {}: {}", retainedDir, e.getMessage());
+    }
+  }
+
+  private static void sweepOrphans(Pool pool) throws IOException {
+    long bytes = 0;
+    int count = 0;
+    try (Stream<Path> entries = Files.list(pool.dir)) {
+      for (Path entry : entries.filter(entry -> entry.getFileName().toString().startsWith(JOB_PREFIX)).toList()) {
+        bytes += delete(entry);
+        count++;
+      }
+    }
+    if (count > 0) log.info("Swept {} orphaned workspace(s), {} bytes, from {}", count, bytes, pool.dir);
+  }
+
+  private static long delete(Path dir) {
+    long bytes = 0;
+    try (Stream<Path> files = Files.walk(dir)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        if (Files.isRegularFile(file)) bytes += Files.size(file);
+        Files.deleteIfExists(file);
+      }
+    } catch (IOException | UncheckedIOException e) {
+      log.warn("Could not delete workspace {}: {}", dir, e.getMessage());
+    }
+    return bytes;
+  }
+
+  private synchronized long reserved(Pool pool) {
+    return pool.reserved;
+  }
+
+  private synchronized int waiting() {
+    return disk.waiters.size();
+  }
+
+  private static final class Pool {
+
+    private final String name;
+    private final Path dir;
+    private final long quota;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private long reserved;
+
+    private Pool(String name, Path dir, long quota) {
+      this.name = name;
+      this.dir = dir;
+      this.quota = quota;
+    }
+
+    /** Reserves up to the whole quota, so an oversized job runs once it has the pool to itself. */
+    private Reservation tryReserve(long estimate) {
+      long bytes = Math.min(estimate, quota);
+      if (!waiters.isEmpty() || reserved + bytes > quota) return null;
+      reserved += bytes;
+      return new Reservation(this, bytes);
+    }
+
+  }
+
+  private record Reservation(Pool pool, long bytes) {
+  }
+
+  private record Waiter(long bytes, MonoSink<Reservation> sink) {
+  }
+
+}
@@ -0,0 +1,238 @@
+package br.com.processor.infra.zip;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Writes already-compressed files (JPEG frames) into a STORED zip. The archive layout is computed
+ * up front from the file sizes, so every entry is read once, CRC'd and written at its final offset
+ * in parallel; the central directory follows in entry order. ZIP64 records are emitted as needed.
+ */
+public class ParallelZipWriter implements AutoCloseable {
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int END_SIZE = 22;
+  private static final int ZIP64_END_SIZE = 56;
+  private static final int ZIP64_LOCATOR_SIZE = 20;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+  private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+  private static final short ZIP64_EXTRA_ID = 0x0001;
+  private static final short UTF8_FLAG = 0x0800;
+  private static final int COPY_BUFFER_SIZE = 1024 * 1024;
+
+  private final ForkJoinPool pool;
+
+  public ParallelZipWriter(int parallelism) {
+    this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+  }
+
+  public record Entry(String name, Path source) {
+  }
+
+  public Path write(List<Entry> entries, Path target) throws IOException {
+    var layout = layout(entries);
+    int time = dosTime(LocalDateTime.now());
+    try (FileChannel channel = FileChannel.open(target, CREATE, WRITE, READ, TRUNCATE_EXISTING)) {
+      long[] crcs = new long[layout.size()];
+      pool.submit(() -> IntStream.range(0, layout.size())
+          .parallel()
+          .forEach(i -> crcs[i] = writeEntry(channel, layout.get(i), time)))
+        .get();
+      writeCentralDirectory(channel, layout, crcs, time);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted writing " + target, e);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof UncheckedIOException io ? io.getCause() : new IOException(e.getCause());
+    }
+    return target;
+  }
+
+  @Override
+  public void close() {
+    pool.shutdown();
+  }
+
+  private static List<Layout> layout(List<Entry> entries) throws IOException {
+    var layout = new ArrayList<Layout>(entries.size());
+    long offset = 0;
+    for (Entry entry : entries) {
+      var name = entry.name().getBytes(StandardCharsets.UTF_8);
+      long size = Files.size(entry.source());
+      var item = new Layout(entry.source(), name, size, offset);
+      layout.add(item);
+      offset = item.dataOffset() + size;
+    }
+    return layout;
+  }
+
+  private static long writeEntry(FileChannel channel, Layout entry, int time) {
+    try (FileChannel source = FileChannel.open(entry.source(), READ)) {
+      var crc = new CRC32();
+      var buffer = ByteBuffer.allocate((int) Math.min(COPY_BUFFER_SIZE, Math.max(1, entry.size())));
+      long position = entry.dataOffset();
+      long remaining = entry.size();
+      while (remaining > 0) {
+        buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+        int read = source.read(buffer);
+        if (read < 0) throw new IOException("File changed while zipping: " + entry.source());
+        buffer.flip();
+        crc.update(buffer.array(), 0, read);
+        while (buffer.hasRemaining()) position += channel.write(buffer, position);
+        remaining -= read;
+      }
+      writeFully(channel, localHeader(entry, crc.getValue(), time), entry.offset());
+      return crc.getValue();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static ByteBuffer localHeader(Layout entry, long crc, int time) {
+    var buffer = ByteBuffer.allocate(LOCAL_HEADER_SIZE + entry.name().length + entry.localExtraSize())
+      .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(LOCAL_HEADER_SIGNATURE)
+      .putShort(versionNeeded(entry.localZip64()))
+      .putShort(UTF8_FLAG)
+      .putShort((short) 0)
+      .putInt(time)
+      .putInt((int) crc)
+      .putInt((int) (entry.localZip64() ? ZIP64_MAGIC : entry.size()))
+      .putInt((int) (entry.localZip64() ? ZIP64_MAGIC : entry.size()))
+      .putShort((short) entry.name().length)
+      .putShort((short) entry.localExtraSize())
+      .put(entry.name());
+    if (entry.localZip64()) {
+      buffer.putShort(ZIP64_EXTRA_ID).putShort((short) 16).putLong(entry.size()).putLong(entry.size());
+    }
+    return buffer.flip();
+  }
+
+  private static void writeCentralDirectory(FileChannel channel, List<Layout> layout, long[] crcs, int time) throws IOException {
+    long start = layout.isEmpty() ? 0 : layout.getLast().dataOffset() + layout.getLast().size();
+    long size = layout.stream().mapToLong(entry -> CENTRAL_HEADER_SIZE + entry.name().length + entry.centralExtraSize()).sum();
+    boolean zip64 = layout.size() >= ZIP64_MAGIC_COUNT || start >= ZIP64_MAGIC || size >= ZIP64_MAGIC;
+    var buffer = ByteBuffer.allocate((int) size + END_SIZE + (zip64 ? ZIP64_END_SIZE + ZIP64_LOCATOR_SIZE : 0))
+      .order(ByteOrder.LITTLE_ENDIAN);
+
+    for (int i = 0; i < layout.size(); i++) {
+      var entry = layout.get(i);
+      boolean sizeZip64 = entry.size() >= ZIP64_MAGIC;
+      boolean offsetZip64 = entry.offset() >= ZIP64_MAGIC;
+      buffer.putInt(CENTRAL_HEADER_SIGNATURE)
+        .putShort(versionNeeded(sizeZip64 || offsetZip64))
+        .putShort(versionNeeded(sizeZip64 || offsetZip64))
+        .putShort(UTF8_FLAG)
+        .putShort((short) 0)
+        .putInt(time)
+        .putInt((int) crcs[i])
+        .putInt((int) (sizeZip64 ? ZIP64_MAGIC : entry.size()))
+        .putInt((int) (sizeZip64 ? ZIP64_MAGIC : entry.size()))
+        .putShort((short) entry.name().length)
+        .putShort((short) entry.centralExtraSize())
+        .putShort((short) 0)
+        .putShort((short) 0)
+        .putShort((short) 0)
+        .putInt(0)
+        .putInt((int) (offsetZip64 ? ZIP64_MAGIC : entry.offset()))
+        .put(entry.name());
+      if (entry.centralExtraSize() > 0) {
+        buffer.putShort(ZIP64_EXTRA_ID).putShort((short) (entry.centralExtraSize() - 4));
+        if (sizeZip64) buffer.putLong(entry.size()).putLong(entry.size());
+        if (offsetZip64) buffer.putLong(entry.offset());
+      }
+    }
+
+    if (zip64) {
+      long zip64EndOffset = start + size;
+      buffer.putInt(ZIP64_END_SIGNATURE)
+        .putLong(ZIP64_END_SIZE - 12)
+        .putShort((short) 45)
+        .putShort((short) 45)
+        .putInt(0)
+        .putInt(0)
+        .putLong(layout.size())
+        .putLong(layout.size())
+        .putLong(size)
+        .putLong(start);
+      buffer.putInt(ZIP64_LOCATOR_SIGNATURE)
+        .putInt(0)
+        .putLong(zip64EndOffset)
+        .putInt(1);
+    }
+
+    buffer.putInt(END_SIGNATURE)
+      .putShort((short) 0)
+      .putShort((short) 0)
+      .putShort((short) (zip64 ? ZIP64_MAGIC_COUNT : layout.size()))
+      .putShort((short) (zip64 ? ZIP64_MAGIC_COUNT : layout.size()))
+      .putInt((int) (zip64 ? ZIP64_MAGIC : size))
+      .putInt((int) (zip64 ? ZIP64_MAGIC : start))
+      .putShort((short) 0);
+
+    writeFully(channel, buffer.flip(), start);
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) position += channel.write(buffer, position);
+  }
+
+  private static int dosTime(LocalDateTime time) {
+    return ((time.getYear() - 1980) << 25)
+      | (time.getMonthValue() << 21)
+      | (time.getDayOfMonth() << 16)
+      | (time.getHour() << 11)
+      | (time.getMinute() << 5)
+      | (time.getSecond() >> 1);
+  }
+
+  private static short versionNeeded(boolean zip64) {
+    return (short) (zip64 ? 45 : 10);
+  }
+
+  private record Layout(Path source, byte[] name, long size, long offset) {
+
+    boolean localZip64() {
+      return size >= ZIP64_MAGIC;
+    }
+
+    int localExtraSize() {
+      return localZip64() ? 20 : 0;
+    }
+
+    int centralExtraSize() {
+      int fields = (size >= ZIP64_MAGIC ? 16 : 0) + (offset >= ZIP64_MAGIC ? 8 : 0);
+      return fields > 0 ? fields + 4 : 0;
+    }
+
+    long dataOffset() {
+      return offset + LOCAL_HEADER_SIZE + name.length + localExtraSize();
+    }
+
+  }
+
+}
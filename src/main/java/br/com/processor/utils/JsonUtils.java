@@ -1,26 +1,64 @@
 package br.com.processor.utils;
 
+import br.com.processor.app.usecases.models.FileProcessorQueueMessage;
+import br.com.processor.app.usecases.models.UploadQueueMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import lombok.NoArgsConstructor;
 
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import static lombok.AccessLevel.PRIVATE;
 
+/**
+ * JSON helpers backed by one shared mapper. Readers and writers are cached per type; the queue
+ * message types are built eagerly. Blackbird is registered unless {@code processor.json.blackbird}
+ * (or {@code PROCESSOR_JSON_BLACKBIRD}) is {@code false}. Failures are thrown as
+ * {@link UncheckedIOException}.
+ */
 @NoArgsConstructor(access = PRIVATE)
 public class JsonUtils {
 
+  private static final ObjectMapper MAPPER = mapper();
+  private static final ObjectWriter WRITER = MAPPER.writer();
+  private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+  private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+  static {
+    for (Class<?> type : new Class<?>[]{UploadQueueMessage.class, FileProcessorQueueMessage.class}) {
+      READERS.put(type, MAPPER.readerFor(type));
+      WRITERS.put(type, MAPPER.writerFor(type));
+    }
+  }
+
   public static String toJson(Object obj) {
     try {
-      return new ObjectMapper().writeValueAsString(obj);
-    } catch (Exception e) {
-      return null;
+      var writer = obj == null ? WRITER : WRITERS.getOrDefault(obj.getClass(), WRITER);
+      return writer.writeValueAsString(obj);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException("Error writing JSON: " + e.getOriginalMessage(), e);
     }
   }
 
   public static <T> T fromJson(String json, Class<T> clazz) {
     try {
-      return new ObjectMapper().readValue(json, clazz);
-    } catch (Exception e) {
-      return null;
+      return READERS.computeIfAbsent(clazz, MAPPER::readerFor).readValue(json);
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException("Error reading " + clazz.getSimpleName() + " JSON: " + e.getOriginalMessage(), e);
     }
   }
+
+  private static ObjectMapper mapper() {
+    var builder = JsonMapper.builder();
+    var blackbird = System.getProperty("processor.json.blackbird", System.getenv().getOrDefault("PROCESSOR_JSON_BLACKBIRD", "true"));
+    if (Boolean.parseBoolean(blackbird)) builder.addModule(new BlackbirdModule());
+    return builder.build();
+  }
+
 }
@@ -10,6 +10,8 @@ import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 
@@ -36,6 +38,9 @@ class BucketUseCaseTest {
   @BeforeEach
   void setup() {
     openMocks(this);
+    bucketUseCase.setPartSizeBytes(16 * 1024 * 1024);
+    bucketUseCase.setMultipartThresholdBytes(16 * 1024 * 1024);
+    bucketUseCase.setMaxConcurrency(4);
   }
 
   @Test
@@ -62,6 +67,8 @@ class BucketUseCaseTest {
   void shouldGetFileSuccessfully() {
     Path destination = Path.of("/tmp/downloaded.txt");
 
+    when(s3AsyncClient.headObject(any(HeadObjectRequest.class)))
+      .thenReturn(CompletableFuture.completedFuture(HeadObjectResponse.builder().contentLength(12L).build()));
     CompletableFuture<Path> future = CompletableFuture.completedFuture(destination);
     when(s3AsyncClient.getObject(any(GetObjectRequest.class), any(AsyncResponseTransformer.class)))
       .thenReturn(future);
@@ -0,0 +1,162 @@
+package br.com.processor.app.usecases;
+
+import br.com.processor.infra.s3.FakeS3Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BucketUseCaseTransferTest {
+
+  private static final int PART_SIZE = 5 * 1024 * 1024;
+
+  @TempDir
+  private Path tempDir;
+
+  private FakeS3Server s3Server;
+
+  private S3AsyncClient s3AsyncClient;
+
+  private BucketUseCase bucketUseCase;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    s3Server = new FakeS3Server();
+    s3AsyncClient = S3AsyncClient.builder()
+      .endpointOverride(s3Server.endpoint())
+      .forcePathStyle(true)
+      .region(Region.US_EAST_1)
+      .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+      .build();
+    bucketUseCase = new BucketUseCase(s3AsyncClient);
+    bucketUseCase.setPartSizeBytes(PART_SIZE);
+    bucketUseCase.setMultipartThresholdBytes(PART_SIZE);
+    bucketUseCase.setMaxConcurrency(4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    s3AsyncClient.close();
+    s3Server.close();
+  }
+
+  @Test
+  void shouldUploadLargeFileInParallelParts() throws IOException {
+    var content = randomBytes(3 * PART_SIZE + 123);
+    var file = Files.write(tempDir.resolve("video.mp4"), content);
+
+    StepVerifier.create(bucketUseCase.uploadFile("bucket", "user/video.mp4", file))
+      .expectNext(file)
+      .verifyComplete();
+
+    assertArrayEquals(content, s3Server.getObject("bucket", "user/video.mp4"));
+    assertEquals(4, s3Server.count("UploadPart"));
+    assertEquals(0, s3Server.count("PutObject"));
+    assertEquals(0, s3Server.pendingUploads());
+  }
+
+  @Test
+  void shouldUploadSmallFileWithSinglePut() throws IOException {
+    var content = randomBytes(1024);
+    var file = Files.write(tempDir.resolve("small.mp4"), content);
+
+    StepVerifier.create(bucketUseCase.uploadFile("bucket", "user/small.mp4", file))
+      .expectNext(file)
+      .verifyComplete();
+
+    assertArrayEquals(content, s3Server.getObject("bucket", "user/small.mp4"));
+    assertEquals(1, s3Server.count("PutObject"));
+    assertEquals(0, s3Server.count("CreateMultipartUpload"));
+  }
+
+  @Test
+  void shouldDownloadLargeFileWithRangedGets() throws IOException {
+    var content = randomBytes(2 * PART_SIZE + 7);
+    s3Server.putObject("bucket", "user/video.mp4", content);
+    var destination = tempDir.resolve("download.mp4");
+
+    StepVerifier.create(bucketUseCase.getFile("bucket", "user/video.mp4", destination))
+      .expectNext(destination)
+      .verifyComplete();
+
+    assertArrayEquals(content, Files.readAllBytes(destination));
+    assertEquals(3, s3Server.count("GetObjectRange"));
+  }
+
+  @Test
+  void shouldDownloadSmallFileWithSingleGet() throws IOException {
+    var content = randomBytes(2048);
+    s3Server.putObject("bucket", "user/small.mp4", content);
+    var destination = tempDir.resolve("small.mp4");
+
+    StepVerifier.create(bucketUseCase.getFile("bucket", "user/small.mp4", destination))
+      .expectNext(destination)
+      .verifyComplete();
+
+    assertArrayEquals(content, Files.readAllBytes(destination));
+    assertEquals(0, s3Server.count("GetObjectRange"));
+  }
+
+  @Test
+  void shouldDownloadWithSingleGetWhenLengthIsUnknown() throws IOException {
+    var content = randomBytes(2 * PART_SIZE + 7);
+    s3Server.putObject("bucket", "user/video.mp4", content);
+    var destination = tempDir.resolve("unknown.mp4");
+
+    StepVerifier.create(bucketUseCase.getFile("bucket", "user/video.mp4", HeadObjectResponse.builder().build(), destination))
+      .expectNext(destination)
+      .verifyComplete();
+
+    assertArrayEquals(content, Files.readAllBytes(destination));
+    assertEquals(0, s3Server.count("GetObjectRange"));
+  }
+
+  @Test
+  void shouldCopyObjectServerSide() {
+    var content = randomBytes(512);
+    s3Server.putObject("bucket", "user/video_frames.zip", content);
+
+    var eTag = bucketUseCase.headFile("bucket", "user/video_frames.zip").block().eTag();
+
+    StepVerifier.create(bucketUseCase.copyFile("bucket", "user/video_frames.zip", eTag, "other/copy_frames.zip"))
+      .expectNext("other/copy_frames.zip")
+      .verifyComplete();
+
+    assertArrayEquals(content, s3Server.getObject("bucket", "other/copy_frames.zip"));
+  }
+
+  @Test
+  void shouldNotCopyObjectOverwrittenSinceIndexed() {
+    s3Server.putObject("bucket", "user/video_frames.zip", randomBytes(512));
+    var eTag = bucketUseCase.headFile("bucket", "user/video_frames.zip").block().eTag();
+    s3Server.putObject("bucket", "user/video_frames.zip", randomBytes(256));
+
+    StepVerifier.create(bucketUseCase.copyFile("bucket", "user/video_frames.zip", eTag, "other/copy_frames.zip"))
+      .expectError()
+      .verify();
+
+    assertNull(s3Server.getObject("bucket", "other/copy_frames.zip"));
+  }
+
+  private static byte[] randomBytes(int size) {
+    var bytes = new byte[size];
+    new Random(size).nextBytes(bytes);
+    return bytes;
+  }
+
+}
@@ -0,0 +1,93 @@
+package br.com.processor.app.usecases;
+
+import br.com.processor.app.ports.FrameExtractor;
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import br.com.processor.infra.ffmpeg.FfmpegRunner;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import reactor.test.StepVerifier;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class FileUseCaseTest {
+
+  private static final int FRAMES = 200;
+
+  @Mock
+  private FrameExtractor frameExtractor;
+
+  @Mock
+  private FfmpegRunner ffmpegRunner;
+
+  private final PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+  private final FfmpegRunner catRunner = new FfmpegRunner(1, false, Duration.ofSeconds(30), metrics);
+
+  private FileUseCase fileUseCase;
+  private AutoCloseable closeable;
+
+  @BeforeEach
+  void setUp() {
+    closeable = openMocks(this);
+    fileUseCase = new FileUseCase(frameExtractor, metrics, ffmpegRunner, PipelineSchedulers.platform());
+    // cat echoes the MJPEG input back, standing in for ffmpeg decoding it frame by frame
+    when(ffmpegRunner.run(anyList(), any())).thenAnswer(invocation -> catRunner.run(List.of("cat"), invocation.getArgument(1)));
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    catRunner.close();
+    closeable.close();
+  }
+
+  @Test
+  void shouldZipEveryStreamedFrame() throws IOException {
+    var input = new ByteArrayOutputStream();
+    for (int i = 0; i < FRAMES; i++) input.write(jpeg(i));
+    var zip = new ByteArrayOutputStream();
+
+    StepVerifier.create(fileUseCase.streamFrames(new ByteArrayInputStream(input.toByteArray()), zip, new ExtractionProfile()))
+      .expectNext((long) FRAMES)
+      .verifyComplete();
+
+    int entries = 0;
+    try (var entriesIn = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+      while (entriesIn.getNextEntry() != null) {
+        assertArrayEquals(jpeg(entries), entriesIn.readAllBytes());
+        entries++;
+      }
+    }
+    assertEquals(FRAMES, entries);
+  }
+
+  private static byte[] jpeg(int index) throws IOException {
+    var image = new BufferedImage(32, 24, BufferedImage.TYPE_INT_RGB);
+    for (int x = 0; x < 32; x++) {
+      for (int y = 0; y < 24; y++) {
+        image.setRGB(x, y, (index * 7919) ^ (x * y));
+      }
+    }
+    var output = new ByteArrayOutputStream();
+    ImageIO.write(image, "jpg", output);
+    return output.toByteArray();
+  }
+
+}
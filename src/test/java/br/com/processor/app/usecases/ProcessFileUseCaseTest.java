@@ -1,22 +1,53 @@
 package br.com.processor.app.usecases;
 
 import br.com.processor.app.ports.FileProcessorQueue;
+import br.com.processor.app.ports.JobLedger;
+import br.com.processor.app.ports.ProcessedVideoIndex;
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import br.com.processor.app.usecases.models.JobProgress;
+import br.com.processor.app.usecases.models.ProcessedZip;
 import br.com.processor.app.usecases.models.UploadFileMessage;
 import br.com.processor.app.usecases.models.UploadQueueMessage;
+import br.com.processor.enums.FileLane;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import br.com.processor.infra.scheduling.FileScheduler;
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import br.com.processor.infra.workspace.WorkspaceManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
+import static br.com.processor.enums.JobStage.EXTRACTED;
+import static br.com.processor.enums.JobStage.PUBLISHED;
+import static br.com.processor.enums.JobStage.UPLOADED;
 import static br.com.processor.enums.UploadFileStatus.UPLOAD_SUCCESS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
@@ -32,19 +63,47 @@ class ProcessFileUseCaseTest {
   @Mock
   private FileProcessorQueue fileProcessorQueue;
 
+  @Mock
+  private ProcessedVideoIndex processedVideoIndex;
+
+  @Mock
+  private JobLedger jobLedger;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Spy
+  private PipelineMetrics metrics = new PipelineMetrics(registry);
+
+  @Spy
+  private FileScheduler fileScheduler = new FileScheduler(registry);
+
+  @Spy
+  private WorkspaceManager workspaceManager = new WorkspaceManager(registry, PipelineSchedulers.platform());
+
+  @TempDir
+  private Path workspaceRoot;
+
   @InjectMocks
   private ProcessFileUseCase useCase;
 
   private AutoCloseable closeable;
 
   @BeforeEach
-  void setUp() {
+  void setUp() throws IOException {
+    fileScheduler.init();
+    workspaceManager.setRoot(workspaceRoot.toString());
+    workspaceManager.setQuotaBytes(1024 * 1024 * 1024);
+    workspaceManager.setExpansionFactor(4);
+    workspaceManager.setRetentionMinutes(30);
+    workspaceManager.init();
     closeable = openMocks(this);
+    when(bucketUseCase.headFile(any(), any())).thenReturn(Mono.just(HeadObjectResponse.builder().contentLength(42L).build()));
   }
 
   @AfterEach
   void closeService() throws Exception {
     closeable.close();
+    workspaceManager.close();
   }
 
   @Test
@@ -58,21 +117,23 @@ class ProcessFileUseCaseTest {
       .fileName(fileName)
       .status(UPLOAD_SUCCESS)
       .build();
-    var message = new UploadQueueMessage(email, List.of(uploadedFile));
+    var message = UploadQueueMessage.builder().email(email).files(List.of(uploadedFile)).build();
 
-    when(bucketUseCase.getFile(any(), any(), any())).thenReturn(Mono.just(tempPath));
+    when(bucketUseCase.getFile(any(), any(), any(), any())).thenReturn(Mono.just(tempPath));
     when(bucketUseCase.uploadFile(any(), any(), any())).thenReturn(Mono.just(zipPath));
-    when(fileUseCase.processFile(any())).thenReturn(Mono.just(zipPath));
+    when(fileUseCase.processFile(any(), any())).thenReturn(Mono.just(zipPath));
     when(fileProcessorQueue.sendMessage(any())).thenReturn(Mono.empty());
 
     StepVerifier.create(useCase.process(message))
       .expectNext(message)
       .verifyComplete();
 
-    verify(bucketUseCase).getFile(any(), any(), any());
+    verify(bucketUseCase).getFile(any(), any(), any(), any());
     verify(bucketUseCase).uploadFile(any(), any(), any());
-    verify(fileUseCase).processFile(any());
+    verify(fileUseCase).processFile(any(), any());
     verify(fileProcessorQueue).sendMessage(contains("\"status\":\"PROCESSED\""));
+    assertEquals(1, registry.get("processor.files").tag("status", "PROCESSED").counter().count());
+    assertEquals(1, registry.get("processor.stage").tag("stage", "download").tag("outcome", "success").timer().count());
   }
 
   @Test
@@ -86,10 +147,10 @@ class ProcessFileUseCaseTest {
       .fileName(fileName)
       .status(UPLOAD_SUCCESS)
       .build();
-    var message = new UploadQueueMessage(email, List.of(uploadedFile));
+    var message = UploadQueueMessage.builder().email(email).files(List.of(uploadedFile)).build();
 
-    when(bucketUseCase.getFile(any(), any(), any())).thenReturn(Mono.just(tempPath));
-    when(fileUseCase.processFile(any())).thenReturn(Mono.just(zipPath));
+    when(bucketUseCase.getFile(any(), any(), any(), any())).thenReturn(Mono.just(tempPath));
+    when(fileUseCase.processFile(any(), any())).thenReturn(Mono.just(zipPath));
     when(bucketUseCase.uploadFile(any(), any(), any())).thenReturn(Mono.error(new RuntimeException("Upload failed")));
     when(fileProcessorQueue.sendMessage(any())).thenReturn(Mono.empty());
 
@@ -98,5 +159,299 @@ class ProcessFileUseCaseTest {
       .verify();
 
     verify(fileProcessorQueue).sendMessage(contains("\"status\":\"FAILED\""));
+    assertEquals(1, registry.get("processor.files").tag("status", "FAILED").counter().count());
+    assertEquals(1, registry.get("processor.stage").tag("stage", "upload").tag("outcome", "error").timer().count());
+  }
+
+  @Test
+  void shouldDeleteWorkspaceWhenExtractionFails() throws IOException {
+    var uploadedFile = UploadFileMessage.builder()
+      .fileName("video.mp4")
+      .status(UPLOAD_SUCCESS)
+      .build();
+    var message = UploadQueueMessage.builder().email("user@example.com").files(List.of(uploadedFile)).build();
+
+    when(bucketUseCase.getFile(any(), any(), any(), any())).thenAnswer(invocation -> Mono.just(Files.createFile(invocation.getArgument(3))));
+    when(fileUseCase.processFile(any(), any())).thenReturn(Mono.error(new IllegalStateException("ffmpeg failed")));
+    when(fileProcessorQueue.sendMessage(any())).thenReturn(Mono.empty());
+
+    StepVerifier.create(useCase.process(message))
+      .expectErrorMessage("ffmpeg failed")
+      .verify();
+
+    verify(bucketUseCase).getFile(any(), eq("user@example.com/video.mp4"), any(), argThat(path -> path.startsWith(workspaceRoot)));
+    try (var entries = Files.list(workspaceRoot)) {
+      assertEquals(List.of(workspaceRoot.resolve("retained")), entries.toList());
+    }
+    assertEquals(0, registry.get("processor.workspace.reserved").tag("pool", "disk").gauge().value());
+  }
+
+  @Test
+  void shouldStreamFileWithoutLocalCopies() {
+    var uploadedFile = UploadFileMessage.builder()
+      .fileName("video.mp4")
+      .status(UPLOAD_SUCCESS)
+      .build();
+    var message = UploadQueueMessage.builder().email("user@example.com").files(List.of(uploadedFile)).build();
+    var video = new ResponseInputStream<>(GetObjectResponse.builder().build(), AbortableInputStream.create(InputStream.nullInputStream()));
+
+    when(bucketUseCase.getFileStream(any(), any())).thenReturn(Mono.just(video));
+    when(bucketUseCase.uploadStream(any(), eq("user@example.com/video_frames.zip"), any())).thenReturn(Mono.just("user@example.com/video_frames.zip"));
+    when(fileProcessorQueue.sendMessage(any())).thenReturn(Mono.empty());
+    useCase.setStreaming(true);
+
+    StepVerifier.create(useCase.process(message))
+      .expectNext(message)
+      .verifyComplete();
+
+    verify(bucketUseCase, never()).getFile(any(), any(), any(), any());
+    verify(fileUseCase, never()).processFile(any(), any());
+    verify(fileProcessorQueue).sendMessage(contains("\"status\":\"PROCESSED\""));
+  }
+
+  @Test
+  void shouldPreferFileProfileOverMessageProfile() {
+    var fileProfile = ExtractionProfile.builder().fps(1.0).build();
+    var uploadedFile = UploadFileMessage.builder()
+      .fileName("video.mp4")
+      .status(UPLOAD_SUCCESS)
+      .profile(fileProfile)
+      .build();
+    var message = UploadQueueMessage.builder()
+      .email("user@example.com")
+      .files(List.of(uploadedFile))
+      .profile(ExtractionProfile.builder().keyframesOnly(true).build())
+      .build();
+    var zipPath = Path.of("/tmp/video_frames.zip");
+
+    when(bucketUseCase.getFile(any(), any(), any(), any())).thenReturn(Mono.just(Path.of("/tmp/video.mp4")));
+    when(bucketUseCase.uploadFile(any(), any(), any())).thenReturn(Mono.just(zipPath));
+    when(fileUseCase.processFile(any(), any())).thenReturn(Mono.just(zipPath));
+    when(fileProcessorQueue.sendMessage(any())).thenReturn(Mono.empty());
+
+    StepVerifier.create(useCase.process(message))
+      .expectNext(message)
+      .verifyComplete();
+
+    verify(fileUseCase).processFile(any(), eq(fileProfile));
+  }
+
+  @Test
+  void shouldSizeFilesForTheirLaneWithOneHead() {
+    var message = UploadQueueMessage.builder().email("user@example.com")
+      .files(List.of(UploadFileMessage.builder().fileName("video.mp4").status(UPLOAD_SUCCESS).build())).build();
+
+    when(bucketUseCase.getFile(any(), any(), any(), any())).thenReturn(Mono.just(Path.of("/tmp/video.mp4")));
+    when(bucketUseCase.uploadFile(any(), any(), any())).thenReturn(Mono.just(Path.of("/tmp/video_frames.zip")));
+    when(fileUseCase.processFile(any(), any())).thenReturn(Mono.just(Path.of("/tmp/video_frames.zip")));
+    when(fileProcessorQueue.sendMessage(any())).thenReturn(Mono.empty());
+    doReturn(true).when(fileScheduler).lanesEnabled();
+    fileScheduler.setSmallMaxBytes(100);
+
+    StepVerifier.create(useCase.process(message))
+      .expectNext(message)
+      .verifyComplete();
+
+    verify(fileScheduler).submit(eq("user@example.com"), eq(FileLane.SMALL), any());
+    verify(bucketUseCase).headFile(any(), eq("user@example.com/video.mp4"));
+  }
+
+  @Test
+  void shouldPreferSizeHintAndQueueLaneOverHead() {
+    var hinted = UploadFileMessage.builder().fileId("id-1").fileName("hinted.mp4").sizeBytes(2L * 1024 * 1024 * 1024)
+      .status(UPLOAD_SUCCESS).build();
+    var message = UploadQueueMessage.builder().email("user@example.com").files(List.of(hinted)).build();
+
+    when(jobLedger.find("id-1")).thenReturn(Mono.just(JobProgress.builder().stage(PUBLISHED).build()));
+    useCase.setLedger(true);
+    doReturn(true).when(fileScheduler).lanesEnabled();
+
+    StepVerifier.create(useCase.process(message).then(useCase.process(message, FileLane.MEDIUM)))
+      .expectNext(message)
+      .verifyComplete();
+
+    verify(fileScheduler).submit(eq("user@example.com"), eq(FileLane.LARGE), any());
+    verify(fileScheduler).submit(eq("user@example.com"), eq(FileLane.MEDIUM), any());
+    verify(bucketUseCase, never()).headFile(any(), any());
   }
+
+  @Test
+  void shouldCopyFramesOfAlreadyProcessedContent() {
+    var uploadedFile = UploadFileMessage.builder()
+      .fileName("copy.mp4")
+      .status(UPLOAD_SUCCESS)
+      .build();
+    var message = UploadQueueMessage.builder().email("other@example.com").files(List.of(uploadedFile)).build();
+
+    when(bucketUseCase.headFile(any(), eq("other@example.com/copy.mp4")))
+      .thenReturn(Mono.just(HeadObjectResponse.builder().eTag("\"abc\"").contentLength(42L).build()));
+    when(processedVideoIndex.find(startsWith("\"abc\"|42|"))).thenReturn(Mono.just(processedZip("user@example.com/video_frames.zip", "\"zip\"")));
+    when(bucketUseCase.copyFile(any(), eq("user@example.com/video_frames.zip"), eq("\"zip\""), eq("other@example.com/copy_frames.zip")))
+      .thenReturn(Mono.just("other@example.com/copy_frames.zip"));
+    when(fileProcessorQueue.sendMessage(any())).thenReturn(Mono.empty());
+    useCase.setDedup(true);
+
+    StepVerifier.create(useCase.process(message))
+      .expectNext(message)
+      .verifyComplete();
+
+    verify(bucketUseCase, never()).getFile(any(), any(), any(), any());
+    verify(fileUseCase, never()).processFile(any(), any());
+    verify(fileProcessorQueue).sendMessage(contains("\"status\":\"PROCESSED\""));
+  }
+
+  @Test
+  void shouldProcessAndIndexNewContent() {
+    var uploadedFile = UploadFileMessage.builder()
+      .fileName("video.mp4")
+      .status(UPLOAD_SUCCESS)
+      .build();
+    var message = UploadQueueMessage.builder().email("user@example.com").files(List.of(uploadedFile)).build();
+    var zipPath = Path.of("/tmp/video_frames.zip");
+
+    when(bucketUseCase.headFile(any(), any()))
+      .thenReturn(Mono.just(HeadObjectResponse.builder().eTag("\"abc\"").contentLength(42L).build()));
+    when(bucketUseCase.headFile(any(), eq("user@example.com/video_frames.zip")))
+      .thenReturn(Mono.just(HeadObjectResponse.builder().eTag("\"zip\"").build()));
+    when(processedVideoIndex.find(any())).thenReturn(Mono.empty());
+    when(processedVideoIndex.put(any(), any())).thenReturn(Mono.empty());
+    when(bucketUseCase.getFile(any(), any(), any(), any())).thenReturn(Mono.just(Path.of("/tmp/video.mp4")));
+    when(bucketUseCase.uploadFile(any(), any(), any())).thenReturn(Mono.just(zipPath));
+    when(fileUseCase.processFile(any(), any())).thenReturn(Mono.just(zipPath));
+    when(fileProcessorQueue.sendMessage(any())).thenReturn(Mono.empty());
+    useCase.setDedup(true);
+
+    StepVerifier.create(useCase.process(message))
+      .expectNext(message)
+      .verifyComplete();
+
+    verify(fileUseCase).processFile(any(), any());
+    verify(processedVideoIndex).put(startsWith("\"abc\"|42|"), eq(processedZip("user@example.com/video_frames.zip", "\"zip\"")));
+  }
+
+  @Test
+  void shouldReprocessWhenIndexedFramesWereOverwritten() {
+    var first = UploadFileMessage.builder().fileName("video.mp4").status(UPLOAD_SUCCESS).build();
+    var second = UploadFileMessage.builder().fileName("copy.mp4").status(UPLOAD_SUCCESS).build();
+    var message = UploadQueueMessage.builder().email("user@example.com").files(List.of(first, second)).build();
+    var zipPath = Path.of("/tmp/video_frames.zip");
+
+    when(bucketUseCase.headFile(any(), any()))
+      .thenReturn(Mono.just(HeadObjectResponse.builder().eTag("\"abc\"").contentLength(42L).build()));
+    when(bucketUseCase.headFile(any(), eq("user@example.com/video_frames.zip")))
+      .thenReturn(Mono.just(HeadObjectResponse.builder().eTag("\"other frames\"").build()));
+    when(processedVideoIndex.find(any())).thenReturn(Mono.just(processedZip("user@example.com/video_frames.zip", "\"zip\"")));
+    when(processedVideoIndex.put(any(), any())).thenReturn(Mono.empty());
+    when(bucketUseCase.copyFile(any(), any(), any(), any())).thenReturn(Mono.error(new IllegalStateException("PreconditionFailed")));
+    when(bucketUseCase.getFile(any(), any(), any(), any())).thenReturn(Mono.just(Path.of("/tmp/video.mp4")));
+    when(bucketUseCase.uploadFile(any(), any(), any())).thenReturn(Mono.just(zipPath));
+    when(fileUseCase.processFile(any(), any())).thenReturn(Mono.just(zipPath));
+    when(fileProcessorQueue.sendMessage(any())).thenReturn(Mono.empty());
+    useCase.setDedup(true);
+
+    StepVerifier.create(useCase.process(message))
+      .expectNext(message)
+      .verifyComplete();
+
+    verify(bucketUseCase).copyFile(any(), eq("user@example.com/video_frames.zip"), eq("\"zip\""), eq("user@example.com/copy_frames.zip"));
+    verify(fileUseCase, times(2)).processFile(any(), any());
+  }
+
+  @Test
+  void shouldSkipFilesAlreadyPublished() {
+    var message = ledgerMessage();
+
+    when(jobLedger.find("id-1")).thenReturn(Mono.just(JobProgress.builder().stage(PUBLISHED).build()));
+    useCase.setLedger(true);
+
+    StepVerifier.create(useCase.process(message))
+      .expectNext(message)
+      .verifyComplete();
+
+    verify(bucketUseCase, never()).getFile(any(), any(), any(), any());
+    verify(fileProcessorQueue, never()).sendMessage(any());
+    assertEquals(1, registry.get("processor.ledger.resumed").tag("stage", "PUBLISHED").counter().count());
+  }
+
+  @Test
+  void shouldOnlyPublishFilesAlreadyUploaded() {
+    var message = ledgerMessage();
+
+    when(jobLedger.find("id-1")).thenReturn(Mono.just(JobProgress.builder().stage(UPLOADED).build()));
+    when(jobLedger.record(any(), any())).thenReturn(Mono.empty());
+    when(fileProcessorQueue.sendMessage(any())).thenReturn(Mono.empty());
+    useCase.setLedger(true);
+
+    StepVerifier.create(useCase.process(message))
+      .expectNext(message)
+      .verifyComplete();
+
+    verify(bucketUseCase, never()).uploadFile(any(), any(), any());
+    verify(fileProcessorQueue).sendMessage(contains("\"status\":\"PROCESSED\""));
+    verify(jobLedger).record(eq("id-1"), argThat(progress -> progress.getStage() == PUBLISHED));
+  }
+
+  @Test
+  void shouldUploadExtractedZipWithoutReprocessing(@TempDir Path tempDir) throws IOException {
+    var message = ledgerMessage();
+    var zipPath = Files.createFile(tempDir.resolve("video_frames.zip"));
+
+    when(jobLedger.find("id-1")).thenReturn(Mono.just(JobProgress.builder().stage(EXTRACTED).zipPath(zipPath.toString()).build()));
+    when(jobLedger.record(any(), any())).thenReturn(Mono.empty());
+    when(bucketUseCase.uploadFile(any(), eq("user@example.com/video_frames.zip"), eq(zipPath))).thenReturn(Mono.just(zipPath));
+    when(fileProcessorQueue.sendMessage(any())).thenReturn(Mono.empty());
+    useCase.setLedger(true);
+
+    StepVerifier.create(useCase.process(message))
+      .expectNext(message)
+      .verifyComplete();
+
+    verify(bucketUseCase, never()).getFile(any(), any(), any(), any());
+    verify(fileUseCase, never()).processFile(any(), any());
+    verify(jobLedger).record(eq("id-1"), argThat(progress -> progress.getStage() == UPLOADED));
+    verify(jobLedger).record(eq("id-1"), argThat(progress -> progress.getStage() == PUBLISHED));
+  }
+
+  @Test
+  void shouldRecordEachStageOfNewFiles() throws IOException {
+    var message = ledgerMessage();
+    var retainedDir = workspaceRoot.resolve("retained");
+
+    when(jobLedger.find("id-1")).thenReturn(Mono.empty());
+    when(jobLedger.record(any(), any())).thenReturn(Mono.empty());
+    when(bucketUseCase.getFile(any(), any(), any(), any())).thenAnswer(invocation -> Mono.just(Files.createFile(invocation.getArgument(3))));
+    when(bucketUseCase.uploadFile(any(), any(), any())).thenAnswer(invocation -> Mono.just(invocation.getArgument(2)));
+    when(fileUseCase.processFile(any(), any())).thenAnswer(invocation -> Mono.just(Files.write(
+      invocation.<Path>getArgument(0).resolveSibling("video_frames.zip"), new byte[]{1})));
+    when(fileProcessorQueue.sendMessage(any())).thenReturn(Mono.empty());
+    useCase.setLedger(true);
+
+    StepVerifier.create(useCase.process(message))
+      .expectNext(message)
+      .verifyComplete();
+
+    verify(jobLedger).record(eq("id-1"), argThat(progress -> progress.getStage() == EXTRACTED
+      && Path.of(progress.getZipPath()).getParent().equals(retainedDir)));
+    verify(bucketUseCase).uploadFile(any(), eq("user@example.com/video_frames.zip"), argThat(zip -> zip.startsWith(retainedDir)));
+    verify(jobLedger).record(eq("id-1"), argThat(progress -> progress.getStage() == UPLOADED));
+    verify(jobLedger).record(eq("id-1"), argThat(progress -> progress.getStage() == PUBLISHED));
+    try (var entries = Files.list(workspaceRoot); var retained = Files.list(retainedDir)) {
+      assertEquals(List.of(retainedDir), entries.toList());
+      assertEquals(0, retained.count());
+    }
+  }
+
+  private static UploadQueueMessage ledgerMessage() {
+    var uploadedFile = UploadFileMessage.builder()
+      .fileId("id-1")
+      .fileName("video.mp4")
+      .status(UPLOAD_SUCCESS)
+      .build();
+    return UploadQueueMessage.builder().email("user@example.com").files(List.of(uploadedFile)).build();
+  }
+
+  private static ProcessedZip processedZip(String zipKey, String eTag) {
+    return ProcessedZip.builder().zipKey(zipKey).eTag(eTag).build();
+  }
+
 }
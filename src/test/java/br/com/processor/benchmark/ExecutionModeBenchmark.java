@@ -0,0 +1,107 @@
+package br.com.processor.benchmark;
+
+import br.com.processor.app.usecases.FileUseCase;
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import br.com.processor.enums.ExecutionMode;
+import br.com.processor.infra.ffmpeg.CliFrameExtractor;
+import br.com.processor.infra.ffmpeg.FfmpegRunner;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import br.com.processor.infra.workspace.WorkspaceManager;
+import br.com.processor.infra.zip.ParallelZipWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes hundreds of small videos through workspace, ffmpeg extraction and zip at once, with the
+ * blocking stages on platform or virtual threads. Reports the peak platform thread count of each
+ * iteration alongside the timings. Requires ffmpeg on the PATH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExecutionModeBenchmark {
+
+  @Param({"PLATFORM", "VIRTUAL"})
+  private ExecutionMode mode;
+
+  @Param({"200"})
+  private int files;
+
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private Path workDir;
+  private Path video;
+  private long videoBytes;
+  private PipelineSchedulers schedulers;
+  private ParallelZipWriter zipWriter;
+  private FfmpegRunner ffmpegRunner;
+  private WorkspaceManager workspaceManager;
+  private FileUseCase fileUseCase;
+
+  @Setup
+  public void setUp() throws IOException, InterruptedException {
+    workDir = Files.createTempDirectory("execution-benchmark");
+    video = SampleVideos.generate(workDir.resolve("small.mp4"), 1, 160, 120);
+    videoBytes = Files.size(video);
+    schedulers = new PipelineSchedulers(mode);
+    zipWriter = new ParallelZipWriter(0);
+    var metrics = new PipelineMetrics(new SimpleMeterRegistry());
+    ffmpegRunner = new FfmpegRunner(0, false, Duration.ofMinutes(10), metrics, schedulers);
+    fileUseCase = new FileUseCase(new CliFrameExtractor(zipWriter, metrics, ffmpegRunner, schedulers), metrics, ffmpegRunner, schedulers);
+    workspaceManager = new WorkspaceManager(new SimpleMeterRegistry(), schedulers);
+    workspaceManager.setRoot(workDir.resolve("workspace").toString());
+    workspaceManager.setExpansionFactor(4);
+    workspaceManager.init();
+  }
+
+  @Setup(Level.Iteration)
+  public void resetPeakThreads() {
+    threads.resetPeakThreadCount();
+  }
+
+  @TearDown(Level.Iteration)
+  public void reportPeakThreads() {
+    System.out.printf("%n%s mode: peak of %d platform threads for %d files%n", mode, threads.getPeakThreadCount(), files);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    workspaceManager.close();
+    zipWriter.close();
+    ffmpegRunner.close();
+    schedulers.close();
+    SampleVideos.delete(workDir);
+  }
+
+  @Benchmark
+  public long processConcurrently() {
+    var profile = ExtractionProfile.builder().fps(5.0).build();
+    return Flux.range(0, files)
+      .flatMap(i -> workspaceManager.withWorkspace(videoBytes, workspace -> Mono.fromCallable(() -> Files.copy(video, workspace.resolve("video_" + i + ".mp4")))
+        .subscribeOn(schedulers.blocking())
+        .flatMap(copy -> fileUseCase.processFile(copy, profile))
+        .map(zip -> zip.toFile().length())), files)
+      .reduce(0L, Long::sum)
+      .block();
+  }
+
+}
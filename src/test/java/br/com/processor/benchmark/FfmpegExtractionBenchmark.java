@@ -0,0 +1,100 @@
+package br.com.processor.benchmark;
+
+import br.com.processor.app.ports.FrameExtractor;
+import br.com.processor.app.usecases.FileUseCase;
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import br.com.processor.infra.ffmpeg.CliFrameExtractor;
+import br.com.processor.infra.ffmpeg.FfmpegRunner;
+import br.com.processor.infra.ffmpeg.JavaCvFrameExtractor;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import br.com.processor.infra.zip.ParallelZipWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link FileUseCase#processFile} on generated short and longer samples for a few extraction
+ * profiles with the ffmpeg CLI (with and without segment-parallel extraction) and the in-process
+ * JavaCV extractor. Requires ffmpeg and ffprobe on the PATH to generate the samples.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FfmpegExtractionBenchmark {
+
+  @Param({"all", "fps1", "keyframes"})
+  private String profile;
+
+  @Param({"cli", "cli-segments", "javacv"})
+  private String engine;
+
+  @Param({"3", "20"})
+  private int clipSeconds;
+
+  private Path workDir;
+  private Path video;
+  private ParallelZipWriter zipWriter;
+  private FfmpegRunner ffmpegRunner;
+  private FileUseCase fileUseCase;
+
+  @Setup
+  public void setUp() throws IOException, InterruptedException {
+    workDir = Files.createTempDirectory("ffmpeg-benchmark");
+    video = SampleVideos.generate(workDir.resolve("benchmark_sample.mp4"), clipSeconds, 640, 360);
+    zipWriter = new ParallelZipWriter(0);
+    var metrics = new PipelineMetrics(new SimpleMeterRegistry());
+    ffmpegRunner = new FfmpegRunner(0, false, Duration.ofMinutes(10), metrics);
+    fileUseCase = new FileUseCase(frameExtractor(metrics), metrics, ffmpegRunner, PipelineSchedulers.platform());
+  }
+
+  @TearDown(Level.Invocation)
+  public void cleanFrames() throws IOException {
+    SampleVideos.delete(workDir.resolve("benchmark_sample_frames"));
+    Files.deleteIfExists(workDir.resolve("benchmark_sample_frames.zip"));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    zipWriter.close();
+    ffmpegRunner.close();
+    SampleVideos.delete(workDir);
+  }
+
+  @Benchmark
+  public Path extractFrames() {
+    return fileUseCase.processFile(video, profile()).block();
+  }
+
+  private FrameExtractor frameExtractor(PipelineMetrics metrics) {
+    if (engine.equals("javacv")) return new JavaCvFrameExtractor(metrics, ffmpegRunner);
+    var extractor = new CliFrameExtractor(zipWriter, metrics, ffmpegRunner, PipelineSchedulers.platform());
+    extractor.setSegmentsEnabled(engine.equals("cli-segments"));
+    extractor.setSegmentsMinDurationSeconds(10);
+    extractor.setSegmentsMinSegmentSeconds(4);
+    return extractor;
+  }
+
+  private ExtractionProfile profile() {
+    return switch (profile) {
+      case "fps1" -> ExtractionProfile.builder().fps(1.0).build();
+      case "keyframes" -> ExtractionProfile.builder().keyframesOnly(true).build();
+      default -> null;
+    };
+  }
+
+}
@@ -0,0 +1,69 @@
+package br.com.processor.benchmark;
+
+import br.com.processor.app.usecases.models.FileProcessorQueueMessage;
+import br.com.processor.app.usecases.models.UploadFileMessage;
+import br.com.processor.app.usecases.models.UploadQueueMessage;
+import br.com.processor.utils.JsonUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static br.com.processor.enums.FileStatusEnum.PROCESSED;
+import static br.com.processor.enums.UploadFileStatus.UPLOAD_SUCCESS;
+
+/**
+ * Compares {@link JsonUtils} with the previous mapper-per-call implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonUtilsBenchmark {
+
+  private String uploadJson;
+  private FileProcessorQueueMessage status;
+
+  @Setup
+  public void setUp() {
+    var files = IntStream.range(0, 10)
+      .mapToObj(i -> UploadFileMessage.builder().fileId("id-" + i).fileName("video-" + i + ".mp4").status(UPLOAD_SUCCESS).build())
+      .toList();
+    uploadJson = JsonUtils.toJson(UploadQueueMessage.builder().email("user@example.com").files(List.copyOf(files)).build());
+    status = FileProcessorQueueMessage.builder()
+      .email("user@example.com")
+      .fileId("id-0")
+      .fileName("video-0.mp4")
+      .zipFileName("video-0_frames.zip")
+      .status(PROCESSED)
+      .build();
+  }
+
+  @Benchmark
+  public UploadQueueMessage readSharedReader() {
+    return JsonUtils.fromJson(uploadJson, UploadQueueMessage.class);
+  }
+
+  @Benchmark
+  public UploadQueueMessage readMapperPerCall() throws Exception {
+    return new ObjectMapper().readValue(uploadJson, UploadQueueMessage.class);
+  }
+
+  @Benchmark
+  public String writeSharedWriter() {
+    return JsonUtils.toJson(status);
+  }
+
+  @Benchmark
+  public String writeMapperPerCall() throws Exception {
+    return new ObjectMapper().writeValueAsString(status);
+  }
+
+}
@@ -0,0 +1,175 @@
+package br.com.processor.benchmark;
+
+import br.com.processor.app.ports.FileProcessorQueue;
+import br.com.processor.app.ports.JobLedger;
+import br.com.processor.app.ports.ProcessedVideoIndex;
+import br.com.processor.app.usecases.BucketUseCase;
+import br.com.processor.app.usecases.FileUseCase;
+import br.com.processor.app.usecases.ProcessFileUseCase;
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import br.com.processor.app.usecases.models.JobProgress;
+import br.com.processor.app.usecases.models.UploadFileMessage;
+import br.com.processor.app.usecases.models.UploadQueueMessage;
+import br.com.processor.app.usecases.models.ProcessedZip;
+import br.com.processor.infra.ffmpeg.CliFrameExtractor;
+import br.com.processor.infra.ffmpeg.FfmpegRunner;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import br.com.processor.infra.s3.FakeS3Server;
+import br.com.processor.infra.scheduling.FileScheduler;
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import br.com.processor.infra.workspace.WorkspaceManager;
+import br.com.processor.infra.zip.ParallelZipWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static br.com.processor.enums.UploadFileStatus.UPLOAD_SUCCESS;
+import static br.com.processor.webui.constants.Constants.UPLOADS_BUCKET_NAME;
+
+/**
+ * Runs {@link ProcessFileUseCase#process} end to end: download from an in-process S3, ffmpeg
+ * extraction, zip and upload, with status messages going to a no-op queue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProcessFileBenchmark {
+
+  private static final String EMAIL = "benchmark@example.com";
+
+  @Param({"1", "4"})
+  private int files;
+
+  @Param({"false", "true"})
+  private boolean streaming;
+
+  private Path workDir;
+  private FakeS3Server s3Server;
+  private S3AsyncClient s3AsyncClient;
+  private ParallelZipWriter zipWriter;
+  private FfmpegRunner ffmpegRunner;
+  private WorkspaceManager workspaceManager;
+  private ProcessFileUseCase processFileUseCase;
+  private UploadQueueMessage message;
+
+  @Setup
+  public void setUp() throws IOException, InterruptedException {
+    workDir = Files.createTempDirectory("process-benchmark");
+    var video = Files.readAllBytes(SampleVideos.generate(workDir.resolve("sample.mp4"), 10, 640, 360));
+    s3Server = new FakeS3Server();
+    s3AsyncClient = S3AsyncClient.builder()
+      .endpointOverride(s3Server.endpoint())
+      .forcePathStyle(true)
+      .region(Region.US_EAST_1)
+      .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("benchmark", "benchmark")))
+      .build();
+
+    var bucketUseCase = new BucketUseCase(s3AsyncClient);
+    bucketUseCase.setPartSizeBytes(8 * 1024 * 1024);
+    bucketUseCase.setMultipartThresholdBytes(8 * 1024 * 1024);
+    bucketUseCase.setMaxConcurrency(4);
+    zipWriter = new ParallelZipWriter(0);
+    var metrics = new PipelineMetrics(new SimpleMeterRegistry());
+    var schedulers = PipelineSchedulers.platform();
+    ffmpegRunner = new FfmpegRunner(0, false, Duration.ofMinutes(10), metrics);
+    var fileUseCase = new FileUseCase(new CliFrameExtractor(zipWriter, metrics, ffmpegRunner, schedulers), metrics, ffmpegRunner, schedulers);
+    var fileScheduler = new FileScheduler(new SimpleMeterRegistry());
+    fileScheduler.init();
+    workspaceManager = new WorkspaceManager(new SimpleMeterRegistry(), schedulers);
+    workspaceManager.setRoot(workDir.resolve("workspace").toString());
+    workspaceManager.setExpansionFactor(4);
+    workspaceManager.init();
+    processFileUseCase = new ProcessFileUseCase(bucketUseCase, fileUseCase, new NoOpQueue(), new NoOpIndex(), new NoOpLedger(),
+      fileScheduler, workspaceManager, metrics);
+    processFileUseCase.setStreaming(streaming);
+
+    var uploads = IntStream.range(0, files)
+      .mapToObj(i -> UploadFileMessage.builder().fileId("id-" + i).fileName("benchmark_" + i + ".mp4").status(UPLOAD_SUCCESS).build())
+      .toList();
+    uploads.forEach(upload -> s3Server.putObject(UPLOADS_BUCKET_NAME, EMAIL + "/" + upload.getFileName(), video));
+    message = UploadQueueMessage.builder()
+      .email(EMAIL)
+      .files(List.copyOf(uploads))
+      .profile(ExtractionProfile.builder().fps(2.0).build())
+      .build();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    s3AsyncClient.close();
+    s3Server.close();
+    zipWriter.close();
+    ffmpegRunner.close();
+    workspaceManager.close();
+    SampleVideos.delete(workDir);
+  }
+
+  @Benchmark
+  public UploadQueueMessage process() {
+    return processFileUseCase.process(message).block();
+  }
+
+  private static class NoOpQueue implements FileProcessorQueue {
+
+    @Override
+    public Mono<SendMessageResponse> sendMessage(String body) {
+      return Mono.just(SendMessageResponse.builder().build());
+    }
+
+    @Override
+    public Mono<Void> flush() {
+      return Mono.empty();
+    }
+
+  }
+
+  private static class NoOpIndex implements ProcessedVideoIndex {
+
+    @Override
+    public Mono<ProcessedZip> find(String contentKey) {
+      return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> put(String contentKey, ProcessedZip zip) {
+      return Mono.empty();
+    }
+
+  }
+
+  private static class NoOpLedger implements JobLedger {
+
+    @Override
+    public Mono<JobProgress> find(String fileId) {
+      return Mono.empty();
+    }
+
+    @Override
+    public Mono<Void> record(String fileId, JobProgress progress) {
+      return Mono.empty();
+    }
+
+  }
+
+}
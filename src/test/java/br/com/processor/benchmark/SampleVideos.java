@@ -0,0 +1,37 @@
+package br.com.processor.benchmark;
+
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Generates synthetic MP4 samples with ffmpeg's test source, so benchmarks need no fixtures.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public class SampleVideos {
+
+  public static Path generate(Path target, int seconds, int width, int height) throws IOException, InterruptedException {
+    var command = List.of("ffmpeg", "-hide_banner", "-loglevel", "error", "-y",
+      "-f", "lavfi", "-i", String.format("testsrc2=duration=%d:size=%dx%d:rate=25", seconds, width, height),
+      "-g", "50", "-pix_fmt", "yuv420p", "-movflags", "+faststart", target.toString());
+    var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    var output = new String(process.getInputStream().readAllBytes());
+    if (process.waitFor() != 0) throw new IOException("Could not generate sample video: " + output);
+    return target;
+  }
+
+  public static void delete(Path path) throws IOException {
+    if (!Files.exists(path)) return;
+    try (Stream<Path> files = Files.walk(path)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(file);
+    }
+  }
+
+}
@@ -0,0 +1,65 @@
+package br.com.processor.benchmark;
+
+import br.com.processor.infra.zip.ParallelZipWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zips synthetic frames the way {@code FileUseCase} does, for several frame counts and sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ZipBenchmark {
+
+  @Param({"100", "1000"})
+  private int frames;
+
+  @Param({"16384", "262144"})
+  private int frameBytes;
+
+  private Path workDir;
+  private List<ParallelZipWriter.Entry> entries;
+  private ParallelZipWriter writer;
+
+  @Setup
+  public void setUp() throws IOException {
+    workDir = Files.createTempDirectory("zip-benchmark");
+    var random = new Random(frames);
+    var content = new byte[frameBytes];
+    entries = new ArrayList<>(frames);
+    for (int i = 1; i <= frames; i++) {
+      random.nextBytes(content);
+      var frame = Files.write(workDir.resolve(String.format("frame_%06d.jpg", i)), content);
+      entries.add(new ParallelZipWriter.Entry(frame.getFileName().toString(), frame));
+    }
+    writer = new ParallelZipWriter(0);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    writer.close();
+    SampleVideos.delete(workDir);
+  }
+
+  @Benchmark
+  public Path zipFrames() throws IOException {
+    return writer.write(entries, workDir.resolve("frames.zip"));
+  }
+
+}
@@ -0,0 +1,62 @@
+package br.com.processor.infra.autoscaling;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControllerTest {
+
+  private static final long GIB = 1024L * 1024 * 1024;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private AdmissionController admissionController;
+
+  @BeforeEach
+  void setUp() {
+    admissionController = new AdmissionController(registry);
+    admissionController.setMaxCpuLoad(0.9);
+    admissionController.setMinFreeDiskBytes(GIB);
+    admissionController.setPollIntervalMs(10);
+    admissionController.init();
+  }
+
+  @Test
+  void shouldAdmitWithinLimits() {
+    admissionController.setCpuLoad(() -> 0.5);
+    admissionController.setFreeDisk(() -> 2 * GIB);
+
+    assertTrue(admissionController.admits());
+    assertEquals(0, registry.find("processor.admission.saturated").gauge().value());
+  }
+
+  @Test
+  void shouldRejectWhenCpuOrDiskIsSaturated() {
+    admissionController.setCpuLoad(() -> 0.95);
+    admissionController.setFreeDisk(() -> 2 * GIB);
+    assertFalse(admissionController.admits());
+    assertEquals(1, registry.find("processor.admission.saturated").gauge().value());
+
+    admissionController.setCpuLoad(() -> 0.1);
+    admissionController.setFreeDisk(() -> GIB / 2);
+    assertFalse(admissionController.admits());
+  }
+
+  @Test
+  void shouldWaitUntilResourcesFreeUp() throws InterruptedException {
+    var checks = new AtomicInteger();
+    admissionController.setCpuLoad(() -> checks.incrementAndGet() < 3 ? 1.0 : 0.2);
+    admissionController.setFreeDisk(() -> 2 * GIB);
+
+    admissionController.awaitAdmission();
+
+    assertEquals(3, checks.get());
+    assertEquals(0, registry.find("processor.admission.saturated").gauge().value());
+  }
+
+}
@@ -0,0 +1,134 @@
+package br.com.processor.infra.autoscaling;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesResponse;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class BacklogMonitorTest {
+
+  @Mock
+  private SqsAsyncClient sqsAsyncClient;
+
+  @Spy
+  private MeterRegistry registry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private BacklogMonitor backlogMonitor;
+
+  private AutoCloseable closeable;
+
+  @BeforeEach
+  void setUp() {
+    closeable = openMocks(this);
+    backlogMonitor.setUploadsEventsQueueUrl("http://localhost/uploads");
+    backlogMonitor.setConcurrency(2);
+    backlogMonitor.setTargetDrainSeconds(300);
+    backlogMonitor.setDefaultMessageSeconds(60);
+    backlogMonitor.setMinWorkers(1);
+    backlogMonitor.setMaxWorkers(10);
+  }
+
+  @AfterEach
+  void closeService() throws Exception {
+    backlogMonitor.stop();
+    closeable.close();
+  }
+
+  @Test
+  void shouldSizeWorkersFromBacklogAndDefaultProcessingTime() {
+    queueDepth(15, 5);
+
+    StepVerifier.create(backlogMonitor.refresh())
+      .expectNext(2)
+      .verifyComplete();
+
+    var request = ArgumentCaptor.forClass(GetQueueAttributesRequest.class);
+    verify(sqsAsyncClient).getQueueAttributes(request.capture());
+    assertEquals("http://localhost/uploads", request.getValue().queueUrl());
+    assertTrue(request.getValue().attributeNames().contains(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES));
+  }
+
+  @Test
+  void shouldAddLaneQueueBacklogs() {
+    backlogMonitor.setSmallQueueUrl("http://localhost/uploads-small");
+    backlogMonitor.setLargeQueueUrl("http://localhost/uploads-large");
+    queueDepth(15, 5);
+
+    StepVerifier.create(backlogMonitor.refresh())
+      .expectNext(6)
+      .verifyComplete();
+
+    var request = ArgumentCaptor.forClass(GetQueueAttributesRequest.class);
+    verify(sqsAsyncClient, times(3)).getQueueAttributes(request.capture());
+    assertEquals(List.of("http://localhost/uploads", "http://localhost/uploads-small", "http://localhost/uploads-large"),
+      request.getAllValues().stream().map(GetQueueAttributesRequest::queueUrl).toList());
+  }
+
+  @Test
+  void shouldFollowObservedProcessingTime() {
+    backlogMonitor.recordProcessingTime(Duration.ofSeconds(180));
+
+    assertEquals(6, backlogMonitor.desiredWorkers(20));
+
+    backlogMonitor.recordProcessingTime(Duration.ofSeconds(30));
+
+    assertEquals(5, backlogMonitor.desiredWorkers(20));
+  }
+
+  @Test
+  void shouldClampToWorkerBounds() {
+    assertEquals(1, backlogMonitor.desiredWorkers(0));
+    assertEquals(10, backlogMonitor.desiredWorkers(1_000));
+  }
+
+  @Test
+  void shouldPublishDesiredWorkersGauge() {
+    queueDepth(100, 0);
+    backlogMonitor.setPollIntervalSeconds(3600);
+
+    backlogMonitor.start();
+
+    var gauge = registry.find("processor.autoscaling.desired.workers").gauge();
+    StepVerifier.create(Mono.fromCallable(gauge::value)
+        .filter(value -> value == 10)
+        .repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(50)).take(40)))
+      .expectNext(10.0)
+      .verifyComplete();
+    assertEquals(100, registry.find("processor.queue.visible").gauge().value());
+  }
+
+  private void queueDepth(long visible, long notVisible) {
+    when(sqsAsyncClient.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+      .thenReturn(completedFuture(GetQueueAttributesResponse.builder()
+        .attributes(Map.of(
+          QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, String.valueOf(visible),
+          QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE, String.valueOf(notVisible)))
+        .build()));
+  }
+
+}
@@ -0,0 +1,50 @@
+package br.com.processor.infra.aws;
+
+import br.com.processor.infra.s3.FakeS3Server;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AwsHttpClientFactoryTest {
+
+  @Test
+  void shouldServeClientsFromSharedEventLoopAgainstEndpointOverride() throws Exception {
+    try (var server = new FakeS3Server();
+         var factory = AwsHttpClientFactory.builder()
+           .eventLoopThreads(2)
+           .maxPendingConnectionAcquires(100)
+           .connectionAcquisitionTimeout(Duration.ofSeconds(5))
+           .connectionTimeout(Duration.ofSeconds(1))
+           .readTimeout(Duration.ofSeconds(5))
+           .writeTimeout(Duration.ofSeconds(5))
+           .tcpKeepAlive(true)
+           .build();
+         var writer = client(factory, server);
+         var reader = client(factory, server)) {
+
+      writer.putObject(request -> request.bucket("bucket").key("key"), AsyncRequestBody.fromString("content")).join();
+      var content = reader.getObject(request -> request.bucket("bucket").key("key"), AsyncResponseTransformer.toBytes()).join();
+
+      assertEquals("content", content.asUtf8String());
+    }
+  }
+
+  private static S3AsyncClient client(AwsHttpClientFactory factory, FakeS3Server server) {
+    return S3AsyncClient.builder()
+      .region(Region.US_EAST_1)
+      .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+      .httpClientBuilder(factory.httpClient(4))
+      .endpointOverride(server.endpoint())
+      .forcePathStyle(true)
+      .build();
+  }
+
+}
@@ -0,0 +1,70 @@
+package br.com.processor.infra.dedup;
+
+import br.com.processor.app.usecases.models.ProcessedZip;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LocalProcessedVideoIndexTest {
+
+  @TempDir
+  private Path tempDir;
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntries() throws IOException {
+    var index = index(2, "");
+
+    index.put("a", zip("a.zip")).block();
+    index.put("b", zip("b.zip")).block();
+    index.find("a").block();
+    index.put("c", zip("c.zip")).block();
+
+    StepVerifier.create(index.find("a")).expectNext(zip("a.zip")).verifyComplete();
+    StepVerifier.create(index.find("b")).verifyComplete();
+    StepVerifier.create(index.find("c")).expectNext(zip("c.zip")).verifyComplete();
+  }
+
+  @Test
+  void shouldReloadAndCompactPersistentStore() throws IOException {
+    var store = tempDir.resolve("index.tsv");
+    var index = index(10, store.toString());
+    index.put("a", zip("first.zip")).block();
+    index.put("a", zip("second.zip")).block();
+    index.put("a", zip("third.zip")).block();
+
+    var reloaded = index(10, store.toString());
+
+    StepVerifier.create(reloaded.find("a")).expectNext(zip("third.zip")).verifyComplete();
+    assertEquals(1, Files.readAllLines(store).size());
+  }
+
+  @Test
+  void shouldDropStoredEntriesWithoutETag() throws IOException {
+    var store = tempDir.resolve("index.tsv");
+    Files.writeString(store, "a\tuser/a_frames.zip\nb\t{\"zipKey\":\"user/b_frames.zip\"}\n");
+
+    var index = index(10, store.toString());
+
+    StepVerifier.create(index.find("a")).verifyComplete();
+    StepVerifier.create(index.find("b")).verifyComplete();
+  }
+
+  private static ProcessedZip zip(String zipKey) {
+    return ProcessedZip.builder().zipKey(zipKey).eTag("\"" + zipKey + "\"").build();
+  }
+
+  private static LocalProcessedVideoIndex index(int maxEntries, String storePath) throws IOException {
+    var index = new LocalProcessedVideoIndex();
+    index.setMaxEntries(maxEntries);
+    index.setStorePath(storePath);
+    index.init();
+    return index;
+  }
+
+}
@@ -0,0 +1,124 @@
+package br.com.processor.infra.ffmpeg;
+
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import br.com.processor.infra.zip.ParallelZipWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class CliFrameExtractorTest {
+
+  private static final ExtractionProfile SCENES_WITHOUT_DUPLICATES = ExtractionProfile.builder()
+    .fps(5.0)
+    .sceneThreshold(0.3)
+    .dedupDistance(2)
+    .build();
+
+  @TempDir
+  private Path tempDir;
+
+  @Mock
+  private FfmpegRunner ffmpegRunner;
+
+  private final ParallelZipWriter zipWriter = new ParallelZipWriter(2);
+  private CliFrameExtractor extractor;
+  private AutoCloseable closeable;
+
+  @BeforeEach
+  void setUp() {
+    closeable = openMocks(this);
+    extractor = new CliFrameExtractor(zipWriter, new PipelineMetrics(new SimpleMeterRegistry()), ffmpegRunner,
+      PipelineSchedulers.platform());
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    zipWriter.close();
+    closeable.close();
+  }
+
+  @Test
+  void shouldDropNearDuplicatesAmongSelectedScenes() throws IOException {
+    extractsFrames(4, thumbnails(0, 0, 20, 20));
+
+    StepVerifier.create(extractor.extract(tempDir.resolve("video.mp4"), SCENES_WITHOUT_DUPLICATES, tempDir.resolve("video_frames.zip")))
+      .expectNextCount(1)
+      .verifyComplete();
+
+    assertEquals(List.of("frame_000001.jpg", "frame_000002.jpg", FfmpegCommand.MANIFEST), entries(tempDir.resolve("video_frames.zip")));
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<String>> command = ArgumentCaptor.forClass(List.class);
+    verify(ffmpegRunner).run(command.capture(), any());
+    var hashOutput = command.getValue().indexOf("[hashes]");
+    assertEquals(List.of("[hashes]", "-fps_mode", "vfr", "-f", "rawvideo"), command.getValue().subList(hashOutput, hashOutput + 5));
+  }
+
+  @Test
+  void shouldKeepEveryFrameWhenHashesDoNotMatchFrames() throws IOException {
+    extractsFrames(4, thumbnails(0, 0, 0, 0, 0, 0));
+
+    StepVerifier.create(extractor.extract(tempDir.resolve("video.mp4"), SCENES_WITHOUT_DUPLICATES, tempDir.resolve("video_frames.zip")))
+      .expectNextCount(1)
+      .verifyComplete();
+
+    assertEquals(5, entries(tempDir.resolve("video_frames.zip")).size());
+  }
+
+  /** Stands in for ffmpeg: writes {@code frames} JPEGs and their timestamps, and emits {@code hashes}. */
+  private void extractsFrames(int frames, byte[] hashes) {
+    when(ffmpegRunner.run(anyList(), any())).thenAnswer(invocation -> {
+      List<String> command = invocation.getArgument(0);
+      var output = Path.of(command.getLast());
+      var timestamps = new StringBuilder();
+      for (int i = 0; i < frames; i++) {
+        Files.write(output.resolveSibling(String.format(FfmpegCommand.FRAME_PATTERN, i + 1)), new byte[] {(byte) i});
+        timestamps.append(i).append(' ').append(i * 0.2).append('\n');
+      }
+      Files.writeString(Path.of(command.get(command.indexOf("-stats_enc_pre") + 1)), timestamps);
+      return Mono.just(hashes);
+    });
+  }
+
+  /** Thumbnails whose columns rise by {@code step}; flat (0) and rising ones are far apart. */
+  private static byte[] thumbnails(int... steps) {
+    var gray = new byte[steps.length * FrameDeduplicator.HASH_BYTES];
+    for (int frame = 0; frame < steps.length; frame++) {
+      for (int i = 0; i < FrameDeduplicator.HASH_BYTES; i++) {
+        gray[frame * FrameDeduplicator.HASH_BYTES + i] = (byte) (i % FrameDeduplicator.HASH_WIDTH * steps[frame]);
+      }
+    }
+    return gray;
+  }
+
+  private static List<String> entries(Path zip) throws IOException {
+    try (var file = new ZipFile(zip.toFile())) {
+      var names = new ArrayList<String>();
+      Collections.list(file.entries()).forEach(entry -> names.add(entry.getName()));
+      return names;
+    }
+  }
+
+}
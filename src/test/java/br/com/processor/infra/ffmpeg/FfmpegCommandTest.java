@@ -0,0 +1,79 @@
+package br.com.processor.infra.ffmpeg;
+
+import br.com.processor.app.exception.BusinessException;
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FfmpegCommandTest {
+
+  @Test
+  void shouldKeepDefaultCommandWhenProfileIsMissing() {
+    var command = FfmpegCommand.extractFrames("/data/my video.mp4", "/tmp/out dir/frame_%06d.jpg", null);
+
+    assertEquals(List.of("ffmpeg", "-hide_banner", "-loglevel", "error",
+      "-i", "/data/my video.mp4", "/tmp/out dir/frame_%06d.jpg"), command);
+  }
+
+  @Test
+  void shouldTranslateProfileIntoArguments() {
+    var profile = ExtractionProfile.builder()
+      .fps(0.5)
+      .maxWidth(320)
+      .quality(5)
+      .startSeconds(10.0)
+      .endSeconds(70.0)
+      .build();
+
+    var command = FfmpegCommand.extractFrames("in.mp4", "frame_%06d.jpg", profile);
+
+    assertEquals(List.of("ffmpeg", "-hide_banner", "-loglevel", "error",
+      "-ss", "10.000", "-i", "in.mp4", "-t", "60.000",
+      "-vf", "fps=0.500,scale=w='min(320,iw)':h=-2",
+      "-q:v", "5", "frame_%06d.jpg"), command);
+  }
+
+  @Test
+  void shouldSampleKeyframesOnlyFromPipe() {
+    var profile = ExtractionProfile.builder().keyframesOnly(true).maxWidth(640).maxHeight(360).build();
+
+    var command = FfmpegCommand.streamFrames(profile);
+
+    assertEquals(List.of("ffmpeg", "-hide_banner", "-loglevel", "error",
+      "-skip_frame", "nokey", "-i", "pipe:0",
+      "-vf", "scale=w='min(640,iw)':h='min(360,ih)':force_original_aspect_ratio=decrease:force_divisible_by=2",
+      "-fps_mode", "vfr", "-f", "image2pipe", "-c:v", "mjpeg", "pipe:1"), command);
+  }
+
+  @Test
+  void shouldSelectScenesAndHashFramesOnSecondOutput() {
+    var profile = ExtractionProfile.builder().fps(5.0).sceneThreshold(0.3).dedupDistance(4).startSeconds(10.0).endSeconds(40.0).build();
+
+    var command = FfmpegCommand.extractSelectedFrames("in.mp4", "frame_%06d.jpg", "ts.txt", profile);
+
+    assertEquals(List.of("ffmpeg", "-hide_banner", "-loglevel", "error",
+      "-ss", "10.000", "-t", "30.000", "-i", "in.mp4",
+      "-filter_complex", "[0:v]fps=5.000,select='eq(n,0)+gt(scene,0.300)',split=2[frames][hash];[hash]scale=9:8:flags=area,format=gray[hashes]",
+      "-map", "[hashes]", "-fps_mode", "vfr", "-f", "rawvideo", "pipe:1", "-map", "[frames]", "-fps_mode", "vfr",
+      "-stats_enc_pre", "ts.txt", "-stats_enc_pre_fmt", "{n} {t}", "frame_%06d.jpg"), command);
+    assertTrue(FfmpegCommand.selectsFrames(profile));
+    assertFalse(FfmpegCommand.selectsFrames(ExtractionProfile.builder().fps(5.0).build()));
+  }
+
+  @Test
+  void shouldRejectInvalidProfiles() {
+    assertThrows(BusinessException.class, () -> FfmpegCommand.validate(ExtractionProfile.builder().fps(0.0).build()));
+    assertThrows(BusinessException.class, () -> FfmpegCommand.validate(ExtractionProfile.builder().quality(1).build()));
+    assertThrows(BusinessException.class, () -> FfmpegCommand.validate(ExtractionProfile.builder().maxWidth(8).build()));
+    assertThrows(BusinessException.class, () -> FfmpegCommand.validate(ExtractionProfile.builder().startSeconds(5.0).endSeconds(5.0).build()));
+    assertThrows(BusinessException.class, () -> FfmpegCommand.validate(ExtractionProfile.builder().sceneThreshold(0.0).build()));
+    assertThrows(BusinessException.class, () -> FfmpegCommand.validate(ExtractionProfile.builder().dedupDistance(65).build()));
+  }
+
+}
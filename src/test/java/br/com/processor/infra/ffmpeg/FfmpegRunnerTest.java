@@ -0,0 +1,138 @@
+package br.com.processor.infra.ffmpeg;
+
+import br.com.processor.app.exception.BusinessException;
+import br.com.processor.enums.ExecutionMode;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FfmpegRunnerTest {
+
+  @TempDir
+  private Path tempDir;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final PipelineMetrics metrics = new PipelineMetrics(registry);
+  private FfmpegRunner runner;
+  private PipelineSchedulers schedulers;
+
+  @AfterEach
+  void tearDown() {
+    if (runner != null) runner.close();
+    if (schedulers != null) schedulers.close();
+  }
+
+  @Test
+  void shouldReturnOutputAndReportFailuresWithStderr() {
+    runner = new FfmpegRunner(2, false, Duration.ofSeconds(10), metrics);
+
+    StepVerifier.create(runner.run(List.of("sh", "-c", "echo 12.5")))
+      .expectNext("12.5\n")
+      .verifyComplete();
+    StepVerifier.create(runner.run(List.of("sh", "-c", "echo broken input >&2; exit 1")))
+      .expectErrorSatisfies(error -> {
+        assertTrue(error instanceof BusinessException);
+        assertEquals("sh failed: broken input", error.getMessage());
+      })
+      .verify();
+  }
+
+  @Test
+  void shouldCapConcurrentProcesses() {
+    runner = new FfmpegRunner(1, false, Duration.ofSeconds(10), metrics);
+    var start = System.nanoTime();
+
+    StepVerifier.create(Flux.range(0, 3).flatMap(i -> runner.run(List.of("sh", "-c", "sleep 0.3"))))
+      .expectNextCount(3)
+      .verifyComplete();
+
+    assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() >= 900);
+    assertEquals(0, registry.find("processor.ffmpeg.running").gauge().value());
+    assertEquals(0, registry.find("processor.ffmpeg.queued").gauge().value());
+  }
+
+  @Test
+  void shouldWaitForProcessesOnVirtualThreadsInVirtualMode() {
+    schedulers = new PipelineSchedulers(ExecutionMode.VIRTUAL);
+    runner = new FfmpegRunner(2, false, Duration.ofSeconds(10), metrics, schedulers);
+    Set<Boolean> processThreads = ConcurrentHashMap.newKeySet();
+
+    StepVerifier.create(Flux.range(0, 50).flatMap(i -> runner.run(List.of("sh", "-c", "echo " + i), process -> Mono.fromCallable(() -> {
+        processThreads.add(Thread.currentThread().isVirtual());
+        return process.getInputStream().readAllBytes();
+      })), 50))
+      .expectNextCount(50)
+      .verifyComplete();
+    StepVerifier.create(runner.call("decode", () -> Thread.currentThread().isVirtual()))
+      .expectNext(false)
+      .verifyComplete();
+
+    assertEquals(Set.of(true), processThreads);
+    assertEquals(0, registry.find("processor.ffmpeg.queued").gauge().value());
+  }
+
+  @Test
+  void shouldKillProcessTreeOnTimeout() throws IOException, InterruptedException {
+    runner = new FfmpegRunner(1, false, Duration.ofSeconds(1), metrics);
+    var pidFile = tempDir.resolve("child.pid");
+
+    StepVerifier.create(runner.run(List.of("sh", "-c", "sleep 30 & echo $! > " + pidFile + "; wait")))
+      .expectErrorMessage("sh timed out after 1s")
+      .verify(Duration.ofSeconds(5));
+
+    var child = Long.parseLong(Files.readString(pidFile).trim());
+    for (int i = 0; i < 50 && running(child); i++) Thread.sleep(20);
+    assertFalse(running(child));
+    assertEquals(1, registry.find("processor.ffmpeg.killed").counter().count());
+    StepVerifier.create(runner.run(List.of("sh", "-c", "echo free")))
+      .expectNext("free\n")
+      .verifyComplete();
+  }
+
+  @Test
+  void shouldAddProgressAndPinnedThreadsToFfmpegOnly() {
+    var command = List.of("ffmpeg", "-hide_banner", "-i", "in.mp4", "out_%06d.jpg");
+
+    assertEquals(List.of("ffmpeg", "-nostats", "-progress", "pipe:2", "-filter_threads", "2", "-threads", "2",
+      "-hide_banner", "-i", "in.mp4", "-threads", "2", "out_%06d.jpg"), FfmpegRunner.prepare(command, 2));
+    assertEquals(List.of("ffmpeg", "-nostats", "-progress", "pipe:2",
+      "-hide_banner", "-i", "in.mp4", "out_%06d.jpg"), FfmpegRunner.prepare(command, 0));
+    var probe = FfmpegCommand.probeDuration("in.mp4");
+    assertEquals(probe, FfmpegRunner.prepare(probe, 2));
+  }
+
+  @Test
+  void shouldParseProgressSpeed() {
+    assertEquals(2.5, FfmpegRunner.parseSpeed("speed=2.5x"));
+    assertEquals(14.1, FfmpegRunner.parseSpeed("speed=  14.1x"));
+    assertNull(FfmpegRunner.parseSpeed("speed=N/A"));
+    assertNull(FfmpegRunner.parseSpeed("frame=12"));
+  }
+
+  private static boolean running(long pid) throws IOException {
+    var stat = Path.of("/proc", String.valueOf(pid), "stat");
+    if (!Files.exists(stat)) return false;
+    var fields = Files.readString(stat);
+    return fields.charAt(fields.lastIndexOf(')') + 2) != 'Z';
+  }
+
+}
@@ -0,0 +1,55 @@
+package br.com.processor.infra.ffmpeg;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrameDeduplicatorTest {
+
+  @Test
+  void shouldHashHorizontalGradients() {
+    var rising = new byte[FrameDeduplicator.HASH_BYTES];
+    for (int i = 0; i < rising.length; i++) rising[i] = (byte) (i % FrameDeduplicator.HASH_WIDTH * 20);
+
+    assertEquals(-1L, FrameDeduplicator.hash(rising, 0));
+    assertEquals(0L, FrameDeduplicator.hash(new byte[FrameDeduplicator.HASH_BYTES], 0));
+  }
+
+  @Test
+  void shouldDownscaleLumaBeforeHashing() {
+    int width = 90;
+    int height = 40;
+    int stride = 96;
+    var luma = ByteBuffer.allocate(stride * height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) luma.put(y * stride + x, (byte) (x * 2));
+    }
+
+    assertEquals(-1L, FrameDeduplicator.hash(luma, width, height, stride));
+  }
+
+  @Test
+  void shouldCompareAgainstLastKeptFrame() {
+    var deduplicator = new FrameDeduplicator(2);
+
+    assertTrue(deduplicator.keep(0b0000L));
+    assertFalse(deduplicator.keep(0b0011L));
+    assertTrue(deduplicator.keep(0b0111L));
+    assertFalse(deduplicator.keep(0b0110L));
+    assertEquals(2, deduplicator.dropped());
+  }
+
+  @Test
+  void shouldKeepEveryFrameWithoutDistance() {
+    var deduplicator = new FrameDeduplicator(null);
+
+    assertTrue(deduplicator.keep(1L));
+    assertTrue(deduplicator.keep(1L));
+    assertEquals(0, deduplicator.dropped());
+  }
+
+}
@@ -0,0 +1,150 @@
+package br.com.processor.infra.ffmpeg;
+
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bytedeco.ffmpeg.global.avcodec;
+import org.bytedeco.javacv.FFmpegFrameRecorder;
+import org.bytedeco.javacv.Java2DFrameConverter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JavaCvFrameExtractorTest {
+
+  private static final int FRAME_RATE = 25;
+  private static final int SECONDS = 3;
+
+  @TempDir
+  private static Path tempDir;
+
+  private static Path video;
+  private static FfmpegRunner ffmpegRunner;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @BeforeAll
+  static void generateVideo() throws IOException {
+    video = tempDir.resolve("sample.mp4");
+    try (var recorder = new FFmpegFrameRecorder(video.toFile(), 320, 240);
+         var converter = new Java2DFrameConverter()) {
+      recorder.setFormat("mp4");
+      recorder.setVideoCodec(avcodec.AV_CODEC_ID_MPEG4);
+      recorder.setFrameRate(FRAME_RATE);
+      recorder.setGopSize(FRAME_RATE);
+      recorder.setVideoOption("sc_threshold", "1000000000");
+      recorder.start();
+      var image = new BufferedImage(320, 240, BufferedImage.TYPE_3BYTE_BGR);
+      for (int i = 0; i < FRAME_RATE * SECONDS; i++) {
+        var graphics = image.createGraphics();
+        graphics.setColor(Color.DARK_GRAY);
+        graphics.fillRect(0, 0, 320, 240);
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(i * 3, 100, 40, 40);
+        graphics.dispose();
+        recorder.record(converter.convert(image));
+      }
+    }
+    ffmpegRunner = new FfmpegRunner(2, false, Duration.ofMinutes(1), new PipelineMetrics(new SimpleMeterRegistry()));
+  }
+
+  @AfterAll
+  static void tearDown() {
+    ffmpegRunner.close();
+  }
+
+  @Test
+  void shouldZipEveryFrameAsJpeg() throws IOException {
+    var zip = extract(new ExtractionProfile(), "all.zip");
+
+    try (var zipFile = new ZipFile(zip.toFile())) {
+      assertEquals(FRAME_RATE * SECONDS, zipFile.size());
+      var first = zipFile.getEntry("frame_000001.jpg");
+      assertEquals(ZipEntry.STORED, first.getMethod());
+      var image = ImageIO.read(zipFile.getInputStream(first));
+      assertEquals(320, image.getWidth());
+      var square = new Color(image.getRGB(20, 120));
+      assertTrue(square.getRed() > 200 && square.getGreen() > 150 && square.getBlue() < 80, "square: " + square);
+    }
+    assertEquals(FRAME_RATE * SECONDS, registry.find("processor.frames").counter().count());
+  }
+
+  @Test
+  void shouldApplyFpsAndScaleFilters() throws IOException {
+    var zip = extract(ExtractionProfile.builder().fps(1.0).maxWidth(160).build(), "fps.zip");
+
+    try (var zipFile = new ZipFile(zip.toFile())) {
+      assertTrue(zipFile.size() >= SECONDS && zipFile.size() <= SECONDS + 1, "frames: " + zipFile.size());
+      var image = ImageIO.read(zipFile.getInputStream(zipFile.getEntry("frame_000001.jpg")));
+      assertEquals(160, image.getWidth());
+      assertEquals(120, image.getHeight());
+    }
+  }
+
+  @Test
+  void shouldKeepOnlyKeyframes() throws IOException {
+    var zip = extract(ExtractionProfile.builder().keyframesOnly(true).build(), "keyframes.zip");
+
+    try (var zipFile = new ZipFile(zip.toFile())) {
+      assertEquals(SECONDS, zipFile.size());
+    }
+  }
+
+  @Test
+  void shouldHonourStartAndEnd() throws IOException {
+    var zip = extract(ExtractionProfile.builder().startSeconds(1.0).endSeconds(2.0).build(), "window.zip");
+
+    try (var zipFile = new ZipFile(zip.toFile())) {
+      assertEquals(FRAME_RATE, zipFile.size());
+    }
+  }
+
+  @Test
+  void shouldEncodeWithRequestedQuality() throws IOException {
+    var best = extract(ExtractionProfile.builder().quality(2).build(), "best.zip");
+    var worst = extract(ExtractionProfile.builder().quality(31).build(), "worst.zip");
+
+    try (var bestZip = new ZipFile(best.toFile()); var worstZip = new ZipFile(worst.toFile())) {
+      assertTrue(bestZip.getEntry("frame_000001.jpg").getSize() > worstZip.getEntry("frame_000001.jpg").getSize());
+    }
+  }
+
+  @Test
+  void shouldDropNearDuplicatesAndRecordTimestamps() throws IOException {
+    var zip = extract(ExtractionProfile.builder().fps(5.0).dedupDistance(64).startSeconds(1.0).build(), "dedup.zip");
+
+    try (var zipFile = new ZipFile(zip.toFile())) {
+      assertEquals(2, zipFile.size());
+      assertNotNull(zipFile.getEntry("frame_000001.jpg"));
+      var manifest = new String(zipFile.getInputStream(zipFile.getEntry(FfmpegCommand.MANIFEST)).readAllBytes(), StandardCharsets.UTF_8);
+      assertEquals("frame,seconds\nframe_000001.jpg,1.000\n", manifest);
+    }
+    assertEquals(9, registry.find("processor.frames.dropped").counter().count());
+  }
+
+  private Path extract(ExtractionProfile profile, String zipName) {
+    var extractor = new JavaCvFrameExtractor(new PipelineMetrics(registry), ffmpegRunner);
+    var zipPath = tempDir.resolve(zipName);
+    StepVerifier.create(extractor.extract(video, profile, zipPath))
+      .expectNext(zipPath)
+      .verifyComplete();
+    return zipPath;
+  }
+
+}
@@ -0,0 +1,73 @@
+package br.com.processor.infra.ffmpeg;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MjpegFrameReaderTest {
+
+  @Test
+  void shouldSplitConcatenatedJpegFrames() throws IOException {
+    var first = jpeg(32, 24, 0x336699);
+    var second = jpeg(64, 48, 0xCC3300);
+    var stream = new ByteArrayOutputStream();
+    stream.write(first);
+    stream.write(second);
+
+    var reader = new MjpegFrameReader(new ByteArrayInputStream(stream.toByteArray()));
+
+    assertArrayEquals(first, reader.next());
+    assertArrayEquals(second, reader.next());
+    assertNull(reader.next());
+  }
+
+  @Test
+  void shouldIgnoreEndMarkerBytesInsideSegmentsAndEntropyData() throws IOException {
+    var frame = bytes(
+      0xFF, 0xD8,
+      0xFF, 0xFE, 0x00, 0x06, 0xFF, 0xD9, 0xFF, 0xD9,
+      0xFF, 0xDA, 0x00, 0x04, 0x01, 0x02,
+      0x10, 0xFF, 0x00, 0x20, 0xFF, 0xD0, 0x30,
+      0xFF, 0xD9);
+
+    var reader = new MjpegFrameReader(new ByteArrayInputStream(frame));
+
+    assertArrayEquals(frame, reader.next());
+    assertNull(reader.next());
+  }
+
+  @Test
+  void shouldFailOnTruncatedFrame() {
+    var reader = new MjpegFrameReader(new ByteArrayInputStream(bytes(0xFF, 0xD8, 0xFF, 0xDA, 0x00, 0x04, 0x01)));
+
+    assertThrows(EOFException.class, reader::next);
+  }
+
+  private static byte[] jpeg(int width, int height, int rgb) throws IOException {
+    var image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        image.setRGB(x, y, rgb ^ (x * y));
+      }
+    }
+    var output = new ByteArrayOutputStream();
+    ImageIO.write(image, "jpg", output);
+    return output.toByteArray();
+  }
+
+  private static byte[] bytes(int... values) {
+    var result = new byte[values.length];
+    for (int i = 0; i < values.length; i++) result[i] = (byte) values[i];
+    return result;
+  }
+
+}
@@ -0,0 +1,42 @@
+package br.com.processor.infra.ffmpeg;
+
+import br.com.processor.infra.ffmpeg.SegmentPlanner.Segment;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SegmentPlannerTest {
+
+  @Test
+  void shouldCutOnNearestKeyframes() {
+    var keyframes = List.of(0.0, 9.5, 21.0, 29.0, 41.0, 52.0);
+
+    var segments = SegmentPlanner.plan(keyframes, 0, 60, 3, 10);
+
+    assertEquals(List.of(new Segment(0, 21.0), new Segment(21.0, 41.0), new Segment(41.0, 60)), segments);
+  }
+
+  @Test
+  void shouldKeepSingleSegmentForShortVideos() {
+    var segments = SegmentPlanner.plan(List.of(0.0, 2.0, 4.0), 0, 15, 8, 10);
+
+    assertEquals(List.of(new Segment(0, 15)), segments);
+  }
+
+  @Test
+  void shouldMergeCutsThatLandOnTheSameKeyframe() {
+    var segments = SegmentPlanner.plan(List.of(0.0, 50.0), 0, 100, 4, 10);
+
+    assertEquals(List.of(new Segment(0, 50.0), new Segment(50.0, 100)), segments);
+  }
+
+  @Test
+  void shouldIgnoreKeyframesOutsideTheWindow() {
+    var segments = SegmentPlanner.plan(List.of(0.0, 5.0, 95.0), 10, 90, 2, 10);
+
+    assertEquals(List.of(new Segment(10, 90)), segments);
+  }
+
+}
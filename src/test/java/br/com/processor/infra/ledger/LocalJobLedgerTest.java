@@ -0,0 +1,70 @@
+package br.com.processor.infra.ledger;
+
+import br.com.processor.app.usecases.models.JobProgress;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static br.com.processor.enums.JobStage.EXTRACTED;
+import static br.com.processor.enums.JobStage.PUBLISHED;
+import static br.com.processor.enums.JobStage.UPLOADED;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LocalJobLedgerTest {
+
+  @TempDir
+  private Path tempDir;
+
+  @Test
+  void shouldReloadLatestStagePerFile() throws IOException {
+    var store = tempDir.resolve("ledger.tsv");
+    var ledger = ledger(store.toString());
+    ledger.record("a", JobProgress.builder().stage(EXTRACTED).zipPath("/tmp/a.zip").build()).block();
+    ledger.record("a", JobProgress.builder().stage(UPLOADED).build()).block();
+    ledger.record("b", JobProgress.builder().stage(EXTRACTED).zipPath("/tmp/b.zip").build()).block();
+
+    var reloaded = ledger(store.toString());
+
+    StepVerifier.create(reloaded.find("a")).expectNext(JobProgress.builder().stage(UPLOADED).build()).verifyComplete();
+    StepVerifier.create(reloaded.find("b"))
+      .expectNext(JobProgress.builder().stage(EXTRACTED).zipPath("/tmp/b.zip").build())
+      .verifyComplete();
+    StepVerifier.create(reloaded.find("c")).verifyComplete();
+  }
+
+  @Test
+  void shouldSkipLineTornByCrash() throws IOException {
+    var store = tempDir.resolve("ledger.tsv");
+    var ledger = ledger(store.toString());
+    ledger.record("a", JobProgress.builder().stage(PUBLISHED).build()).block();
+    Files.writeString(store, "b\t{\"stage\":\"UPL", StandardOpenOption.APPEND);
+
+    var reloaded = ledger(store.toString());
+
+    StepVerifier.create(reloaded.find("a")).expectNext(JobProgress.builder().stage(PUBLISHED).build()).verifyComplete();
+    StepVerifier.create(reloaded.find("b")).verifyComplete();
+  }
+
+  @Test
+  void shouldRefuseToRunEnabledWithoutStore() {
+    var ledger = new LocalJobLedger();
+    ledger.setEnabled(true);
+    ledger.setStorePath("");
+
+    assertThrows(IllegalStateException.class, ledger::init);
+  }
+
+  private static LocalJobLedger ledger(String storePath) throws IOException {
+    var ledger = new LocalJobLedger();
+    ledger.setMaxEntries(10);
+    ledger.setStorePath(storePath);
+    ledger.init();
+    return ledger;
+  }
+
+}
@@ -0,0 +1,52 @@
+package br.com.processor.infra.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static br.com.processor.enums.FileStatusEnum.PROCESSED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PipelineMetricsTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private final PipelineMetrics metrics = new PipelineMetrics(registry);
+
+  @Test
+  void shouldTimeStagesByOutcome() {
+    StepVerifier.create(metrics.time(PipelineMetrics.FFMPEG, Mono.just(1))).expectNext(1).verifyComplete();
+    StepVerifier.create(metrics.time(PipelineMetrics.FFMPEG, Mono.error(new IllegalStateException()))).verifyError();
+
+    assertEquals(1, registry.get("processor.stage").tag("stage", "ffmpeg").tag("outcome", "success").timer().count());
+    assertEquals(1, registry.get("processor.stage").tag("stage", "ffmpeg").tag("outcome", "error").timer().count());
+  }
+
+  @Test
+  void shouldCountTransfersFramesAndFiles() {
+    metrics.bytes(PipelineMetrics.DOWNLOAD, 1024);
+    metrics.bytes(PipelineMetrics.DOWNLOAD, 1024);
+    metrics.frames(30);
+    metrics.file(PROCESSED);
+
+    assertEquals(2048, registry.get("processor.transfer.bytes").tag("direction", "download").counter().count());
+    assertEquals(30, registry.get("processor.frames").counter().count());
+    assertEquals(1, registry.get("processor.files").tag("status", "PROCESSED").counter().count());
+  }
+
+  @Test
+  void shouldTrackBacklogAndInFlightMessages() {
+    metrics.received();
+    metrics.received();
+    metrics.started();
+
+    assertEquals(1, registry.get("processor.consumer.backlog").gauge().value());
+    assertEquals(1, registry.get("processor.consumer.in.flight").gauge().value());
+
+    metrics.finished();
+
+    assertEquals(0, registry.get("processor.consumer.in.flight").gauge().value());
+  }
+
+}
@@ -0,0 +1,268 @@
+package br.com.processor.infra.s3;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process S3 stand-in for path-style requests: objects, ranged and conditional GETs,
+ * HEAD, CopyObject and multipart uploads. Signatures aren't checked; aws-chunked bodies are decoded.
+ */
+public class FakeS3Server implements AutoCloseable {
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+  private final Map<String, ConcurrentSkipListMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+  private final Map<String, AtomicInteger> operations = new ConcurrentHashMap<>();
+
+  public FakeS3Server() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  public URI endpoint() {
+    return URI.create("http://localhost:" + server.getAddress().getPort());
+  }
+
+  public void putObject(String bucket, String key, byte[] content) {
+    objects.put(bucket + "/" + key, content);
+  }
+
+  public byte[] getObject(String bucket, String key) {
+    return objects.get(bucket + "/" + key);
+  }
+
+  public void deleteObject(String bucket, String key) {
+    objects.remove(bucket + "/" + key);
+  }
+
+  public int count(String operation) {
+    var counter = operations.get(operation);
+    return counter != null ? counter.get() : 0;
+  }
+
+  public int pendingUploads() {
+    return uploads.size();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      var path = URLDecoder.decode(exchange.getRequestURI().getRawPath().substring(1), StandardCharsets.UTF_8);
+      var query = query(exchange.getRequestURI().getRawQuery());
+      var body = body(exchange);
+      switch (exchange.getRequestMethod()) {
+        case "HEAD" -> head(exchange, path);
+        case "GET" -> get(exchange, path);
+        case "PUT" -> put(exchange, path, query, body);
+        case "POST" -> post(exchange, path, query);
+        case "DELETE" -> delete(exchange, path, query);
+        default -> send(exchange, 405, new byte[0]);
+      }
+    }
+  }
+
+  private void head(HttpExchange exchange, String path) throws IOException {
+    record("HeadObject");
+    var content = objects.get(path);
+    if (content == null) {
+      exchange.sendResponseHeaders(404, -1);
+      return;
+    }
+    exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+    exchange.getResponseHeaders().add("ETag", etag(content));
+    exchange.sendResponseHeaders(200, -1);
+  }
+
+  private void get(HttpExchange exchange, String path) throws IOException {
+    record("GetObject");
+    var content = objects.get(path);
+    if (content == null) {
+      error(exchange, 404, "NoSuchKey");
+      return;
+    }
+    var ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+    if (ifMatch != null && !ifMatch.equals(etag(content))) {
+      error(exchange, 412, "PreconditionFailed");
+      return;
+    }
+    exchange.getResponseHeaders().add("ETag", etag(content));
+    var range = exchange.getRequestHeaders().getFirst("Range");
+    if (range == null) {
+      send(exchange, 200, content);
+      return;
+    }
+    record("GetObjectRange");
+    var bounds = range.substring("bytes=".length()).split("-");
+    int start = Integer.parseInt(bounds[0]);
+    int end = bounds.length > 1 ? Math.min(Integer.parseInt(bounds[1]), content.length - 1) : content.length - 1;
+    exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+    var slice = new byte[end - start + 1];
+    System.arraycopy(content, start, slice, 0, slice.length);
+    send(exchange, 206, slice);
+  }
+
+  private void put(HttpExchange exchange, String path, Map<String, String> query, byte[] body) throws IOException {
+    var uploadId = query.get("uploadId");
+    if (uploadId != null) {
+      record("UploadPart");
+      var parts = uploads.get(uploadId);
+      if (parts == null) {
+        error(exchange, 404, "NoSuchUpload");
+        return;
+      }
+      parts.put(Integer.parseInt(query.get("partNumber")), body);
+    } else if (exchange.getRequestHeaders().containsKey("x-amz-copy-source")) {
+      record("CopyObject");
+      var source = URLDecoder.decode(exchange.getRequestHeaders().getFirst("x-amz-copy-source"), StandardCharsets.UTF_8);
+      var content = objects.get(source.startsWith("/") ? source.substring(1) : source);
+      if (content == null) {
+        error(exchange, 404, "NoSuchKey");
+        return;
+      }
+      var ifMatch = exchange.getRequestHeaders().getFirst("x-amz-copy-source-if-match");
+      if (ifMatch != null && !ifMatch.equals(etag(content))) {
+        error(exchange, 412, "PreconditionFailed");
+        return;
+      }
+      objects.put(path, content);
+      send(exchange, 200, xml("<CopyObjectResult><ETag>" + etag(content) + "</ETag></CopyObjectResult>"));
+      return;
+    } else {
+      record("PutObject");
+      objects.put(path, body);
+    }
+    exchange.getResponseHeaders().add("ETag", etag(body));
+    send(exchange, 200, new byte[0]);
+  }
+
+  private void post(HttpExchange exchange, String path, Map<String, String> query) throws IOException {
+    var separator = path.indexOf('/');
+    var bucket = path.substring(0, separator);
+    var key = path.substring(separator + 1);
+    if (query.containsKey("uploads")) {
+      record("CreateMultipartUpload");
+      var uploadId = UUID.randomUUID().toString();
+      uploads.put(uploadId, new ConcurrentSkipListMap<>());
+      send(exchange, 200, xml("<InitiateMultipartUploadResult><Bucket>" + bucket + "</Bucket><Key>" + key
+        + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>"));
+      return;
+    }
+    record("CompleteMultipartUpload");
+    var parts = uploads.remove(query.get("uploadId"));
+    if (parts == null) {
+      error(exchange, 404, "NoSuchUpload");
+      return;
+    }
+    var content = new ByteArrayOutputStream();
+    parts.values().forEach(content::writeBytes);
+    objects.put(path, content.toByteArray());
+    send(exchange, 200, xml("<CompleteMultipartUploadResult><Bucket>" + bucket + "</Bucket><Key>" + key
+      + "</Key><ETag>" + etag(content.toByteArray()) + "</ETag></CompleteMultipartUploadResult>"));
+  }
+
+  private void delete(HttpExchange exchange, String path, Map<String, String> query) throws IOException {
+    var uploadId = query.get("uploadId");
+    if (uploadId != null) {
+      record("AbortMultipartUpload");
+      uploads.remove(uploadId);
+    } else {
+      record("DeleteObject");
+      objects.remove(path);
+    }
+    exchange.sendResponseHeaders(204, -1);
+  }
+
+  private void record(String operation) {
+    operations.computeIfAbsent(operation, ignored -> new AtomicInteger()).incrementAndGet();
+  }
+
+  private static byte[] body(HttpExchange exchange) throws IOException {
+    var headers = exchange.getRequestHeaders();
+    var content = exchange.getRequestBody().readAllBytes();
+    var encoding = headers.getFirst("Content-Encoding");
+    var payload = headers.getFirst("x-amz-content-sha256");
+    boolean chunked = (encoding != null && encoding.contains("aws-chunked"))
+      || (payload != null && payload.startsWith("STREAMING-"));
+    return chunked ? decodeChunks(content) : content;
+  }
+
+  private static byte[] decodeChunks(byte[] content) throws IOException {
+    var decoded = new ByteArrayOutputStream();
+    int position = 0;
+    while (position < content.length) {
+      int lineEnd = indexOfCrlf(content, position);
+      var header = new String(content, position, lineEnd - position, StandardCharsets.US_ASCII);
+      int size = Integer.parseInt(header.split(";")[0].trim(), 16);
+      if (size == 0) break;
+      decoded.write(content, lineEnd + 2, size);
+      position = lineEnd + 2 + size + 2;
+    }
+    return decoded.toByteArray();
+  }
+
+  private static int indexOfCrlf(byte[] content, int from) throws IOException {
+    for (int i = from; i < content.length - 1; i++) {
+      if (content[i] == '\r' && content[i + 1] == '\n') return i;
+    }
+    throw new IOException("Malformed aws-chunked body");
+  }
+
+  private static Map<String, String> query(String rawQuery) {
+    var query = new HashMap<String, String>();
+    if (rawQuery == null) return query;
+    for (String parameter : rawQuery.split("&")) {
+      var pair = parameter.split("=", 2);
+      query.put(URLDecoder.decode(pair[0], StandardCharsets.UTF_8),
+        pair.length > 1 ? URLDecoder.decode(pair[1], StandardCharsets.UTF_8) : "");
+    }
+    return query;
+  }
+
+  private static void error(HttpExchange exchange, int status, String code) throws IOException {
+    send(exchange, status, xml("<Error><Code>" + code + "</Code><Message>" + code + "</Message></Error>"));
+  }
+
+  private static byte[] xml(String body) {
+    return ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + body).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+    if (body.length > 0) exchange.getResponseBody().write(body);
+  }
+
+  private static String etag(byte[] content) {
+    try {
+      return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content)) + "\"";
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
@@ -0,0 +1,88 @@
+package br.com.processor.infra.s3;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.IOException;
+
+import static br.com.processor.infra.s3.MultipartUploadOutputStream.MIN_PART_SIZE;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class MultipartUploadOutputStreamTest {
+
+  @Mock
+  private S3AsyncClient s3AsyncClient;
+
+  private AutoCloseable closeable;
+
+  @BeforeEach
+  void setUp() {
+    closeable = openMocks(this);
+    when(s3AsyncClient.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+      .thenReturn(completedFuture(CompleteMultipartUploadResponse.builder().build()));
+    when(s3AsyncClient.abortMultipartUpload(any(AbortMultipartUploadRequest.class)))
+      .thenReturn(completedFuture(AbortMultipartUploadResponse.builder().build()));
+  }
+
+  @AfterEach
+  void closeService() throws Exception {
+    closeable.close();
+  }
+
+  @Test
+  void shouldUploadPartsWhileWritingAndCompleteOnClose() throws IOException {
+    when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+      .thenReturn(completedFuture(UploadPartResponse.builder().eTag("etag").build()));
+
+    try (var output = new MultipartUploadOutputStream(s3AsyncClient, "bucket", "key", "upload-1", MIN_PART_SIZE, 2)) {
+      output.write(new byte[MIN_PART_SIZE + 10]);
+      output.write(new byte[MIN_PART_SIZE]);
+    }
+
+    var parts = ArgumentCaptor.forClass(UploadPartRequest.class);
+    verify(s3AsyncClient, times(3)).uploadPart(parts.capture(), any(AsyncRequestBody.class));
+    assertEquals(MIN_PART_SIZE, parts.getAllValues().get(0).contentLength());
+    assertEquals(10L, parts.getAllValues().get(2).contentLength());
+
+    var complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+    verify(s3AsyncClient).completeMultipartUpload(complete.capture());
+    assertEquals(3, complete.getValue().multipartUpload().parts().size());
+    verify(s3AsyncClient, never()).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+  }
+
+  @Test
+  void shouldAbortWhenPartUploadFails() {
+    when(s3AsyncClient.uploadPart(any(UploadPartRequest.class), any(AsyncRequestBody.class)))
+      .thenReturn(failedFuture(new IllegalStateException("boom")));
+
+    var output = new MultipartUploadOutputStream(s3AsyncClient, "bucket", "key", "upload-1", MIN_PART_SIZE, 1);
+
+    assertThrows(IOException.class, () -> {
+      output.write(new byte[MIN_PART_SIZE]);
+      output.close();
+    });
+    verify(s3AsyncClient).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+    verify(s3AsyncClient, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+  }
+
+}
@@ -0,0 +1,170 @@
+package br.com.processor.infra.scheduling;
+
+import br.com.processor.enums.FileLane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileSchedulerTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  void shouldRoundRobinAcrossOwners() {
+    var scheduler = scheduler(1, 0);
+    var order = new CopyOnWriteArrayList<String>();
+    var jobs = List.of("a1", "a2", "a3", "a4", "b1");
+
+    StepVerifier.create(Flux.fromIterable(jobs)
+        .flatMap(job -> scheduler.submit(job.substring(0, 1), Mono.delay(Duration.ofMillis(10))
+          .doOnSubscribe(subscription -> order.add(job))
+          .thenReturn(job))))
+      .expectNextCount(jobs.size())
+      .verifyComplete();
+
+    assertEquals(List.of("a1", "b1", "a2", "a3", "a4"), order);
+    assertEquals(0, registry.get("processor.scheduler.active").gauge().value());
+  }
+
+  @Test
+  void shouldCapActiveFilesGloballyAndPerOwner() {
+    var scheduler = scheduler(3, 2);
+    var active = new AtomicInteger();
+    var maxActive = new AtomicInteger();
+    var perOwner = new ConcurrentHashMap<String, AtomicInteger>();
+    var maxPerOwner = new ConcurrentHashMap<String, Integer>();
+
+    StepVerifier.create(Flux.range(0, 12)
+        .flatMap(i -> {
+          var owner = i < 8 ? "big" : "small-" + i;
+          return scheduler.submit(owner, Mono.delay(Duration.ofMillis(20))
+            .doOnSubscribe(subscription -> {
+              maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+              int count = perOwner.computeIfAbsent(owner, key -> new AtomicInteger()).incrementAndGet();
+              maxPerOwner.merge(owner, count, Math::max);
+            })
+            .doOnTerminate(() -> {
+              active.decrementAndGet();
+              perOwner.get(owner).decrementAndGet();
+            }));
+        }))
+      .expectNextCount(12)
+      .verifyComplete();
+
+    assertEquals(3, maxActive.get());
+    assertEquals(2, maxPerOwner.get("big"));
+  }
+
+  @Test
+  void shouldDropCancelledWaitingJobs() {
+    var scheduler = scheduler(1, 0);
+    var running = Sinks.empty();
+    var started = new AtomicInteger();
+
+    var first = scheduler.submit("a", running.asMono()).subscribe();
+    var second = scheduler.submit("a", Mono.fromRunnable(started::incrementAndGet)).subscribe();
+    assertEquals(1, registry.get("processor.scheduler.waiting").gauge().value());
+
+    second.dispose();
+    assertEquals(0, registry.get("processor.scheduler.waiting").gauge().value());
+    first.dispose();
+
+    assertEquals(0, registry.get("processor.scheduler.active").gauge().value());
+    assertEquals(0, started.get());
+    StepVerifier.create(scheduler.submit("a", Mono.just("free"))).expectNext("free").verifyComplete();
+  }
+
+  @Test
+  void shouldStartSmallFilesWhileLargeOnesFillTheirLane() {
+    var scheduler = laneScheduler(true);
+    var large = Sinks.empty();
+    var started = new AtomicInteger();
+
+    var running = List.of(
+      scheduler.submit("a", FileLane.LARGE, large.asMono()).subscribe(),
+      scheduler.submit("b", FileLane.LARGE, large.asMono()).subscribe(),
+      scheduler.submit("c", FileLane.LARGE, Mono.fromRunnable(started::incrementAndGet)).subscribe());
+
+    StepVerifier.create(scheduler.submit("d", FileLane.SMALL, Mono.just("small"))).expectNext("small").verifyComplete();
+    assertEquals(0, started.get());
+    assertEquals(1, registry.get("processor.scheduler.lane.waiting").tag("lane", "large").gauge().value());
+    running.forEach(Disposable::dispose);
+  }
+
+  @Test
+  void shouldLendIdleSlotsOnlyToLanesOfSmallerFiles() {
+    var scheduler = laneScheduler(true);
+    var hold = Sinks.empty();
+    var started = new CopyOnWriteArrayList<String>();
+
+    var running = new ArrayList<Disposable>();
+    for (var job : List.of("s1", "s2", "s3")) {
+      running.add(scheduler.submit(job, FileLane.SMALL, hold.asMono().doOnSubscribe(subscription -> started.add(job))).subscribe());
+    }
+    assertEquals(List.of("s1", "s2", "s3"), started);
+
+    for (var job : List.of("l1", "l2", "l3")) {
+      running.add(scheduler.submit(job, FileLane.LARGE, hold.asMono().doOnSubscribe(subscription -> started.add(job))).subscribe());
+    }
+    assertEquals(List.of("s1", "s2", "s3", "l1"), started);
+    assertEquals(2, registry.get("processor.scheduler.lane.waiting").tag("lane", "large").gauge().value());
+    running.forEach(Disposable::dispose);
+  }
+
+  @Test
+  void shouldKeepLanesToTheirBudgetsWithoutBorrowing() {
+    var scheduler = laneScheduler(false);
+    var hold = Sinks.empty();
+
+    var running = new ArrayList<Disposable>();
+    for (int i = 0; i < 3; i++) running.add(scheduler.submit("s" + i, FileLane.SMALL, hold.asMono()).subscribe());
+
+    assertEquals(1, registry.get("processor.scheduler.lane.active").tag("lane", "small").gauge().value());
+    assertEquals(2, registry.get("processor.scheduler.lane.waiting").tag("lane", "small").gauge().value());
+    running.forEach(Disposable::dispose);
+  }
+
+  @Test
+  void shouldSortFilesIntoLanesBySize() {
+    var scheduler = laneScheduler(true);
+
+    assertEquals(FileLane.SMALL, scheduler.lane(100L));
+    assertEquals(FileLane.MEDIUM, scheduler.lane(101L));
+    assertEquals(FileLane.LARGE, scheduler.lane(1001L));
+    assertEquals(FileLane.LARGE, scheduler.lane(null));
+  }
+
+  private FileScheduler scheduler(int maxActiveFiles, int maxFilesPerOwner) {
+    var scheduler = new FileScheduler(registry);
+    scheduler.setMaxActiveFiles(maxActiveFiles);
+    scheduler.setMaxFilesPerOwner(maxFilesPerOwner);
+    scheduler.init();
+    return scheduler;
+  }
+
+  /** One slot each for small and medium files and two for large ones, which are over 1000 bytes. */
+  private FileScheduler laneScheduler(boolean borrowing) {
+    var scheduler = new FileScheduler(registry);
+    scheduler.setMaxActiveFiles(4);
+    scheduler.setLanesEnabled(true);
+    scheduler.setSmallMaxBytes(100);
+    scheduler.setMediumMaxBytes(1000);
+    scheduler.setBorrowing(borrowing);
+    scheduler.init();
+    return scheduler;
+  }
+
+}
@@ -0,0 +1,306 @@
+package br.com.processor.infra.sqs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Minimal in-process SQS stand-in speaking the JSON protocol ({@code X-Amz-Target}): send, long-poll
+ * receive with visibility timeouts and redelivery, delete, visibility changes and the approximate
+ * message counts, single and batched. Queues are created on first use and named by the last segment
+ * of their URL. Signatures aren't checked.
+ */
+public class FakeSqsServer implements AutoCloseable {
+
+  private static final String TARGET_PREFIX = "AmazonSQS.";
+  private static final int DEFAULT_VISIBILITY_SECONDS = 30;
+  private static final long POLL_MILLIS = 50;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final Map<String, Queue> queues = new ConcurrentHashMap<>();
+  private final Map<String, AtomicInteger> operations = new ConcurrentHashMap<>();
+
+  public FakeSqsServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  public URI endpoint() {
+    return URI.create("http://localhost:" + server.getAddress().getPort());
+  }
+
+  public String queueUrl(String name) {
+    return endpoint() + "/000000000000/" + name;
+  }
+
+  /** Enqueues a message as a producer outside the application would. */
+  public String send(String queueUrl, String body) {
+    return queue(queueUrl).add(body);
+  }
+
+  /** Calls {@code listener} with the body of every message later sent to the queue. */
+  public void onMessage(String queueUrl, Consumer<String> listener) {
+    queue(queueUrl).listeners.add(listener);
+  }
+
+  /** Messages in the queue, visible or in flight. */
+  public int size(String queueUrl) {
+    var queue = queue(queueUrl);
+    queue.lock.lock();
+    try {
+      return queue.messages.size();
+    } finally {
+      queue.lock.unlock();
+    }
+  }
+
+  public int count(String operation) {
+    var counter = operations.get(operation);
+    return counter != null ? counter.get() : 0;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      var target = exchange.getRequestHeaders().getFirst("X-Amz-Target");
+      if (!"POST".equals(exchange.getRequestMethod()) || target == null || !target.startsWith(TARGET_PREFIX)) {
+        error(exchange, "InvalidAction", "Expected a JSON protocol request");
+        return;
+      }
+      var operation = target.substring(TARGET_PREFIX.length());
+      operations.computeIfAbsent(operation, ignored -> new AtomicInteger()).incrementAndGet();
+      var request = mapper.readTree(exchange.getRequestBody().readAllBytes());
+      var response = mapper.createObjectNode();
+      var queue = request.hasNonNull("QueueUrl") ? queue(request.get("QueueUrl").asText()) : null;
+      if (queue == null && !operation.equals("GetQueueUrl") && !operation.equals("CreateQueue")) {
+        error(exchange, "MissingParameter", "QueueUrl is required");
+        return;
+      }
+      switch (operation) {
+        case "SendMessage" -> {
+          var body = request.path("MessageBody").asText();
+          response.put("MessageId", queue.add(body)).put("MD5OfMessageBody", md5(body));
+        }
+        case "SendMessageBatch" -> {
+          var successful = response.putArray("Successful");
+          response.putArray("Failed");
+          for (JsonNode entry : request.path("Entries")) {
+            var body = entry.path("MessageBody").asText();
+            successful.addObject()
+              .put("Id", entry.path("Id").asText())
+              .put("MessageId", queue.add(body))
+              .put("MD5OfMessageBody", md5(body));
+          }
+        }
+        case "ReceiveMessage" -> receive(queue, request, response.putArray("Messages"));
+        case "DeleteMessage" -> queue.delete(request.path("ReceiptHandle").asText());
+        case "DeleteMessageBatch" -> batch(request, response, entry -> queue.delete(entry.path("ReceiptHandle").asText()));
+        case "ChangeMessageVisibility" ->
+          queue.changeVisibility(request.path("ReceiptHandle").asText(), request.path("VisibilityTimeout").asInt());
+        case "ChangeMessageVisibilityBatch" -> batch(request, response, entry ->
+          queue.changeVisibility(entry.path("ReceiptHandle").asText(), entry.path("VisibilityTimeout").asInt()));
+        case "GetQueueAttributes" -> queue.attributes(response.putObject("Attributes"));
+        case "GetQueueUrl", "CreateQueue" -> response.put("QueueUrl", queueUrl(request.path("QueueName").asText()));
+        default -> {
+          error(exchange, "InvalidAction", "Unsupported action " + operation);
+          return;
+        }
+      }
+      send(exchange, 200, mapper.writeValueAsBytes(response));
+    }
+  }
+
+  private void receive(Queue queue, JsonNode request, ArrayNode messages) {
+    int max = request.path("MaxNumberOfMessages").asInt(1);
+    long waitMillis = TimeUnit.SECONDS.toMillis(request.path("WaitTimeSeconds").asInt(0));
+    int visibility = request.path("VisibilityTimeout").asInt(DEFAULT_VISIBILITY_SECONDS);
+    for (Message message : queue.receive(max, waitMillis, visibility)) {
+      var node = messages.addObject()
+        .put("MessageId", message.id)
+        .put("ReceiptHandle", message.receiptHandle)
+        .put("MD5OfBody", md5(message.body))
+        .put("Body", message.body);
+      node.putObject("Attributes")
+        .put("ApproximateReceiveCount", String.valueOf(message.receiveCount))
+        .put("SentTimestamp", String.valueOf(message.sentAt));
+    }
+  }
+
+  private static void batch(JsonNode request, ObjectNode response, Consumer<JsonNode> action) {
+    var successful = response.putArray("Successful");
+    response.putArray("Failed");
+    for (JsonNode entry : request.path("Entries")) {
+      action.accept(entry);
+      successful.addObject().put("Id", entry.path("Id").asText());
+    }
+  }
+
+  private Queue queue(String queueUrl) {
+    var name = queueUrl.substring(queueUrl.lastIndexOf('/') + 1);
+    return queues.computeIfAbsent(name, ignored -> new Queue());
+  }
+
+  private void error(HttpExchange exchange, String code, String message) throws IOException {
+    var body = mapper.createObjectNode().put("__type", "com.amazonaws.sqs#" + code).put("message", message);
+    send(exchange, 400, mapper.writeValueAsBytes(body));
+  }
+
+  private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.0");
+    exchange.sendResponseHeaders(status, body.length);
+    exchange.getResponseBody().write(body);
+  }
+
+  private static String md5(String body) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(body.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class Queue {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition added = lock.newCondition();
+    private final Map<String, Message> messages = new LinkedHashMap<>();
+    private final Map<String, Message> inFlight = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    private String add(String body) {
+      var message = new Message(UUID.randomUUID().toString(), body, System.currentTimeMillis());
+      lock.lock();
+      try {
+        messages.put(message.id, message);
+        added.signalAll();
+      } finally {
+        lock.unlock();
+      }
+      listeners.forEach(listener -> listener.accept(body));
+      return message.id;
+    }
+
+    private List<Message> receive(int max, long waitMillis, int visibilitySeconds) {
+      long deadline = System.currentTimeMillis() + waitMillis;
+      lock.lock();
+      try {
+        while (true) {
+          long now = System.currentTimeMillis();
+          var received = new ArrayList<Message>();
+          for (Message message : messages.values()) {
+            if (received.size() == max) break;
+            if (message.visibleAt > now) continue;
+            if (message.receiptHandle != null) inFlight.remove(message.receiptHandle);
+            message.receiptHandle = UUID.randomUUID().toString();
+            message.visibleAt = now + TimeUnit.SECONDS.toMillis(visibilitySeconds);
+            message.receiveCount++;
+            inFlight.put(message.receiptHandle, message);
+            received.add(message);
+          }
+          long remaining = deadline - now;
+          if (!received.isEmpty() || remaining <= 0) return received;
+          // Also wakes up periodically for messages whose visibility timeout expired.
+          added.await(Math.min(remaining, POLL_MILLIS), TimeUnit.MILLISECONDS);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return List.of();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void delete(String receiptHandle) {
+      var message = inFlight.remove(receiptHandle);
+      if (message == null) return;
+      lock.lock();
+      try {
+        messages.remove(message.id);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void changeVisibility(String receiptHandle, int visibilitySeconds) {
+      var message = inFlight.get(receiptHandle);
+      if (message == null) return;
+      lock.lock();
+      try {
+        message.visibleAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(visibilitySeconds);
+        if (visibilitySeconds == 0) added.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void attributes(ObjectNode attributes) {
+      long now = System.currentTimeMillis();
+      int visible = 0;
+      int notVisible = 0;
+      lock.lock();
+      try {
+        for (Message message : messages.values()) {
+          if (message.visibleAt <= now) visible++;
+          else notVisible++;
+        }
+      } finally {
+        lock.unlock();
+      }
+      attributes.put("ApproximateNumberOfMessages", String.valueOf(visible))
+        .put("ApproximateNumberOfMessagesNotVisible", String.valueOf(notVisible));
+    }
+
+  }
+
+  private static final class Message {
+
+    private final String id;
+    private final String body;
+    private final long sentAt;
+    private String receiptHandle;
+    private long visibleAt;
+    private int receiveCount;
+
+    private Message(String id, String body, long sentAt) {
+      this.id = id;
+      this.body = body;
+      this.sentAt = sentAt;
+    }
+
+  }
+
+}
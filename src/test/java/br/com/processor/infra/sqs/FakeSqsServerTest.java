@@ -0,0 +1,87 @@
+package br.com.processor.infra.sqs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Checks the stand-in against the real SDK client, which validates message checksums. */
+class FakeSqsServerTest {
+
+  private FakeSqsServer sqsServer;
+  private SqsAsyncClient sqsClient;
+  private String queueUrl;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    sqsServer = new FakeSqsServer();
+    sqsClient = SqsAsyncClient.builder()
+      .endpointOverride(sqsServer.endpoint())
+      .region(Region.US_EAST_1)
+      .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+      .build();
+    queueUrl = sqsServer.queueUrl("uploads-events");
+  }
+
+  @AfterEach
+  void tearDown() {
+    sqsClient.close();
+    sqsServer.close();
+  }
+
+  @Test
+  void shouldSendReceiveAndDeleteInBatches() {
+    var published = new CopyOnWriteArrayList<String>();
+    sqsServer.onMessage(queueUrl, published::add);
+
+    var sent = sqsClient.sendMessageBatch(request -> request.queueUrl(queueUrl).entries(
+      SendMessageBatchRequestEntry.builder().id("0").messageBody("{\"fileId\":\"a\"}").build(),
+      SendMessageBatchRequestEntry.builder().id("1").messageBody("{\"fileId\":\"é\"}").build())).join();
+    var received = sqsClient.receiveMessage(request -> request.queueUrl(queueUrl).maxNumberOfMessages(10)).join().messages();
+
+    assertEquals(2, sent.successful().size());
+    assertEquals(List.of("{\"fileId\":\"a\"}", "{\"fileId\":\"é\"}"), published);
+    assertEquals(2, received.size());
+    var deleted = sqsClient.deleteMessageBatch(request -> request.queueUrl(queueUrl).entries(received.stream()
+      .map(message -> DeleteMessageBatchRequestEntry.builder().id(message.messageId()).receiptHandle(message.receiptHandle()).build())
+      .toList())).join();
+    assertEquals(2, deleted.successful().size());
+    assertEquals(0, sqsServer.size(queueUrl));
+  }
+
+  @Test
+  void shouldRedeliverMessagesReturnedToTheQueue() {
+    sqsServer.send(queueUrl, "body");
+    var first = sqsClient.receiveMessage(request -> request.queueUrl(queueUrl)).join().messages().getFirst();
+    var attributes = sqsClient.getQueueAttributes(request -> request.queueUrl(queueUrl)
+      .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE))
+      .join().attributes();
+
+    assertEquals("0", attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES));
+    assertEquals("1", attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE));
+    assertTrue(sqsClient.receiveMessage(request -> request.queueUrl(queueUrl)).join().messages().isEmpty());
+
+    sqsClient.changeMessageVisibilityBatch(request -> request.queueUrl(queueUrl).entries(ChangeMessageVisibilityBatchRequestEntry.builder()
+      .id("0").receiptHandle(first.receiptHandle()).visibilityTimeout(0).build())).join();
+    var second = sqsClient.receiveMessage(request -> request.queueUrl(queueUrl).waitTimeSeconds(1)).join().messages().getFirst();
+
+    assertEquals(first.messageId(), second.messageId());
+    assertEquals("body", second.body());
+    assertEquals(2, sqsServer.count("ReceiveMessage") - 1);
+  }
+
+}
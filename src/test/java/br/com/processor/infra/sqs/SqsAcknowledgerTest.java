@@ -0,0 +1,97 @@
+package br.com.processor.infra.sqs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class SqsAcknowledgerTest {
+
+  @Mock
+  private SqsAsyncClient sqsAsyncClient;
+
+  @InjectMocks
+  private SqsAcknowledger sqsAcknowledger;
+
+  private AutoCloseable closeable;
+
+  @BeforeEach
+  void setUp() {
+    closeable = openMocks(this);
+    sqsAcknowledger.setUploadsEventsQueueUrl("http://localhost/uploads");
+    sqsAcknowledger.setBatchSize(10);
+    sqsAcknowledger.setLingerMs(20);
+    sqsAcknowledger.init();
+  }
+
+  @AfterEach
+  void closeService() throws Exception {
+    closeable.close();
+  }
+
+  @Test
+  void shouldDeleteMessagesInOneBatchAndWaitForResult() {
+    when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+      .thenAnswer(invocation -> {
+        DeleteMessageBatchRequest request = invocation.getArgument(0);
+        return completedFuture(DeleteMessageBatchResponse.builder()
+          .successful(request.entries().stream()
+            .map(entry -> DeleteMessageBatchResultEntry.builder().id(entry.id()).build())
+            .toList())
+          .build());
+      });
+
+    StepVerifier.create(Flux.range(0, 3).flatMap(i -> sqsAcknowledger.acknowledge(message(String.valueOf(i)))))
+      .verifyComplete();
+
+    var request = ArgumentCaptor.forClass(DeleteMessageBatchRequest.class);
+    verify(sqsAsyncClient, times(1)).deleteMessageBatch(request.capture());
+    assertEquals(3, request.getValue().entries().size());
+  }
+
+  @Test
+  void shouldReportFailedDeletes() {
+    when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+      .thenReturn(completedFuture(DeleteMessageBatchResponse.builder()
+        .failed(BatchResultErrorEntry.builder().id("0").code("ReceiptHandleIsInvalid").senderFault(true).build())
+        .build()));
+
+    StepVerifier.create(sqsAcknowledger.acknowledge(message("1")))
+      .expectErrorMatches(error -> error.getMessage().contains("ReceiptHandleIsInvalid"))
+      .verify();
+  }
+
+  @Test
+  void shouldReportBatchCallFailures() {
+    when(sqsAsyncClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+      .thenReturn(failedFuture(new IllegalStateException("unavailable")));
+
+    StepVerifier.create(sqsAcknowledger.acknowledge(message("1")))
+      .expectErrorMessage("unavailable")
+      .verify();
+  }
+
+  private static Message message(String id) {
+    return Message.builder().messageId(id).receiptHandle("receipt-" + id).body("{}").build();
+  }
+
+}
@@ -0,0 +1,273 @@
+package br.com.processor.infra.sqs;
+
+import br.com.processor.app.ports.FileProcessorQueue;
+import br.com.processor.app.usecases.ProcessFileUseCase;
+import br.com.processor.app.usecases.models.UploadQueueMessage;
+import br.com.processor.enums.FileLane;
+import br.com.processor.infra.autoscaling.AdmissionController;
+import br.com.processor.infra.autoscaling.BacklogMonitor;
+import br.com.processor.infra.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class SqsListenerTest {
+
+  @Mock
+  private SqsAsyncClient sqsAsyncClient;
+
+  @Mock
+  private ProcessFileUseCase processFileUseCase;
+
+  @Mock
+  private VisibilityHeartbeat visibilityHeartbeat;
+
+  @Mock
+  private SqsAcknowledger sqsAcknowledger;
+
+  @Mock
+  private FileProcessorQueue fileProcessorQueue;
+
+  @Mock
+  private AdmissionController admissionController;
+
+  @Mock
+  private BacklogMonitor backlogMonitor;
+
+  @Spy
+  private PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+
+  @InjectMocks
+  private SqsListener sqsListener;
+
+  private AutoCloseable closeable;
+
+  @BeforeEach
+  void setUp() {
+    closeable = openMocks(this);
+    sqsListener.setUploadsEventsQueueUrl("http://localhost/uploads");
+    sqsListener.setConcurrency(2);
+    sqsListener.setWaitTimeSeconds(20);
+    sqsListener.setVisibilityTimeoutSeconds(180);
+    sqsListener.setShutdownGracePeriodSeconds(1);
+    when(visibilityHeartbeat.track(any(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+    when(visibilityHeartbeat.releaseAll()).thenReturn(Mono.empty());
+    when(sqsAcknowledger.flush()).thenReturn(Mono.empty());
+    when(fileProcessorQueue.flush()).thenReturn(Mono.empty());
+  }
+
+  @AfterEach
+  void closeService() throws Exception {
+    if (sqsListener.isRunning()) sqsListener.stop();
+    closeable.close();
+  }
+
+  @Test
+  void shouldLongPollOnlyForFreeSlots() {
+    when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+      .thenReturn(completedFuture(ReceiveMessageResponse.builder()
+        .messages(message("1"), message("2"))
+        .build()));
+    when(processFileUseCase.process(any())).thenReturn(Mono.never());
+
+    sqsListener.start();
+
+    var request = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+    verify(sqsAsyncClient, timeout(1000)).receiveMessage(request.capture());
+    assertEquals(2, request.getValue().maxNumberOfMessages());
+    assertEquals(20, request.getValue().waitTimeSeconds());
+    assertEquals(180, request.getValue().visibilityTimeout());
+    verify(processFileUseCase, timeout(5000).times(2)).process(any());
+    verify(sqsAsyncClient, after(300).times(1)).receiveMessage(any(ReceiveMessageRequest.class));
+  }
+
+  @Test
+  void shouldNotReceiveWhileSaturated() throws InterruptedException {
+    doAnswer(invocation -> {
+      Thread.sleep(2000);
+      return null;
+    }).when(admissionController).awaitAdmission();
+
+    sqsListener.start();
+
+    verify(admissionController, timeout(1000)).awaitAdmission();
+    verify(sqsAsyncClient, after(300).never()).receiveMessage(any(ReceiveMessageRequest.class));
+  }
+
+  @Test
+  void shouldReleaseSlotWhenAdmissionWaitIsInterrupted() throws InterruptedException {
+    doThrow(new InterruptedException()).doNothing().when(admissionController).awaitAdmission();
+    when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+
+    sqsListener.start();
+
+    var request = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+    verify(sqsAsyncClient, timeout(3000)).receiveMessage(request.capture());
+    assertEquals(2, request.getValue().maxNumberOfMessages());
+  }
+
+  @Test
+  void shouldRecordProcessingTimeOfSuccessfulMessages() {
+    when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+      .thenReturn(completedFuture(ReceiveMessageResponse.builder().messages(message("1")).build()))
+      .thenReturn(new CompletableFuture<>());
+    when(processFileUseCase.process(any())).thenReturn(Mono.just(new UploadQueueMessage()));
+    when(sqsAcknowledger.acknowledge(any())).thenReturn(Mono.empty());
+
+    sqsListener.start();
+
+    verify(backlogMonitor, timeout(1000)).recordProcessingTime(any());
+  }
+
+  @Test
+  void shouldPollLaneQueuesIntoTheirLanes() {
+    when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+    when(sqsAsyncClient.receiveMessage(argThat((ReceiveMessageRequest request) -> request != null
+        && request.queueUrl().equals("http://localhost/small"))))
+      .thenReturn(completedFuture(ReceiveMessageResponse.builder().messages(message("1")).build()))
+      .thenReturn(new CompletableFuture<>());
+    when(visibilityHeartbeat.track(any(), any(), any())).thenAnswer(invocation -> invocation.getArgument(2));
+    when(processFileUseCase.process(any(), any())).thenReturn(Mono.just(new UploadQueueMessage()));
+    when(sqsAcknowledger.acknowledge(any(), any())).thenReturn(Mono.empty());
+    sqsListener.setSmallQueueUrl("http://localhost/small");
+
+    sqsListener.start();
+
+    verify(sqsAcknowledger, timeout(1000)).acknowledge(eq("http://localhost/small"), any());
+    verify(processFileUseCase).process(any(), eq(FileLane.SMALL));
+    verify(visibilityHeartbeat).track(eq("http://localhost/small"), any(), any());
+    verify(sqsAsyncClient, timeout(1000).atLeastOnce()).receiveMessage(argThat((ReceiveMessageRequest request) -> request != null
+      && request.queueUrl().equals("http://localhost/uploads")));
+  }
+
+  @Test
+  void shouldSplitConcurrencyAcrossLaneQueues() {
+    when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(new CompletableFuture<>());
+    sqsListener.setConcurrency(5);
+    sqsListener.setSmallQueueUrl("http://localhost/small");
+    sqsListener.setLargeQueueUrl("http://localhost/large");
+
+    sqsListener.start();
+
+    var requests = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+    verify(sqsAsyncClient, timeout(1000).times(3)).receiveMessage(requests.capture());
+    var slots = requests.getAllValues().stream()
+      .collect(Collectors.toMap(ReceiveMessageRequest::queueUrl, ReceiveMessageRequest::maxNumberOfMessages));
+    assertEquals(Map.of("http://localhost/uploads", 3, "http://localhost/small", 1, "http://localhost/large", 1), slots);
+  }
+
+  @Test
+  void shouldRefuseConcurrencyBelowOneSlotPerQueue() {
+    sqsListener.setConcurrency(2);
+    sqsListener.setSmallQueueUrl("http://localhost/small");
+    sqsListener.setLargeQueueUrl("http://localhost/large");
+
+    var error = assertThrows(IllegalStateException.class, sqsListener::start);
+
+    assertTrue(error.getMessage().contains("at least 3"));
+    assertFalse(sqsListener.isRunning());
+    verify(sqsAsyncClient, never()).receiveMessage(any(ReceiveMessageRequest.class));
+  }
+
+  @Test
+  void shouldLetInFlightMessagesFinishOnStop() throws InterruptedException {
+    when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+      .thenReturn(completedFuture(ReceiveMessageResponse.builder().messages(message("1")).build()))
+      .thenReturn(CompletableFuture.supplyAsync(() -> ReceiveMessageResponse.builder().build(),
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS)));
+    when(processFileUseCase.process(any())).thenReturn(Mono.delay(Duration.ofMillis(300)).thenReturn(new UploadQueueMessage()));
+    when(sqsAcknowledger.acknowledge(any())).thenReturn(Mono.empty());
+    var stopped = new CountDownLatch(1);
+
+    sqsListener.start();
+    verify(processFileUseCase, timeout(1000)).process(any());
+    sqsListener.stop(stopped::countDown);
+
+    assertTrue(stopped.await(2, TimeUnit.SECONDS));
+    assertFalse(sqsListener.isRunning());
+    verify(sqsAcknowledger).acknowledge(any());
+    verify(visibilityHeartbeat, never()).releaseAll();
+    verify(sqsAcknowledger).flush();
+    verify(fileProcessorQueue).flush();
+  }
+
+  @Test
+  void shouldProcessMessagesOfLongPollUnderWayOnStop() throws InterruptedException {
+    var poll = new CompletableFuture<ReceiveMessageResponse>();
+    when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(poll);
+    when(processFileUseCase.process(any())).thenReturn(Mono.just(new UploadQueueMessage()));
+    when(sqsAcknowledger.acknowledge(any())).thenReturn(Mono.empty());
+    var stopped = new CountDownLatch(1);
+
+    sqsListener.start();
+    verify(sqsAsyncClient, timeout(1000)).receiveMessage(any(ReceiveMessageRequest.class));
+    sqsListener.stop(stopped::countDown);
+    poll.complete(ReceiveMessageResponse.builder().messages(message("1")).build());
+
+    assertTrue(stopped.await(2, TimeUnit.SECONDS));
+    verify(sqsAcknowledger).acknowledge(any());
+    verify(visibilityHeartbeat, never()).releaseAll();
+    verify(sqsAsyncClient, times(1)).receiveMessage(any(ReceiveMessageRequest.class));
+  }
+
+  @Test
+  void shouldReturnUnfinishedMessagesAfterGracePeriod() throws InterruptedException {
+    var cancelled = new AtomicBoolean();
+    when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+      .thenReturn(completedFuture(ReceiveMessageResponse.builder().messages(message("1")).build()))
+      .thenReturn(new CompletableFuture<>());
+    when(processFileUseCase.process(any())).thenReturn(Mono.<UploadQueueMessage>never().doOnCancel(() -> cancelled.set(true)));
+    var stopped = new CountDownLatch(1);
+
+    sqsListener.start();
+    verify(processFileUseCase, timeout(1000)).process(any());
+    sqsListener.stop(stopped::countDown);
+
+    assertTrue(stopped.await(3, TimeUnit.SECONDS));
+    verify(visibilityHeartbeat).releaseAll();
+    verify(sqsAcknowledger, never()).acknowledge(any());
+    assertTrue(cancelled.get());
+    verify(fileProcessorQueue).flush();
+  }
+
+  private static Message message(String id) {
+    return Message.builder().messageId(id).receiptHandle("receipt-" + id).body("{}").build();
+  }
+
+}
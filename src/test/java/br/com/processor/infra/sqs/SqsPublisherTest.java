@@ -5,15 +5,22 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
 
-import java.util.Objects;
+import java.time.Duration;
+import java.util.stream.IntStream;
 
 import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -32,6 +39,19 @@ class SqsPublisherTest {
   @BeforeEach
   void setUp() {
     closeable = openMocks(this);
+    sqsPublisher.setQueueUrl("http://localhost/files-processor-events");
+    sqsPublisher.setBatchSize(10);
+    sqsPublisher.setLingerMs(20);
+    sqsPublisher.init();
+    when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+      .thenAnswer(invocation -> {
+        SendMessageBatchRequest request = invocation.getArgument(0);
+        return completedFuture(SendMessageBatchResponse.builder()
+          .successful(request.entries().stream()
+            .map(entry -> SendMessageBatchResultEntry.builder().id(entry.id()).messageId("id-" + entry.id()).build())
+            .toList())
+          .build());
+      });
   }
 
   @AfterEach
@@ -41,15 +61,50 @@ class SqsPublisherTest {
 
   @Test
   void sendMessage_shouldSendMessageAndReturnResponse() {
-    SendMessageResponse response = SendMessageResponse.builder().messageId("123").build();
+    StepVerifier.create(sqsPublisher.sendMessage("test-message-body"))
+      .expectNextMatches(response -> response.messageId().equals("id-0"))
+      .verifyComplete();
+
+    verify(sqsClient, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    verify(sqsClient, never()).sendMessage(any(SendMessageRequest.class));
+  }
+
+  @Test
+  void sendMessage_shouldGroupConcurrentMessagesIntoOneBatch() {
+    StepVerifier.create(Flux.range(0, 10).flatMap(i -> sqsPublisher.sendMessage("body-" + i)))
+      .expectNextCount(10)
+      .verifyComplete();
+
+    verify(sqsClient, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+  }
+
+  @Test
+  void sendMessage_shouldRetryFailedEntriesOneByOne() {
+    when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+      .thenReturn(completedFuture(SendMessageBatchResponse.builder()
+        .failed(BatchResultErrorEntry.builder().id("0").code("InternalError").senderFault(false).build())
+        .build()));
     when(sqsClient.sendMessage(any(SendMessageRequest.class)))
-      .thenReturn(completedFuture(response));
+      .thenReturn(completedFuture(SendMessageResponse.builder().messageId("retried").build()));
 
     StepVerifier.create(sqsPublisher.sendMessage("test-message-body"))
-      .expectNextMatches(Objects::nonNull)
+      .expectNextMatches(response -> response.messageId().equals("retried"))
       .verifyComplete();
 
     verify(sqsClient, times(1)).sendMessage(any(SendMessageRequest.class));
   }
 
+  @Test
+  void flush_shouldSendQueuedMessagesBeforeLingerExpires() {
+    sqsPublisher.setLingerMs(60_000);
+    sqsPublisher.init();
+    IntStream.range(0, 3).forEach(i -> sqsPublisher.sendMessage("body-" + i).subscribe());
+
+    StepVerifier.create(sqsPublisher.flush())
+      .expectComplete()
+      .verify(Duration.ofSeconds(1));
+
+    verify(sqsClient, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+  }
+
 }
@@ -0,0 +1,118 @@
+package br.com.processor.infra.sqs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class VisibilityHeartbeatTest {
+
+  @Mock
+  private SqsAsyncClient sqsAsyncClient;
+
+  @InjectMocks
+  private VisibilityHeartbeat visibilityHeartbeat;
+
+  private AutoCloseable closeable;
+  private final List<Disposable> running = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    closeable = openMocks(this);
+    visibilityHeartbeat.setUploadsEventsQueueUrl("http://localhost/uploads");
+    visibilityHeartbeat.setVisibilityTimeoutSeconds(180);
+    visibilityHeartbeat.setMaxExtensionSeconds(7200);
+    when(sqsAsyncClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+      .thenReturn(completedFuture(ChangeMessageVisibilityBatchResponse.builder().build()));
+  }
+
+  @AfterEach
+  void closeService() throws Exception {
+    running.forEach(Disposable::dispose);
+    closeable.close();
+  }
+
+  @Test
+  void shouldExtendInFlightMessagesInBatchesOfTen() {
+    IntStream.range(0, 12).forEach(i -> running.add(visibilityHeartbeat.track(message("m" + i), Mono.never()).subscribe()));
+
+    StepVerifier.create(visibilityHeartbeat.extendVisibility()).verifyComplete();
+
+    var requests = ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+    verify(sqsAsyncClient, times(2)).changeMessageVisibilityBatch(requests.capture());
+    assertEquals(10, requests.getAllValues().get(0).entries().size());
+    assertEquals(2, requests.getAllValues().get(1).entries().size());
+    assertEquals(180, requests.getAllValues().get(0).entries().get(0).visibilityTimeout());
+  }
+
+  @Test
+  void shouldStopExtendingFinishedMessages() {
+    StepVerifier.create(visibilityHeartbeat.track(message("m1"), Mono.just("done")))
+      .expectNext("done")
+      .verifyComplete();
+
+    StepVerifier.create(visibilityHeartbeat.extendVisibility()).verifyComplete();
+
+    verify(sqsAsyncClient, never()).changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+  }
+
+  @Test
+  void shouldStopExtendingAfterMaxExtension() {
+    visibilityHeartbeat.setMaxExtensionSeconds(0);
+    running.add(visibilityHeartbeat.track(message("m1"), Mono.never()).subscribe());
+
+    StepVerifier.create(visibilityHeartbeat.extendVisibility()).verifyComplete();
+
+    verify(sqsAsyncClient, never()).changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+  }
+
+  @Test
+  void shouldReleaseInFlightMessagesImmediately() {
+    IntStream.range(0, 3).forEach(i -> running.add(visibilityHeartbeat.track(message("m" + i), Mono.never()).subscribe()));
+
+    StepVerifier.create(visibilityHeartbeat.releaseAll()).verifyComplete();
+    StepVerifier.create(visibilityHeartbeat.extendVisibility()).verifyComplete();
+
+    var requests = ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+    verify(sqsAsyncClient).changeMessageVisibilityBatch(requests.capture());
+    assertEquals(3, requests.getValue().entries().size());
+    assertEquals(0, requests.getValue().entries().get(0).visibilityTimeout());
+  }
+
+  @Test
+  void shouldRefuseIntervalsTooCloseToTheVisibilityTimeout() {
+    visibilityHeartbeat.setIntervalSeconds(120);
+
+    var error = assertThrows(IllegalStateException.class, visibilityHeartbeat::start);
+
+    assertEquals("Heartbeat interval of 120s must be positive and at most half the 180s visibility timeout", error.getMessage());
+  }
+
+  private static Message message(String id) {
+    return Message.builder().messageId(id).receiptHandle("receipt-" + id).body("{}").build();
+  }
+
+}
@@ -0,0 +1,70 @@
+package br.com.processor.infra.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LruFileStoreTest {
+
+  @TempDir
+  private Path tempDir;
+
+  @Test
+  void shouldReloadOnlyEntriesTheLruStillHolds() throws IOException {
+    var path = tempDir.resolve("store.tsv");
+    var store = store(2, path);
+    for (int i = 0; i < 5; i++) store.put("k" + i, i);
+
+    var reloaded = store(2, path);
+
+    assertEquals(2, reloaded.load());
+    assertNull(reloaded.get("k2"));
+    assertEquals(3, reloaded.get("k3"));
+    assertEquals(4, reloaded.get("k4"));
+    assertEquals(List.of("k3\t3", "k4\t4"), Files.readAllLines(path));
+  }
+
+  @Test
+  void shouldCompactWhileRunning() throws IOException {
+    var path = tempDir.resolve("store.tsv");
+    var store = store(2, path);
+
+    for (int i = 0; i < 4; i++) store.put("k" + i, i);
+    assertEquals(4, Files.readAllLines(path).size());
+
+    store.put("k4", 4);
+    assertEquals(List.of("k3\t3", "k4\t4"), Files.readAllLines(path));
+
+    for (int i = 5; i < 10; i++) store.put("k" + i, i);
+    assertEquals(List.of("k8\t8", "k9\t9"), Files.readAllLines(path));
+  }
+
+  @Test
+  void shouldSkipLinesTheParserRejects() throws IOException {
+    var path = tempDir.resolve("store.tsv");
+    Files.writeString(path, "a\t1\nb\t-1\nbroken\nc\t3\n");
+
+    var store = store(10, path);
+
+    assertEquals(2, store.load());
+    assertNull(store.get("b"));
+    assertEquals(3, store.get("c"));
+  }
+
+  private static LruFileStore<Integer> store(int maxEntries, Path path) {
+    Function<String, Integer> parse = line -> {
+      int value = Integer.parseInt(line);
+      return value >= 0 ? value : null;
+    };
+    return new LruFileStore<>(maxEntries, path.toString(), false, String::valueOf, parse);
+  }
+
+}
@@ -0,0 +1,157 @@
+package br.com.processor.infra.workspace;
+
+import br.com.processor.infra.scheduling.PipelineSchedulers;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkspaceManagerTest {
+
+  private static final long MB = 1024 * 1024;
+
+  @TempDir
+  private Path root;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final List<WorkspaceManager> managers = new ArrayList<>();
+
+  @AfterEach
+  void tearDown() {
+    managers.forEach(WorkspaceManager::close);
+  }
+
+  @Test
+  void shouldDeleteWorkspaceHoweverJobEnds() throws IOException {
+    var manager = manager(100 * MB, null);
+    var dirs = new CopyOnWriteArrayList<Path>();
+
+    StepVerifier.create(manager.withWorkspace(MB, workspace -> write(workspace, dirs)))
+      .expectNextCount(1)
+      .verifyComplete();
+    StepVerifier.create(manager.withWorkspace(MB, workspace -> write(workspace, dirs).then(Mono.error(new IllegalStateException("failed")))))
+      .verifyErrorMessage("failed");
+    StepVerifier.create(manager.withWorkspace(MB, workspace -> write(workspace, dirs).then(Mono.never())))
+      .expectSubscription()
+      .thenAwait(Duration.ofMillis(50))
+      .thenCancel()
+      .verify();
+
+    assertEquals(3, dirs.stream().distinct().count());
+    StepVerifier.create(Mono.delay(Duration.ofMillis(50))).expectNextCount(1).verifyComplete();
+    dirs.forEach(dir -> assertFalse(Files.exists(dir), "left " + dir));
+    assertEquals(0, registry.get("processor.workspace.reserved").tag("pool", "disk").gauge().value());
+    assertEquals(3, registry.get("processor.workspace.job.bytes").summary().count());
+  }
+
+  @Test
+  void shouldWaitUntilReservationFits() {
+    var manager = manager(10 * MB, null);
+    var first = Sinks.empty();
+    var order = new CopyOnWriteArrayList<String>();
+
+    var running = manager.withWorkspace(6 * MB, workspace -> Mono.fromRunnable(() -> order.add("first")).then(first.asMono())).subscribe();
+    manager.withWorkspace(6 * MB, workspace -> Mono.fromCallable(() -> order.add("second"))).subscribe();
+
+    assertEquals(List.of("first"), order);
+    assertEquals(1, registry.get("processor.workspace.waiting").gauge().value());
+
+    first.tryEmitEmpty();
+    StepVerifier.create(Mono.delay(Duration.ofMillis(100))).expectNextCount(1).verifyComplete();
+    assertEquals(List.of("first", "second"), order);
+    assertEquals(0, registry.get("processor.workspace.waiting").gauge().value());
+    running.dispose();
+  }
+
+  @Test
+  void shouldPutSmallVideosInMemoryPool() throws IOException {
+    var memoryRoot = Files.createDirectories(root.resolve("shm"));
+    var manager = manager(100 * MB, memoryRoot);
+
+    StepVerifier.create(manager.withWorkspace(MB, workspace -> Mono.just(workspace.dir())))
+      .assertNext(dir -> assertEquals(memoryRoot, dir.getParent()))
+      .verifyComplete();
+    StepVerifier.create(manager.withWorkspace(64 * MB, workspace -> Mono.just(workspace.dir())))
+      .assertNext(dir -> assertEquals(root.resolve("disk"), dir.getParent()))
+      .verifyComplete();
+  }
+
+  @Test
+  void shouldRetainFilesUntilDiscardedOrExpired() throws IOException {
+    var manager = manager(100 * MB, null);
+
+    var retained = manager.withWorkspace(MB, workspace -> Mono.fromCallable(() -> Files.write(workspace.resolve("frames.zip"), new byte[1000]))
+        .flatMap(file -> manager.retain(workspace, file))
+        .doOnNext(file -> assertEquals(MB, registry.get("processor.workspace.reserved").tag("pool", "disk").gauge().value())))
+      .block();
+
+    assertTrue(Files.exists(retained));
+    assertEquals(1000, registry.get("processor.workspace.reserved").tag("pool", "disk").gauge().value());
+    StepVerifier.create(manager.discard(retained)).verifyComplete();
+    assertFalse(Files.exists(retained));
+    assertEquals(0, registry.get("processor.workspace.reserved").tag("pool", "disk").gauge().value());
+  }
+
+  @Test
+  void shouldSweepOrphansAndExpiredFilesAtStartup() throws IOException {
+    var disk = root.resolve("disk");
+    var orphan = Files.createDirectories(disk.resolve("job_123"));
+    Files.write(orphan.resolve("frame_000001.jpg"), new byte[10]);
+    var retainedDir = Files.createDirectories(disk.resolve("retained"));
+    var expired = Files.write(retainedDir.resolve("old_frames.zip"), new byte[10]);
+    Files.setLastModifiedTime(expired, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+    var recent = Files.write(retainedDir.resolve("new_frames.zip"), new byte[20]);
+
+    manager(100 * MB, null);
+
+    assertFalse(Files.exists(orphan));
+    assertFalse(Files.exists(expired));
+    assertTrue(Files.exists(recent));
+    assertEquals(20, registry.get("processor.workspace.reserved").tag("pool", "disk").gauge().value());
+  }
+
+  private WorkspaceManager manager(long quotaBytes, Path memoryRoot) {
+    var manager = new WorkspaceManager(registry, PipelineSchedulers.platform());
+    manager.setRoot(root.resolve("disk").toString());
+    manager.setQuotaBytes(quotaBytes);
+    manager.setExpansionFactor(1);
+    manager.setRetentionMinutes(30);
+    if (memoryRoot != null) {
+      manager.setMemoryRoot(memoryRoot.toString());
+      manager.setMemoryQuotaBytes(16 * MB);
+      manager.setMemoryMaxFileBytes(4 * MB);
+    }
+    try {
+      manager.init();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    managers.add(manager);
+    return manager;
+  }
+
+  private static Mono<Path> write(Workspace workspace, List<Path> dirs) {
+    return Mono.fromCallable(() -> {
+      dirs.add(workspace.dir());
+      return Files.write(workspace.resolve("video.mp4"), new byte[100]);
+    });
+  }
+
+}
@@ -0,0 +1,100 @@
+package br.com.processor.infra.zip;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelZipWriterTest {
+
+  @TempDir
+  private Path tempDir;
+
+  private ParallelZipWriter writer;
+
+  @BeforeEach
+  void setUp() {
+    writer = new ParallelZipWriter(4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    writer.close();
+  }
+
+  @Test
+  void shouldWriteStoredEntriesInOrderReadableByZipFile() throws IOException {
+    var random = new Random(42);
+    var contents = new ArrayList<byte[]>();
+    var entries = new ArrayList<ParallelZipWriter.Entry>();
+    for (int i = 1; i <= 20; i++) {
+      var bytes = new byte[random.nextInt(3 * 1024 * 1024)];
+      random.nextBytes(bytes);
+      var file = Files.write(tempDir.resolve("frame_" + i + ".jpg"), bytes);
+      contents.add(bytes);
+      entries.add(new ParallelZipWriter.Entry(file.getFileName().toString(), file));
+    }
+
+    var zip = writer.write(entries, tempDir.resolve("frames.zip"));
+
+    try (var zipFile = new ZipFile(zip.toFile())) {
+      var names = zipFile.stream().map(ZipEntry::getName).toList();
+      assertEquals(entries.stream().map(ParallelZipWriter.Entry::name).toList(), names);
+      for (int i = 0; i < entries.size(); i++) {
+        var entry = zipFile.getEntry(entries.get(i).name());
+        assertEquals(ZipEntry.STORED, entry.getMethod());
+        try (var input = zipFile.getInputStream(entry)) {
+          assertArrayEquals(contents.get(i), input.readAllBytes());
+        }
+      }
+    }
+    try (var input = new ZipInputStream(Files.newInputStream(zip))) {
+      int count = 0;
+      while (input.getNextEntry() != null) {
+        assertArrayEquals(contents.get(count++), input.readAllBytes());
+      }
+      assertEquals(contents.size(), count);
+    }
+  }
+
+  @Test
+  void shouldWriteZip64DirectoryForMoreThan65535Entries() throws IOException {
+    var frame = Files.write(tempDir.resolve("frame.jpg"), new byte[]{1, 2, 3});
+    List<ParallelZipWriter.Entry> entries = IntStream.rangeClosed(1, 70_000)
+      .mapToObj(i -> new ParallelZipWriter.Entry("frame_" + i + ".jpg", frame))
+      .toList();
+
+    var zip = writer.write(entries, tempDir.resolve("frames.zip"));
+
+    try (var zipFile = new ZipFile(zip.toFile())) {
+      assertEquals(70_000, zipFile.size());
+      try (var input = zipFile.getInputStream(zipFile.getEntry("frame_70000.jpg"))) {
+        assertArrayEquals(new byte[]{1, 2, 3}, input.readAllBytes());
+      }
+    }
+  }
+
+  @Test
+  void shouldWriteEmptyArchive() throws IOException {
+    var zip = writer.write(List.of(), tempDir.resolve("empty.zip"));
+
+    try (var zipFile = new ZipFile(zip.toFile())) {
+      assertEquals(0, zipFile.size());
+    }
+  }
+
+}
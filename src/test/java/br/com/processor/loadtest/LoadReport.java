@@ -0,0 +1,53 @@
+package br.com.processor.loadtest;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Outcome of a load test run. Latencies are in seconds; stage latencies come from the application's
+ * {@code processor.stage} timers and the end-to-end latency runs from sending a message to the
+ * file's final status.
+ */
+public record LoadReport(Map<String, Object> settings, int filesSent, int filesProcessed, int filesFailed, double elapsedSeconds,
+                         double filesPerMinute, Latency endToEnd, Map<String, Latency> stages, long peakHeapBytes,
+                         long maxHeapBytes, long peakDiskBytes) {
+
+  public String format() {
+    var text = new StringBuilder();
+    text.append(String.format(Locale.ROOT, "%nLoad test %s%n", settings));
+    text.append(String.format(Locale.ROOT, "Files: %d sent, %d processed, %d failed, %d unfinished in %.1fs%n",
+      filesSent, filesProcessed, filesFailed, filesSent - filesProcessed - filesFailed, elapsedSeconds));
+    text.append(String.format(Locale.ROOT, "Throughput: %.2f files/min%n", filesPerMinute));
+    text.append(String.format(Locale.ROOT, "Peak heap: %.1f MiB of %.1f MiB, peak workspace disk: %.1f MiB%n",
+      mib(peakHeapBytes), mib(maxHeapBytes), mib(peakDiskBytes)));
+    text.append(String.format(Locale.ROOT, "%-12s %8s %10s %10s %10s%n", "latency (s)", "count", "p50", "p95", "p99"));
+    text.append(endToEnd.format("end-to-end"));
+    stages.forEach((stage, latency) -> text.append(latency.format(stage)));
+    return text.toString();
+  }
+
+  private static double mib(long bytes) {
+    return bytes / (1024.0 * 1024.0);
+  }
+
+  public record Latency(long count, double p50, double p95, double p99) {
+
+    static Latency of(List<Double> seconds) {
+      if (seconds.isEmpty()) return new Latency(0, 0, 0, 0);
+      var sorted = seconds.stream().sorted().toList();
+      return new Latency(sorted.size(), percentile(sorted, 0.5), percentile(sorted, 0.95), percentile(sorted, 0.99));
+    }
+
+    private static double percentile(List<Double> sorted, double percentile) {
+      int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+      return sorted.get(Math.clamp(index, 0, sorted.size() - 1));
+    }
+
+    private String format(String name) {
+      return String.format(Locale.ROOT, "%-12s %8d %10.3f %10.3f %10.3f%n", name, count, p50, p95, p99);
+    }
+
+  }
+
+}
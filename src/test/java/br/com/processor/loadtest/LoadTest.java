@@ -0,0 +1,257 @@
+package br.com.processor.loadtest;
+
+import br.com.processor.ServiceProcessorApplication;
+import br.com.processor.app.usecases.models.ExtractionProfile;
+import br.com.processor.app.usecases.models.FileProcessorQueueMessage;
+import br.com.processor.app.usecases.models.UploadFileMessage;
+import br.com.processor.app.usecases.models.UploadQueueMessage;
+import br.com.processor.benchmark.SampleVideos;
+import br.com.processor.infra.s3.FakeS3Server;
+import br.com.processor.infra.sqs.FakeSqsServer;
+import br.com.processor.loadtest.LoadReport.Latency;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static br.com.processor.enums.FileStatusEnum.FAILED;
+import static br.com.processor.enums.FileStatusEnum.PROCESSED;
+import static br.com.processor.enums.UploadFileStatus.UPLOAD_SUCCESS;
+import static br.com.processor.utils.JsonUtils.fromJson;
+import static br.com.processor.utils.JsonUtils.toJson;
+import static br.com.processor.webui.constants.Constants.UPLOADS_BUCKET_NAME;
+
+/**
+ * Boots the application against in-process S3 and SQS stand-ins, sends upload messages for
+ * synthetic videos at a fixed rate and reports throughput, latency percentiles, peak heap and peak
+ * workspace disk. Run with {@code mvn -Pload-test test-compile exec:exec [-Dloadtest.args="..."]};
+ * see {@link LoadTestOptions} for the arguments. Requires ffmpeg on the PATH.
+ *
+ * <p>The stand-ins share the JVM, so peak heap includes the sample videos they serve; zips are
+ * dropped from the fake S3 as soon as their file is reported processed.
+ */
+@Slf4j
+public class LoadTest {
+
+  private static final String EMAIL = "loadtest@example.com";
+  private static final String UPLOADS_QUEUE = "uploads-events";
+  private static final String STATUS_QUEUE = "files-processor-events";
+
+  private final LoadTestOptions options;
+  private final Path workDir;
+  private final FakeS3Server s3Server;
+  private final FakeSqsServer sqsServer;
+  private final Map<String, Long> pending = new ConcurrentHashMap<>();
+  private final List<Double> latencies = new CopyOnWriteArrayList<>();
+  private final AtomicInteger processed = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+  private final AtomicLong lastFinished = new AtomicLong();
+  private final AtomicLong peakHeap = new AtomicLong();
+  private final AtomicLong peakDisk = new AtomicLong();
+  private CountDownLatch finished;
+
+  LoadTest(LoadTestOptions options, Path workDir, FakeS3Server s3Server, FakeSqsServer sqsServer) {
+    this.options = options;
+    this.workDir = workDir;
+    this.s3Server = s3Server;
+    this.sqsServer = sqsServer;
+  }
+
+  public static void main(String[] args) throws Exception {
+    var options = LoadTestOptions.parse(args);
+    // The JDK server otherwise waits on delayed ACKs, adding tens of milliseconds to every call.
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    System.setProperty("aws.accessKeyId", "loadtest");
+    System.setProperty("aws.secretAccessKey", "loadtest");
+    var workDir = Files.createTempDirectory("loadtest");
+    LoadReport report;
+    try (var s3Server = new FakeS3Server(); var sqsServer = new FakeSqsServer()) {
+      report = new LoadTest(options, workDir, s3Server, sqsServer).run();
+    } finally {
+      SampleVideos.delete(workDir);
+    }
+
+    System.out.println(report.format());
+    Files.createDirectories(options.reportDir());
+    var reportFile = options.reportDir().resolve("loadtest-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+    new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+    System.out.println("Report written to " + reportFile.toAbsolutePath());
+
+    int unfinished = report.filesSent() - report.filesProcessed() - report.filesFailed();
+    if (unfinished > 0 || report.filesFailed() > 0 || report.filesPerMinute() < options.minFilesPerMinute()) {
+      System.err.println("Load test failed: " + report.filesFailed() + " failed, " + unfinished + " unfinished, "
+        + String.format("%.2f", report.filesPerMinute()) + " files/min against a minimum of " + options.minFilesPerMinute());
+      System.exit(1);
+    }
+    System.exit(0);
+  }
+
+  LoadReport run() throws IOException, InterruptedException {
+    var samples = samples();
+    var uploadsQueue = sqsServer.queueUrl(UPLOADS_QUEUE);
+    var statusQueue = sqsServer.queueUrl(STATUS_QUEUE);
+    sqsServer.onMessage(statusQueue, this::onStatus);
+
+    var workspace = Path.of(options.properties().getOrDefault("processor.workspace.root", workDir.resolve("workspace").toString()));
+    var properties = new HashMap<String, String>();
+    properties.put("server.port", "0");
+    properties.put("aws.s3.endpoint-override", s3Server.endpoint().toString());
+    properties.put("aws.s3.force-path-style", "true");
+    properties.put("aws.sqs.endpoint-override", sqsServer.endpoint().toString());
+    properties.put("aws.sqs.endpoint", uploadsQueue);
+    properties.put("aws.sqs.fileProcessorQueueUrl", statusQueue);
+    properties.put("processor.workspace.root", workspace.toString());
+    properties.put("processor.admission.disk-path", workDir.toString());
+    // Every file shares one of a few samples, which the processed-video index would otherwise reuse.
+    properties.put("processor.dedup.enabled", "false");
+    properties.put("management.metrics.distribution.percentiles.processor.stage", "0.5,0.95,0.99");
+    properties.put("management.metrics.distribution.expiry.processor.stage", "1d");
+    properties.put("management.metrics.distribution.buffer-length.processor.stage", "1");
+    properties.put("logging.level.br.com.processor", "WARN");
+    properties.putAll(options.properties());
+
+    int messages = options.messages();
+    int files = messages * options.filesPerMessage();
+    finished = new CountDownLatch(files);
+    var heap = ManagementFactory.getMemoryMXBean();
+    try (var context = new SpringApplicationBuilder(ServiceProcessorApplication.class).run(arguments(properties))) {
+      var registry = context.getBean(MeterRegistry.class);
+      Disposable heapSampler = Flux.interval(Duration.ZERO, Duration.ofMillis(200))
+        .subscribe(tick -> peakHeap.accumulateAndGet(heap.getHeapMemoryUsage().getUsed(), Math::max));
+      Disposable diskSampler = Flux.interval(Duration.ZERO, Duration.ofMillis(200), Schedulers.boundedElastic())
+        .subscribe(tick -> peakDisk.accumulateAndGet(size(workspace), Math::max));
+      long periodMillis = Math.max(1, Math.round(60_000 / options.messagesPerMinute()));
+      long start = System.nanoTime();
+      log.warn("Sending {} messages with {} files each over {}s", messages, options.filesPerMessage(), options.durationSeconds());
+      Disposable producer = Flux.interval(Duration.ZERO, Duration.ofMillis(periodMillis))
+        .take(messages)
+        .subscribe(index -> sqsServer.send(uploadsQueue, toJson(message(index.intValue(), samples))));
+
+      boolean done = finished.await(options.durationSeconds() + options.drainTimeoutSeconds(), TimeUnit.SECONDS);
+      if (!done) log.warn("Stopped waiting with {} files unfinished", finished.getCount());
+      producer.dispose();
+      heapSampler.dispose();
+      diskSampler.dispose();
+
+      long end = done ? lastFinished.get() : System.nanoTime();
+      double elapsedSeconds = (end - start) / 1e9;
+      return new LoadReport(settings(), files, processed.get(), failed.get(), elapsedSeconds,
+        processed.get() / (elapsedSeconds / 60), Latency.of(latencies), stages(registry), peakHeap.get(), heap.getHeapMemoryUsage().getMax(),
+        peakDisk.get());
+    }
+  }
+
+  /** Command-line arguments, which take precedence over application.yml and the environment. */
+  private static String[] arguments(Map<String, String> properties) {
+    return properties.entrySet().stream().map(property -> "--" + property.getKey() + "=" + property.getValue()).toArray(String[]::new);
+  }
+
+  /** One copy of each sample, shared by every file that uses it. */
+  private List<byte[]> samples() throws IOException, InterruptedException {
+    var samples = new ArrayList<byte[]>();
+    for (var clip : options.clips()) {
+      var name = "sample_" + clip.seconds() + "s_" + clip.width() + "x" + clip.height() + ".mp4";
+      samples.add(Files.readAllBytes(SampleVideos.generate(workDir.resolve(name), clip.seconds(), clip.width(), clip.height())));
+    }
+    return samples;
+  }
+
+  private UploadQueueMessage message(int index, List<byte[]> samples) {
+    var files = new ArrayList<UploadFileMessage>();
+    for (int i = 0; i < options.filesPerMessage(); i++) {
+      var fileName = "m" + index + "_f" + i + ".mp4";
+      var sample = samples.get((index * options.filesPerMessage() + i) % samples.size());
+      s3Server.putObject(UPLOADS_BUCKET_NAME, EMAIL + "/" + fileName, sample);
+      var fileId = "m" + index + "-f" + i;
+      pending.put(fileId, System.nanoTime());
+      files.add(UploadFileMessage.builder().fileId(fileId).fileName(fileName).status(UPLOAD_SUCCESS).build());
+    }
+    return UploadQueueMessage.builder()
+      .email(EMAIL)
+      .files(files)
+      .profile(options.fps() > 0 ? ExtractionProfile.builder().fps(options.fps()).build() : null)
+      .build();
+  }
+
+  private void onStatus(String body) {
+    var status = fromJson(body, FileProcessorQueueMessage.class);
+    if (status.getStatus() != PROCESSED && status.getStatus() != FAILED) return;
+    var sentAt = status.getFileId() != null ? pending.remove(status.getFileId()) : null;
+    if (sentAt == null) return;
+    long now = System.nanoTime();
+    latencies.add((now - sentAt) / 1e9);
+    (status.getStatus() == PROCESSED ? processed : failed).incrementAndGet();
+    lastFinished.accumulateAndGet(now, Math::max);
+    s3Server.deleteObject(UPLOADS_BUCKET_NAME, status.getEmail() + "/" + status.getFileName());
+    s3Server.deleteObject(UPLOADS_BUCKET_NAME, status.getEmail() + "/" + status.getZipFileName());
+    finished.countDown();
+  }
+
+  private Map<String, Object> settings() {
+    var settings = new LinkedHashMap<String, Object>();
+    settings.put("messagesPerMinute", options.messagesPerMinute());
+    settings.put("filesPerMessage", options.filesPerMessage());
+    settings.put("durationSeconds", options.durationSeconds());
+    settings.put("clips", options.clips().stream().map(Object::toString).toList());
+    settings.put("fps", options.fps());
+    settings.put("cpus", Runtime.getRuntime().availableProcessors());
+    settings.putAll(new TreeMap<>(options.properties()));
+    return settings;
+  }
+
+  private static Map<String, Latency> stages(MeterRegistry registry) {
+    var stages = new TreeMap<String, Latency>();
+    for (Timer timer : registry.find("processor.stage").tag("outcome", "success").timers()) {
+      var percentiles = new HashMap<Double, Double>();
+      for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+        percentiles.put(value.percentile(), value.value(TimeUnit.SECONDS));
+      }
+      stages.put(timer.getId().getTag("stage"), new Latency(timer.count(),
+        percentiles.getOrDefault(0.5, 0.0), percentiles.getOrDefault(0.95, 0.0), percentiles.getOrDefault(0.99, 0.0)));
+    }
+    return stages;
+  }
+
+  private static long size(Path dir) {
+    if (!Files.exists(dir)) return 0;
+    try (Stream<Path> files = Files.walk(dir)) {
+      return files.mapToLong(file -> {
+        try {
+          return Files.isRegularFile(file) ? Files.size(file) : 0;
+        } catch (IOException e) {
+          return 0;
+        }
+      }).sum();
+    } catch (IOException | RuntimeException e) {
+      // Workspaces are deleted while being walked.
+      return 0;
+    }
+  }
+
+}
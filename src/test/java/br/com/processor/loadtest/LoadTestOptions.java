@@ -0,0 +1,73 @@
+package br.com.processor.loadtest;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load test settings, given as {@code key=value} arguments. Keys with a dot (such as
+ * {@code processor.execution.mode=VIRTUAL}) are passed to the application as properties.
+ *
+ * @param messagesPerMinute    rate at which upload messages are sent
+ * @param filesPerMessage      videos in each message
+ * @param durationSeconds      how long messages are sent for
+ * @param clips                sample videos, as {@code seconds@WIDTHxHEIGHT}, assigned to files in turn
+ * @param fps                  frames per second to extract; 0 extracts every frame
+ * @param drainTimeoutSeconds  how long to wait for the last files after sending stops
+ * @param minFilesPerMinute    throughput below which the run fails; 0 disables the check
+ * @param reportDir            where the JSON report is written
+ * @param properties           application properties to override
+ */
+public record LoadTestOptions(double messagesPerMinute, int filesPerMessage, int durationSeconds, List<Clip> clips, double fps,
+                              int drainTimeoutSeconds, double minFilesPerMinute, Path reportDir, Map<String, String> properties) {
+
+  public static LoadTestOptions parse(String... args) {
+    var values = new HashMap<String, String>();
+    var properties = new HashMap<String, String>();
+    for (String arg : args) {
+      var pair = arg.split("=", 2);
+      if (pair.length != 2) throw new IllegalArgumentException("Expected key=value, got " + arg);
+      (pair[0].contains(".") ? properties : values).put(pair[0], pair[1]);
+    }
+    var options = new LoadTestOptions(
+      Double.parseDouble(values.getOrDefault("messages-per-minute", "12")),
+      Integer.parseInt(values.getOrDefault("files-per-message", "4")),
+      Integer.parseInt(values.getOrDefault("duration-seconds", "60")),
+      Arrays.stream(values.getOrDefault("clips", "10@640x360,30@1280x720").split(",")).map(Clip::parse).toList(),
+      Double.parseDouble(values.getOrDefault("fps", "1")),
+      Integer.parseInt(values.getOrDefault("drain-timeout-seconds", "600")),
+      Double.parseDouble(values.getOrDefault("min-files-per-minute", "0")),
+      Path.of(values.getOrDefault("report-dir", "target/loadtest")),
+      Map.copyOf(properties));
+    values.keySet().removeAll(List.of("messages-per-minute", "files-per-message", "duration-seconds", "clips", "fps",
+      "drain-timeout-seconds", "min-files-per-minute", "report-dir"));
+    if (!values.isEmpty()) throw new IllegalArgumentException("Unknown options " + values.keySet());
+    if (options.messagesPerMinute <= 0 || options.filesPerMessage <= 0 || options.durationSeconds <= 0) {
+      throw new IllegalArgumentException("Rate, files per message and duration must be positive");
+    }
+    return options;
+  }
+
+  public int messages() {
+    return Math.max(1, (int) Math.round(messagesPerMinute * durationSeconds / 60));
+  }
+
+  /** A synthetic sample video. */
+  public record Clip(int seconds, int width, int height) {
+
+    static Clip parse(String value) {
+      var parts = value.trim().split("[@x]");
+      if (parts.length != 3) throw new IllegalArgumentException("Expected seconds@WIDTHxHEIGHT, got " + value);
+      return new Clip(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+    }
+
+    @Override
+    public String toString() {
+      return seconds + "s@" + width + "x" + height;
+    }
+
+  }
+
+}
@@ -1,12 +1,18 @@
 package br.com.processor.utils;
 
+import br.com.processor.app.usecases.models.UploadFileMessage;
+import br.com.processor.app.usecases.models.UploadQueueMessage;
 import org.junit.jupiter.api.Test;
 
+import java.io.UncheckedIOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import static br.com.processor.enums.UploadFileStatus.UPLOAD_SUCCESS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class JsonUtilsTest {
@@ -21,14 +27,31 @@ class JsonUtilsTest {
   }
 
   @Test
-  void toJson_shouldReturnNull_whenObjectIsNotSerializable() {
+  void toJson_shouldThrow_whenObjectIsNotSerializable() {
     Object notSerializable = new Object() {
       private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
         throw new java.io.NotSerializableException();
       }
     };
-    String json = JsonUtils.toJson(notSerializable);
-    assertNull(json);
+    assertThrows(UncheckedIOException.class, () -> JsonUtils.toJson(notSerializable));
+  }
+
+  @Test
+  void fromJson_shouldReadQueueMessage_whenJsonIsValid() {
+    var message = UploadQueueMessage.builder()
+      .email("user@example.com")
+      .files(List.of(UploadFileMessage.builder().fileName("video.mp4").status(UPLOAD_SUCCESS).build()))
+      .build();
+
+    var read = JsonUtils.fromJson(JsonUtils.toJson(message), UploadQueueMessage.class);
+
+    assertEquals(message, read);
+  }
+
+  @Test
+  void fromJson_shouldThrow_whenJsonIsInvalid() {
+    var error = assertThrows(UncheckedIOException.class, () -> JsonUtils.fromJson("{\"email\":", UploadQueueMessage.class));
+    assertTrue(error.getMessage().startsWith("Error reading UploadQueueMessage JSON"));
   }
 }
 